@@ -0,0 +1,40 @@
+package org.oosd.game;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A typical human move sequence on an {@link ActivePieceEntity}: spawn, rotate,
+ * shuffle to both walls and soft-drop to the stack (without locking, so the
+ * fixture board is never modified).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+public class ActivePieceBench {
+
+    @Param({"EMPTY", "MID_GAME", "TALL", "HOLE_RIDDEN"})
+    public BoardFixture fixture;
+
+    @Param({"T", "I"})
+    public Tetromino piece;
+
+    private Board board;
+
+    @Setup
+    public void setUp() {
+        board = fixture.build();
+    }
+
+    @Benchmark
+    public int moveSequence() {
+        ActivePieceEntity p = new ActivePieceEntity(board, piece, 3);
+        p.tryRotateCW();
+        for (int i = 0; i < 5; i++) p.tryLeft();
+        for (int i = 0; i < 10; i++) p.tryRight();
+        p.tryRotateCW();
+        while (p.softDrop()) { }
+        return p.row() * 31 + p.col();
+    }
+}
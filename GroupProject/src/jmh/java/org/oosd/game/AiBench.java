@@ -0,0 +1,73 @@
+package org.oosd.game;
+
+import org.oosd.core.GameConfig;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * AI planning cost per fixture. Run with {@code -prof gc} to see bytes
+ * allocated per plan next to the timings; for {@link #scoreCandidate} the
+ * {@code gc.alloc.rate.norm} line is bytes per candidate (expected 0).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+public class AiBench {
+
+    @Param({"EMPTY", "MID_GAME", "TALL", "HOLE_RIDDEN"})
+    public BoardFixture fixture;
+
+    private Board board;
+    private AiController uncached;
+    private BeamSearchPlanner beam;
+    private AiController.PlanContext ctx;
+    private int[][] candidates; // {rot, col, row} of every T placement on the fixture
+    private int next;
+
+    @Setup
+    public void setUp() {
+        GameConfig cfg = GameConfig.get();
+        cfg.setRows(BoardFixture.ROWS);
+        cfg.setCols(BoardFixture.COLS);
+        cfg.setSpawnCol(3);
+
+        board = fixture.build();
+        uncached = new AiController(null, null, null);
+        // no clock advance: every plan runs to a fixed depth, so timings are comparable
+        beam = new BeamSearchPlanner(new AiController(null, null, null), BeamSearchPlanner.DEFAULT_WIDTH,
+                AiController.LOOKAHEAD_DISCOUNT, 3, () -> 0L);
+
+        ctx = new AiController.PlanContext(board, Tetromino.L, 3, 4, null);
+        List<int[]> found = new ArrayList<>();
+        for (int rot = 0; rot < 4; rot++) {
+            ShapeMask shape = Tetromino.T.mask(rot);
+            for (int col = -shape.minCol(); col < BoardFixture.COLS - shape.maxCol(); col++) {
+                if (board.canPlace(shape, 0, col)) found.add(new int[]{rot, col, board.landingRow(shape, 0, col)});
+            }
+        }
+        candidates = found.toArray(new int[0][]);
+    }
+
+    /** Classic planner: every reachable placement plus the next-piece reply. */
+    @Benchmark
+    public AiController.Plan planBestPlacement() {
+        return uncached.planBestPlacement(board, Tetromino.T, 3, Tetromino.L, 4);
+    }
+
+    /** One first-ply candidate with its next-piece replies (cycles through the fixture's placements). */
+    @Benchmark
+    public double scoreCandidate() {
+        int[] c = candidates[next];
+        next = (next + 1 == candidates.length) ? 0 : next + 1;
+        return uncached.scoreCandidate(ctx, Tetromino.T, c[0], c[1], c[2]);
+    }
+
+    /** Beam search to depth 3 (two known pieces, then one expectation ply), no cache. */
+    @Benchmark
+    public BeamSearchPlanner.Result beamDepth3() {
+        return beam.plan(board, Tetromino.T, List.of(Tetromino.L), 3, Long.MAX_VALUE);
+    }
+}
@@ -0,0 +1,63 @@
+package org.oosd.game;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/** Row clears and collision checks on the seeded fixtures. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+public class BoardBench {
+
+    @Param({"EMPTY", "MID_GAME", "TALL", "HOLE_RIDDEN"})
+    public BoardFixture fixture;
+
+    private Board base;
+    private Board clearable;   // base with its bottom four rows completed
+    private Board work;
+
+    @Setup
+    public void setUp() {
+        base = fixture.build();
+        clearable = base.copy();
+        for (int r = BoardFixture.ROWS - 4; r < BoardFixture.ROWS; r++) {
+            for (int c = 0; c < BoardFixture.COLS; c++) if (clearable.empty(r, c)) clearable.set(r, c, 1);
+        }
+        work = base.copy();
+    }
+
+    /** Cost of the reset alone, to subtract from {@link #clearFourRows}. */
+    @Benchmark
+    public Board copyOnly() {
+        work.copyFrom(clearable);
+        return work;
+    }
+
+    @Benchmark
+    public int clearFourRows() {
+        work.copyFrom(clearable);
+        return work.clearFullRows();
+    }
+
+    /** clearFullRows when nothing is full (the common case after a lock). */
+    @Benchmark
+    public int clearNothing() {
+        return base.clearFullRows();
+    }
+
+    /** Every piece, rotation and column: spawn collision plus drop to the landing row. */
+    @Benchmark
+    public int tetrominoCollision() {
+        int sum = 0;
+        for (Tetromino t : Tetromino.values()) {
+            for (int rot = 0; rot < 4; rot++) {
+                ShapeMask m = t.mask(rot);
+                for (int col = 0; col <= BoardFixture.COLS - m.size(); col++) {
+                    if (base.canPlace(t, rot, 0, col)) sum += base.landingRow(m, 0, col);
+                }
+            }
+        }
+        return sum;
+    }
+}
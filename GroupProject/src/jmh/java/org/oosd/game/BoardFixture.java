@@ -0,0 +1,45 @@
+package org.oosd.game;
+
+import java.util.Random;
+
+/**
+ * Seeded 20x10 boards shared by the benchmarks.
+ *
+ * Every non-empty row keeps at least one gap so a fixture never has full rows,
+ * and the same name always builds the same cells.
+ */
+public enum BoardFixture {
+    /** Nothing placed. */
+    EMPTY(0, 0, 0),
+    /** Stack about 8 high, dense, few holes. */
+    MID_GAME(8, 80, 1L),
+    /** Stack about 16 high: little room left to spawn and rotate. */
+    TALL(16, 80, 2L),
+    /** Stack about 12 high with sparse rows, so many covered holes. */
+    HOLE_RIDDEN(12, 55, 3L);
+
+    public static final int ROWS = 20, COLS = 10;
+
+    private final int height;
+    private final int fillPercent;
+    private final long seed;
+
+    BoardFixture(int height, int fillPercent, long seed) {
+        this.height = height;
+        this.fillPercent = fillPercent;
+        this.seed = seed;
+    }
+
+    /** Fresh coloured board with this fixture's cells. */
+    public Board build() {
+        Board board = new Board(ROWS, COLS);
+        Random rnd = new Random(seed);
+        for (int r = ROWS - height; r < ROWS; r++) {
+            int gap = rnd.nextInt(COLS);
+            for (int c = 0; c < COLS; c++) {
+                if (c != gap && rnd.nextInt(100) < fillPercent) board.set(r, c, 1 + rnd.nextInt(7));
+            }
+        }
+        return board;
+    }
+}
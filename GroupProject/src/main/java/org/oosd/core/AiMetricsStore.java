@@ -0,0 +1,41 @@
+package org.oosd.core;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.List;
+
+/*
+ - Appends AI instrumentation rows to: {user.home}/.oosd-tetris/ai-metrics.csv
+ - One row per AI side per finished game; the header is written when the file is new.
+ - Rows are built by the caller (see AiMetrics.Snapshot.toCsv), so this stays format-agnostic.
+*/
+public final class AiMetricsStore {
+    private AiMetricsStore() {}
+
+    private static final Path DIR  = Paths.get(System.getProperty("user.home"), ".oosd-tetris");
+    private static final Path FILE = DIR.resolve("ai-metrics.csv");
+
+    public static Path file() { return FILE; }
+
+    /* Append rows to the default file. */
+    public static void append(String header, List<String> rows) {
+        append(FILE, header, rows);
+    }
+
+    /* Append rows, writing the header first if the file does not exist yet. */
+    public static void append(Path file, String header, List<String> rows) {
+        if (rows.isEmpty()) return;
+        StringBuilder sb = new StringBuilder();
+        if (Files.notExists(file)) sb.append(header).append('\n');
+        for (String row : rows) sb.append(row).append('\n');
+        try {
+            Path dir = file.toAbsolutePath().getParent();
+            if (dir != null && Files.notExists(dir)) Files.createDirectories(dir);
+            Files.writeString(file, sb, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+}
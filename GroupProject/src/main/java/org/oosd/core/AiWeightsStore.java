@@ -0,0 +1,93 @@
+package org.oosd.core;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/*
+ - Reads/writes: {user.home}/.oosd-tetris/ai-weights.json
+ - Holds the AI evaluator name and its weights by feature name, e.g.
+     { "evaluator": "linear", "weights": { "holes": -0.82, "lines": 3.4 } }
+ - Parsed with small regex helpers like the other stores.
+*/
+public final class AiWeightsStore {
+    private AiWeightsStore() {}
+
+    private static final Path DIR  = Paths.get(System.getProperty("user.home"), ".oosd-tetris");
+    private static final Path FILE = DIR.resolve("ai-weights.json");
+
+    /** Evaluator name (null = default) and weights in file order. */
+    public record Weights(String evaluator, Map<String, Double> values) { }
+
+    public static Path file() { return FILE; }
+
+    /* Load weights, or null if there is no usable file. */
+    public static Weights load() {
+        return load(FILE);
+    }
+
+    /* Load weights from another file, or null. */
+    public static Weights load(Path file) {
+        try {
+            if (Files.exists(file)) return fromJson(Files.readString(file, StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return null;
+    }
+
+    /* Save weights to disk as JSON. */
+    public static void save(Weights w) {
+        save(w, FILE);
+    }
+
+    /* Save weights to another file (e.g. tuner output). */
+    public static void save(Weights w, Path file) {
+        try {
+            Path dir = file.toAbsolutePath().getParent();
+            if (dir != null && Files.notExists(dir)) Files.createDirectories(dir);
+            Files.writeString(file, toJson(w), StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /* ---------- JSON (very small, schema-fixed) ---------- */
+
+    static String toJson(Weights w) {
+        StringBuilder sb = new StringBuilder("{\n");
+        if (w.evaluator() != null) sb.append("  \"evaluator\": \"").append(w.evaluator()).append("\",\n");
+        sb.append("  \"weights\": {\n");
+        Iterator<Map.Entry<String, Double>> it = w.values().entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, Double> e = it.next();
+            sb.append("    \"").append(e.getKey()).append("\": ").append(e.getValue());
+            sb.append(it.hasNext() ? ",\n" : "\n");
+        }
+        return sb.append("  }\n}\n").toString();
+    }
+
+    private static final Pattern EVALUATOR = Pattern.compile("\"evaluator\"\\s*:\\s*\"([^\"]*)\"");
+    private static final Pattern WEIGHTS   = Pattern.compile("\"weights\"\\s*:\\s*\\{([^}]*)}");
+    private static final Pattern ENTRY     =
+            Pattern.compile("\"(\\w+)\"\\s*:\\s*(-?\\d+(?:\\.\\d+)?(?:[eE][-+]?\\d+)?)");
+
+    static Weights fromJson(String json) {
+        Matcher ev = EVALUATOR.matcher(json);
+        String evaluator = ev.find() ? ev.group(1) : null;
+
+        Map<String, Double> values = new LinkedHashMap<>();
+        Matcher block = WEIGHTS.matcher(json);
+        if (block.find()) {
+            Matcher m = ENTRY.matcher(block.group(1));
+            while (m.find()) values.put(m.group(1), Double.parseDouble(m.group(2)));
+        }
+        return new Weights(evaluator, values);
+    }
+}
@@ -29,6 +29,8 @@ public final class GameConfig {
     private static final boolean DEF_AI_P1    = false;
     private static final boolean DEF_AI_P2    = false;
     private static final boolean DEF_EXTEND_MODE = false;
+    private static final int    DEF_AI_THINK_MS = 10;  // 0 = classic fixed-depth planner
+    public  static final int    MAX_AI_THINK_MS = 200;
 
 
     /* ---------------- Instance state ---------------- */
@@ -57,6 +59,9 @@ public final class GameConfig {
 
     private boolean extendModeEnabled = DEF_EXTEND_MODE;
 
+    // AI search time per decision (beam search budget, ms)
+    private int aiThinkMs = DEF_AI_THINK_MS;
+
 
     private GameConfig() { }
 
@@ -75,6 +80,7 @@ public final class GameConfig {
     // New: per-player AI flags
     public boolean isAiP1Enabled()    { return aiP1Enabled; }
     public boolean isAiP2Enabled()    { return aiP2Enabled; }
+    public int aiThinkMs()            { return aiThinkMs; }
 
 
     /* ---------------- Setters (with clamping) ---------------- */
@@ -109,6 +115,7 @@ public final class GameConfig {
     // New: per-player AI setters
     public void setAiP1Enabled(boolean v)  { aiP1Enabled = v; }
     public void setAiP2Enabled(boolean v)  { aiP2Enabled = v; }
+    public void setAiThinkMs(int ms)       { aiThinkMs = clamp(ms, 0, MAX_AI_THINK_MS); }
 
     //Extend Mode setter.
     public void setExtendModeEnabled() {
@@ -56,7 +56,8 @@ public final class SettingsStore {
                 "  \"players\": "             + c.players()               + ",\n" +
                 "  \"aiP1Enabled\": "         + c.isAiP1Enabled()         + ",\n" +   // per-player
                 "  \"aiP2Enabled\": "         + c.isAiP2Enabled()         + ",\n" +   // per-player
-                "  \"extendModeEnabled\": "   + c.isExtendModeEnabled()   + "\n" +    // NEW
+                "  \"extendModeEnabled\": "   + c.isExtendModeEnabled()   + ",\n" +   // NEW
+                "  \"aiThinkMs\": "           + c.aiThinkMs()             + "\n" +    // beam search budget
                 "}\n";
     }
 
@@ -85,6 +86,9 @@ public final class SettingsStore {
 
         // --- NEW: Extend Mode ---
         c.setExtendModeEnabled(readBoolean(json, "extendModeEnabled", c.isExtendModeEnabled()));
+
+        // --- AI think time per decision (ms) ---
+        c.setAiThinkMs(readInt(json, "aiThinkMs", c.aiThinkMs()));
     }
 
     /* ---------- tiny helpers ---------- */
@@ -4,22 +4,26 @@ import java.util.Random;
 
 /*
 Falling piece entity.
-Gravity is driven externally by GameView.enforceGravity(...), NOT by dt here.
+Gravity is driven externally by GameEngine.enforceGravity(...), NOT by dt here.
 We keep process(dt) side-effect free (just syncs x/y to state) to avoid
 "catch-up" jumps after pausing/unpausing.
+Movement is allocation-free: candidates are tested as plain ints and only
+committed into the reusable MutablePieceState when they fit.
  */
 public class ActivePieceEntity extends GameEntity {
     private final Board board;
-    private PieceState state;              // Tetromino, rotation, row, col
+    private final MutablePieceState state; // Tetromino, rotation, row, col (mutated in place)
+    private PieceState snapshot;           // cached immutable view, dropped on every move
     private final Random rng = new Random();
 
     public ActivePieceEntity(Board board, Tetromino next, int spawnCol) {
         super(EntityType.ACTIVE_PIECE);
         this.board = board;
         Tetromino t = (next != null) ? next : randomPiece();
-        this.state = new PieceState(t, 0, 0, spawnCol);
+        this.state = new MutablePieceState(t, 0, 0, spawnCol);
         this.x = state.col();
         this.y = state.row();
+        capturePrevious();
     }
 
     private Tetromino randomPiece() {
@@ -29,7 +33,7 @@ public class ActivePieceEntity extends GameEntity {
 
     @Override
     protected void process(double dt) {
-        // IMPORTANT: no dt-based gravity here. Gravity is enforced by GameView.enforceGravity().
+        // IMPORTANT: no dt-based gravity here. Gravity is enforced by GameEngine.enforceGravity().
         // Just keep entity's x/y in sync with the logical state.
         this.x = state.col();
         this.y = state.row();
@@ -59,42 +63,30 @@ public class ActivePieceEntity extends GameEntity {
         if (drot != 0) {
             newRot = (newRot + drot + state.type().rotationCount()) % state.type().rotationCount();
         }
-        PieceState next = new PieceState(state.type(), newRot, state.row() + dr, state.col() + dc);
-        if (canPlace(next)) {
-            state = next;
-            x = state.col();
-            y = state.row();
-            return true;
-        }
-        return false;
-    }
-
-    private boolean canPlace(PieceState s) {
-        int[][] m = s.type().shape(s.rot());
-        for (int r = 0; r < m.length; r++) {
-            for (int c = 0; c < m[r].length; c++) {
-                if (m[r][c] != 0) {
-                    int br = s.row() + r, bc = s.col() + c;
-                    if (!board.inBounds(br, bc) || board.get(br, bc) != 0) return false;
-                }
-            }
-        }
+        int newRow = state.row() + dr, newCol = state.col() + dc;
+        // test the candidate first, commit only if it fits
+        if (!board.canPlace(state.type().mask(newRot), newRow, newCol)) return false;
+        state.set(newRot, newRow, newCol);
+        snapshot = null;
+        x = newCol;
+        y = newRow;
         return true;
     }
 
     /** Write current piece cells into the board grid (bounds guarded). */
     private void lockToBoard() {
-        int[][] m = state.type().shape(state.rot());
-        for (int r = 0; r < m.length; r++) {
-            for (int c = 0; c < m[r].length; c++) {
-                if (m[r][c] != 0) {
-                    int br = state.row() + r, bc = state.col() + c;
-                    if (board.inBounds(br, bc)) board.set(br, bc, state.type().colorId());
-                }
-            }
-        }
+        board.place(state.mask(), state.row(), state.col(), state.type().colorId());
     }
 
-    /* Accessor for sprite */
-    public PieceState piece() { return state; }
+    /* Allocation-free accessors (sprite, AI) */
+    public Tetromino type() { return state.type(); }
+    public int rot()        { return state.rot(); }
+    public int row()        { return state.row(); }
+    public int col()        { return state.col(); }
+
+    /** Immutable snapshot of the current state (built lazily, at most once per move). */
+    public PieceState piece() {
+        if (snapshot == null) snapshot = state.toRecord();
+        return snapshot;
+    }
 }
@@ -3,31 +3,205 @@ package org.oosd.game;
 import org.oosd.core.GameConfig;
 
 import java.util.*;
-
-/** Next-piece-aware AI controller for Tetris (instance-based; no static helper calls). */
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Next-piece-aware AI controller for Tetris (instance-based; no static helper calls).
+ *
+ * First-ply candidates (each with its 2-ply lookahead) can be scored on a
+ * ForkJoinPool; the best one is still picked in serial candidate order, so a
+ * parallel plan is identical to a serial one.
+ *
+ * With a planner executor, plans run off the calling (game/FX) thread. A plan
+ * is requested as soon as a piece spawns ({@link #prepare}) on a snapshot of
+ * the board, and the result is handed back through an AtomicReference tagged
+ * with a per-side token. If it has not arrived within {@link #PLAN_DEADLINE_NS}
+ * (or the search budget plus {@link #PLAN_SLACK_NS}, if longer) of engine time,
+ * a 1-ply plan is computed inline so the piece still moves.
+ * update/prepare must be called from a single thread.
+ *
+ * Reply-search scores are memoised in a {@link TranspositionCache} keyed by the
+ * post-placement board hash, the reply piece, the search depth and the sweep
+ * column, so identical fields reached by different moves or by consecutive
+ * plans are scored once.
+ *
+ * With a search budget set ({@link #setSearchBudget}), plans come from a
+ * {@link BeamSearchPlanner} that deepens over the preview and expected pieces
+ * until the budget is spent; without one the fixed 2-ply planner is used.
+ *
+ * Placements are scored by a pluggable {@link BoardEvaluator} (by default the
+ * original hand-tuned weights as a {@link LinearEvaluator}).
+ *
+ * Sides driven through update/prepare record plan and update latencies plus
+ * candidate counters in an {@link AiMetrics} per side ({@link #metrics}).
+ */
 public final class AiController {
 
     // Cadence while travelling/rotating; once aligned we soft-drop each frame
     private static final long MOVE_NS   = 120_000_000L;
     private static final long ROTATE_NS = 120_000_000L;
 
+    /** How long an async plan may take before the inline fallback is used (at least). */
+    static final long PLAN_DEADLINE_NS = 150_000_000L;
+    /** Time a budgeted plan may overrun its search budget before it counts as late. */
+    static final long PLAN_SLACK_NS = 50_000_000L;
+
     /** Per-side transient AI state */
-    private static final class State {
+    static final class State {
         long lastMoveNs   = 0L;
         long lastRotateNs = 0L;
 
-        int lastPieceIdentity = 0;
+        ActivePieceEntity lastPiece = null;
+        long planBoardHash = 0L;   // board the current plan was computed for
 
         // Planned move for current piece
         int targetCol = 0;
         int targetRot = 0;        // 0..3
+        boolean planned = true;   // false while an async plan is outstanding
+
+        // async hand-off: workers publish, the game thread takes
+        long planToken = 0L;
+        long planRequestedNs = 0L;
+        final AtomicReference<PlanResult> handoff = new AtomicReference<>();
 
         // Sweep bias
         int sweepCol = 0;
         int sweepDir = +1;        // ping-pong: +1 → right, -1 → left
+
+        AiMetrics metrics = null; // null = not recorded
+
+        /** On lock, sweep ping-pongs between edges when healthy. */
+        void afterLock(Board board) {
+            if (!columnHealthy(board, sweepCol)) return;
+            sweepCol += sweepDir;
+            if (sweepCol <= 0) { sweepCol = 0; sweepDir = +1; }
+            else if (sweepCol >= GameConfig.get().cols() - 1) {
+                sweepCol = GameConfig.get().cols() - 1;
+                sweepDir = -1;
+            }
+        }
+    }
+
+    /** A finished plan plus the token of the request it answers. */
+    private record PlanResult(long token, Plan plan) { }
+
+    // one generator per thread: plans for both sides may run at the same time
+    private static final ThreadLocal<MoveGenerator> MOVES = ThreadLocal.withInitial(MoveGenerator::new);
+
+    /**
+     * Per-thread occupancy-only boards reused by every candidate: ply1 holds the
+     * board after the first placement, ply2 after a reply. "Undo" is a copyFrom of
+     * the parent, which only copies row masks and column features.
+     */
+    private static final class Scratch {
+        private Board ply1, ply2;
+
+        Board ply1(Board like) { return ply1 = fit(ply1, like); }
+        Board ply2(Board like) { return ply2 = fit(ply2, like); }
+
+        private static Board fit(Board b, Board like) {
+            return like.sameSize(b) ? b : Board.occupancyOnly(like.rows(), like.cols());
+        }
     }
 
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
     private final Map<Integer, State> states = new HashMap<>();
+    private final Map<Integer, AiMetrics> metrics = new ConcurrentHashMap<>();
+    private final ForkJoinPool pool;   // null = score candidates on the calling thread
+    private final Executor planner;    // null = plan synchronously
+    private final TranspositionCache cache; // null = no memoisation
+
+    private final BeamSearchPlanner beam = new BeamSearchPlanner(this);
+    private volatile long searchBudgetNanos = 0L; // 0 = fixed-depth planner
+    private volatile BoardEvaluator evaluator = LinearEvaluator.defaults();
+
+    /** Default size of the per-controller evaluation cache (entries). */
+    public static final int DEFAULT_CACHE_ENTRIES = 1 << 16;
+
+    /** Serial, synchronous planner. */
+    public AiController() {
+        this(null, null);
+    }
+
+    /** @param pool pool used to score plan candidates in parallel, or null for serial */
+    public AiController(ForkJoinPool pool) {
+        this(pool, null);
+    }
+
+    /**
+     * @param pool    pool used to score plan candidates in parallel, or null for serial
+     * @param planner executor that runs whole plans off the calling thread, or null to plan inline
+     */
+    public AiController(ForkJoinPool pool, Executor planner) {
+        this(pool, planner, new TranspositionCache(DEFAULT_CACHE_ENTRIES));
+    }
+
+    /** @param cache evaluation cache (may be shared between controllers), or null for none */
+    public AiController(ForkJoinPool pool, Executor planner, TranspositionCache cache) {
+        this.pool = pool;
+        this.planner = planner;
+        this.cache = cache;
+    }
+
+    /** Evaluation cache in use (for hit/miss stats), or null. */
+    public TranspositionCache cache() { return cache; }
+
+    /** Live instrumentation for one side (created on first use; safe from any thread). */
+    public AiMetrics metrics(int sideId) {
+        return metrics.computeIfAbsent(sideId, AiMetrics::new);
+    }
+
+    /** Snapshots of every side seen so far, by side id. */
+    public List<AiMetrics.Snapshot> metricsSnapshot() {
+        List<AiMetrics.Snapshot> out = new ArrayList<>();
+        for (AiMetrics m : metrics.values()) out.add(m.snapshot());
+        out.sort(Comparator.comparingInt(AiMetrics.Snapshot::side));
+        return out;
+    }
+
+    private State state(int sideId) {
+        return states.computeIfAbsent(sideId, k -> {
+            State st = new State();
+            st.metrics = metrics(k);
+            return st;
+        });
+    }
+
+    /**
+     * Time each plan may spend deepening the beam search (0 = classic 2-ply planner).
+     * Budgeted plans depend on machine speed, so keep 0 where games must be reproducible.
+     */
+    public void setSearchBudget(long nanos) { searchBudgetNanos = Math.max(0L, nanos); }
+
+    public long searchBudgetNanos() { return searchBudgetNanos; }
+
+    /* A plan may use its whole search budget: only give up on it some slack after that. */
+    long planDeadlineNanos() {
+        return Math.max(PLAN_DEADLINE_NS, searchBudgetNanos + PLAN_SLACK_NS);
+    }
+
+    /**
+     * Start planning for a freshly spawned piece (optional; update() does the same
+     * on first sight of a piece). Lets an async plan run while the piece appears.
+     */
+    public void prepare(int sideId,
+                        Board board,
+                        ActivePieceEntity piece,
+                        Tetromino nextVisible,
+                        long nowNanos,
+                        int tileSize) {
+        if (piece == null) return;
+        State st = state(sideId);
+        if (piece != st.lastPiece || board.hash() != st.planBoardHash) {
+            startPlan(st, board, piece, nextVisible, nowNanos, tileSize);
+        }
+    }
 
     /** Back-compat overload: no next-piece lookahead. */
     public void update(int sideId,
@@ -48,20 +222,46 @@ public final class AiController {
 
         if (piece == null) return;
 
-        State st = states.computeIfAbsent(sideId, k -> new State());
+        State st = state(sideId);
+        long start = System.nanoTime();
+        try {
+            drive(st, board, piece, nextVisible, nowNanos, tileSize);
+        } finally {
+            st.metrics.update.record(System.nanoTime() - start);
+        }
+    }
 
-        // Detect new active piece & compute a plan once
-        int identity = System.identityHashCode(piece);
-        if (identity != st.lastPieceIdentity) {
-            st.lastPieceIdentity = identity;
+    private void drive(State st,
+                       Board board,
+                       ActivePieceEntity piece,
+                       Tetromino nextVisible,
+                       long nowNanos,
+                       int tileSize) {
 
-            Plan plan = planBestPlacement(board, piece, nextVisible, st);
-            st.targetCol = plan.targetCol;
-            st.targetRot = plan.targetRot & 3;
+        // Detect new active piece (or a board changed under the plan) & compute a plan once
+        if (piece != st.lastPiece || board.hash() != st.planBoardHash) {
+            startPlan(st, board, piece, nextVisible, nowNanos, tileSize);
+        }
+
+        // Waiting on an async plan: take it if published, else fall back once it is late
+        if (!st.planned) {
+            PlanResult r = st.handoff.getAndSet(null);
+            if (r != null && r.token() == st.planToken) {
+                applyPlan(st, r.plan());
+            } else if (nowNanos - st.planRequestedNs >= planDeadlineNanos()) {
+                st.planToken++; // a late async result is now stale
+                if (st.metrics != null) st.metrics.fallbacks.increment();
+                long start = System.nanoTime();
+                applyPlan(st, planBestPlacement(board, piece.type(), pieceCol(piece, tileSize),
+                        /*nextVisible*/ null, st.sweepCol, st.metrics));
+                if (st.metrics != null) st.metrics.plan.record(System.nanoTime() - start);
+            } else {
+                return; // keep falling under gravity until the plan lands
+            }
         }
 
         final int px   = pieceCol(piece, tileSize);
-        final int prot = piece.piece().rot() & 3;
+        final int prot = piece.rot() & 3;
 
         // 1) Rotate toward target rotation on cadence (CW-only for max compatibility)
         if (prot != st.targetRot && (nowNanos - st.lastRotateNs) >= ROTATE_NS) {
@@ -81,450 +281,390 @@ public final class AiController {
         // 3) If aligned in col & rot, nudge down to lock quickly
         if (px == st.targetCol && prot == st.targetRot) {
             boolean locked = !piece.softDropOrLock(); // returns false if it locked
-            if (locked) {
-                // On lock, sweep ping-pongs between edges when healthy
-                int[][] f = snapshot(board, GameConfig.get().rows(), GameConfig.get().cols());
-                if (columnHealthy(f, st.sweepCol)) {
-                    st.sweepCol += st.sweepDir;
-                    if (st.sweepCol <= 0) { st.sweepCol = 0; st.sweepDir = +1; }
-                    else if (st.sweepCol >= GameConfig.get().cols() - 1) {
-                        st.sweepCol = GameConfig.get().cols() - 1;
-                        st.sweepDir = -1;
-                    }
-                }
+            if (locked) st.afterLock(board);
+        }
+    }
+
+    // ---------- Plan requests ----------
+
+    private void startPlan(State st, Board board, ActivePieceEntity piece,
+                           Tetromino nextVisible, long nowNanos, int tileSize) {
+        st.lastPiece = piece;
+        st.planBoardHash = board.hash();
+
+        Tetromino t = piece.type();
+        int currentCol = pieceCol(piece, tileSize);
+        int sweepCol = st.sweepCol;
+        AiMetrics m = st.metrics;
+
+        if (planner != null) {
+            long token = ++st.planToken;
+            Board snapshot = board.occupancyCopy(); // the live board keeps changing on the game thread
+            st.planned = false;
+            st.planRequestedNs = nowNanos;
+            st.handoff.set(null);
+            try {
+                planner.execute(() -> {
+                    Plan p = plan(snapshot, t, currentCol, nextVisible, sweepCol, m);
+                    // a stale worker finishing last must not replace a newer result
+                    st.handoff.updateAndGet(cur -> (cur == null || cur.token() < token)
+                            ? new PlanResult(token, p) : cur);
+                });
+                return;
+            } catch (RejectedExecutionException ignored) {
+                // executor shut down: plan inline below
             }
         }
+        applyPlan(st, plan(board, t, currentCol, nextVisible, sweepCol, m));
+    }
+
+    /* Timed plan: beam search when budgeted (falls back to the fixed planner if it finds nothing). */
+    private Plan plan(Board field, Tetromino t, int currentCol, Tetromino nextVisible, int sweepCol,
+                      AiMetrics m) {
+        long start = System.nanoTime();
+        Plan plan = null;
+        long budget = searchBudgetNanos;
+        if (budget > 0) {
+            List<Tetromino> preview = (nextVisible == null) ? List.of() : List.of(nextVisible);
+            BeamSearchPlanner.Result r =
+                    beam.plan(field, t, preview, GameConfig.get().spawnCol(), currentCol, sweepCol, budget, m);
+            if (r != null) plan = r.plan();
+        }
+        if (plan == null) plan = planBestPlacement(field, t, currentCol, nextVisible, sweepCol, m);
+        if (m != null) m.plan.record(System.nanoTime() - start);
+        return plan;
+    }
+
+    private static void applyPlan(State st, Plan plan) {
+        st.targetCol = plan.targetCol;
+        st.targetRot = plan.targetRot & 3;
+        st.planned = true;
     }
 
     // ---------- Planning (try all useful reachable placements, pick the best) ----------
 
-    private record Plan(int targetCol, int targetRot) { }
+    /**
+     * Where to lock the piece: column of its rotation matrix's top-left cell (as
+     * {@link MoveGenerator#landingCol}; negative when the rotation's first columns
+     * are empty and it sits against the left wall) and rotation (0..3).
+     */
+    public record Plan(int targetCol, int targetRot) { }
+
+    /**
+     * Stateless plan for a piece about to spawn on {@code field}, for callers
+     * without a live side (move server, tools). The piece spawns as GameEngine
+     * spawns it; the search budget applies as for a live side. Thread-safe.
+     *
+     * @param next preview piece, or null to plan without lookahead
+     */
+    public Plan planSpawn(Board field, Tetromino t, Tetromino next) {
+        int col = GameEngine.spawnColumn(GameConfig.get().spawnCol(), t, field.cols());
+        return plan(field, t, col, next, col, null);
+    }
 
-    private Plan planBestPlacement(Board board,
-                                   ActivePieceEntity pieceEntity,
-                                   Tetromino nextVisible,
-                                   State st) {
+    /** Plans below this many candidates are scored inline; forking costs more than it saves. */
+    private static final int PARALLEL_THRESHOLD = 4;
 
-        Tetromino t = pieceEntity.piece().type();
-        int cols = GameConfig.get().cols();
-        int rows = GameConfig.get().rows();
+    /** Immutable inputs shared by every candidate of one plan (safe to read from worker threads). */
+    record PlanContext(Board field, Tetromino next, int currentCol, int sweepCol, AiMetrics metrics) { }
 
-        int[] rots = rotationsToTry(t);
+    /** Pure function of its arguments; only reads {@code field}, so it may run on any thread. */
+    Plan planBestPlacement(Board field,
+                           Tetromino t,
+                           int currentCol,
+                           Tetromino nextVisible,
+                           int sweepCol) {
+        return planBestPlacement(field, t, currentCol, nextVisible, sweepCol, null);
+    }
 
-        double bestScore = -Double.MAX_VALUE;
-        int bestCol = 0;
-        int bestRot = 0;
-        int bestLandingRow = -1;
+    /** As above, adding candidate counts to {@code metrics} when it is not null. */
+    Plan planBestPlacement(Board field,
+                           Tetromino t,
+                           int currentCol,
+                           Tetromino nextVisible,
+                           int sweepCol,
+                           AiMetrics metrics) {
 
-        // snapshot field
-        int[][] field = snapshot(board, rows, cols);
+        int cols = field.cols();
 
-        // spawn location (rotation 0 assumed)
-        final int spawnCol = clamp(GameConfig.get().spawnCol(), cols - 1);
+        int[] rots = rotationsToTry(t);
 
-        // current column
-        final int currentCol = pieceCol(pieceEntity, GameConfig.get().tileSize());
+        // spawn location (rotation 0 assumed), where GameEngine puts the piece
+        final int spawnCol = GameEngine.spawnColumn(GameConfig.get().spawnCol(), t, cols);
 
-        // Precompute bottom-row data
-        final int[] bottomRow = Arrays.copyOf(field[rows - 1], cols);
-        final int bottomEmpty = countZeros(bottomRow);
+        // every (rot, col) the piece can lock at from spawn, found in one BFS
+        MoveGenerator moves = MOVES.get();
+        moves.generate(field, t, 0, 0, spawnCol);
 
-        // Precompute row empties for imminent-completion bonuses
-        RowStat[] rs = rowStats(field);
+        // 1) collect candidates in a fixed (rot, col) order
+        int[] candRot = new int[rots.length * cols];
+        int[] candCol = new int[candRot.length];
+        int[] candRow = new int[candRot.length];
+        int n = 0;
 
         // exploration cap for perf
         int explored = 0;
         final int EXPLORE_CAP = 600;
+        int generated = 0, pruned = 0, capped = 0;
 
         for (int rot : rots) {
-            int[][] shape = t.shape(rot);
-            int w = (shape.length == 0) ? 0 : shape[0].length;
-            if (w == 0 || w > cols) continue;
+            ShapeMask shape = t.mask(rot);
+            if (shape.cellCount() == 0 || shape.maxCol() - shape.minCol() >= cols) continue;
 
-            for (int col = 0; col <= cols - w; col++) {
-                if (++explored > EXPLORE_CAP) break;
+            for (int col = -shape.minCol(); col < cols - shape.maxCol(); col++) { // top-left may be left of the board
+                if (++explored > EXPLORE_CAP) {
+                    capped += cols - shape.maxCol() - col;
+                    break;
+                }
+                generated++;
 
                 // find landing row by "dropping" until collision
-                int row = 0;
-                if (!canPlace(field, shape, row, col)) continue; // blocked immediately
-                while (row + 1 < rows && canPlace(field, shape, row + 1, col)) row++;
+                if (!field.canPlace(shape, 0, col)) { pruned++; continue; } // blocked immediately
+                int row = field.landingRow(shape, 0, col);
 
                 // reachable from spawn? (prevents magical side-slips)
-                if (!pathExistsFromSpawn(field, t, spawnCol, rows, cols, rot, col)) continue;
-
-                // simulate placement & line clears
-                int[][] after = deepCopy(field);
-                place(after, shape, row, col);
-                int linesCleared = clearFullLines(after);
-
-                // quick bottom-fill awareness
-                int bottomFilledByThisPiece = cellsPlacedOnRow(shape, row, rows - 1);
+                if (!moves.canLand(rot, col)) { pruned++; continue; }
 
-                // imminent-completion helpers (on the pre-placement board)
-                int help1 = cellsHelpingCriticalRows(shape, row, rs, /*criticalMaxEmpty=*/1);
-                int help2 = (help1 == 0) ? cellsHelpingCriticalRows(shape, row, rs, 2) : 0;
-                int help3 = (help1 == 0 && help2 == 0) ? cellsHelpingCriticalRows(shape, row, rs, 3) : 0;
-
-                // one-ply score
-                double s1 = evaluate(after, linesCleared, bottomEmpty, bottomFilledByThisPiece,
-                        row, rows, help1, help2, help3);
+                candRot[n] = rot;
+                candCol[n] = col;
+                candRow[n] = row;
+                n++;
+            }
+        }
 
-                // ------------- next-piece lookahead (2-ply) -------------
-                double s2 = 0.0;
-                if (nextVisible != null) {
-                    s2 = bestReplyScore(after, nextVisible, st);
-                }
+        // 2) score every candidate (independent, so they can run on the pool)
+        if (metrics != null) {
+            metrics.generated.add(generated);
+            metrics.pruned.add(pruned);
+            metrics.capped.add(capped);
+            metrics.evaluated.add(n);
+        }
+        PlanContext ctx = new PlanContext(field, nextVisible, currentCol, sweepCol, metrics);
+        double[] scores = new double[n];
+        if (pool != null && n >= PARALLEL_THRESHOLD) {
+            pool.invoke(new ScoreTask(ctx, t, candRot, candCol, candRow, scores, 0, n));
+        } else {
+            for (int i = 0; i < n; i++) scores[i] = scoreCandidate(ctx, t, candRot[i], candCol[i], candRow[i]);
+        }
 
-                double score = s1 + 0.65 * s2; // weight lookahead less than immediate result
-
-                // reduce side-to-side motion (weaker so edges are viable)
-                int horizDist = Math.abs(col - currentCol);
-                final double DIST_PENALTY = 0.03; // was 0.08
-                score -= DIST_PENALTY * horizDist;
-
-                // mild sweep pull toward the current sweep column
-                int sweepDist = Math.abs(col - st.sweepCol);
-                final double SWEEP_PULL = 0.05;
-                score -= SWEEP_PULL * sweepDist;
-
-                // NEW: tiny edge preference when edges are shallow
-                int distanceToEdge = Math.min(col, cols - 1 - col);
-                int localHeight = columnHeight(after, col);
-                int edgeShallowBonus = Math.max(0, 6 - localHeight); // more bonus if shallow
-                final double EDGE_PULL = 0.02;
-                score += EDGE_PULL * Math.max(0, 3 - distanceToEdge) * edgeShallowBonus;
-
-                // prefer deeper landings as tie-break
-                if (score > bestScore ||
-                        (Math.abs(score - bestScore) < 1e-6 && row > bestLandingRow)) {
-                    bestScore = score;
-                    bestCol = col;
-                    bestRot = rot;
-                    bestLandingRow = row;
-                }
+        // 3) reduce serially in candidate order -> same tie-breaks as a serial plan
+        double bestScore = -Double.MAX_VALUE;
+        int bestCol = 0;
+        int bestRot = 0;
+        int bestLandingRow = -1;
+        for (int i = 0; i < n; i++) {
+            double score = scores[i];
+            // prefer deeper landings as tie-break
+            if (score > bestScore ||
+                    (Math.abs(score - bestScore) < 1e-6 && candRow[i] > bestLandingRow)) {
+                bestScore = score;
+                bestCol = candCol[i];
+                bestRot = candRot[i];
+                bestLandingRow = candRow[i];
             }
         }
 
         return new Plan(bestCol, bestRot & 3);
     }
 
-    /** Evaluate the best placement score for the given next piece on a hypothetical board. */
-    private double bestReplyScore(int[][] baseField, Tetromino next, State st) {
-        int rows = baseField.length, cols = baseField[0].length;
-        int[] rots = rotationsToTry(next);
-
-        // Precompute stats on the post-first-move field
-        int[] bottomRow = Arrays.copyOf(baseField[rows - 1], cols);
-        int bottomEmpty = countZeros(bottomRow);
-        RowStat[] rs = rowStats(baseField);
-
-        double best = -Double.MAX_VALUE;
-        int explored = 0, CAP = 400;
-
-        for (int rot : rots) {
-            int[][] shape = next.shape(rot);
-            int w = (shape.length == 0) ? 0 : shape[0].length;
-            if (w == 0 || w > cols) continue;
-
-            for (int col = 0; col <= cols - w; col++) {
-                if (++explored > CAP) break;
-
-                int row = 0;
-                if (!canPlace(baseField, shape, row, col)) continue;
-                while (row + 1 < rows && canPlace(baseField, shape, row + 1, col)) row++;
+    /**
+     * Full score of one first-ply placement, including the next-piece lookahead.
+     * Works on this thread's scratch boards and allocates nothing once they exist.
+     */
+    double scoreCandidate(PlanContext ctx, Tetromino t, int rot, int col, int row) {
+        Board field = ctx.field();
+        ShapeMask shape = t.mask(rot);
+
+        // simulate placement & line clears on this thread's scratch board
+        Board after = SCRATCH.get().ply1(field);
+        after.copyFrom(field);
+        after.place(shape, row, col, 1);
+        int linesCleared = after.clearFullRows();
+
+        // one-ply score
+        double s1 = placementScore(field, shape, row, after, linesCleared);
+
+        // ------------- next-piece lookahead (2-ply) -------------
+        double s2 = 0.0;
+        if (ctx.next() != null) {
+            s2 = bestReplyScore(after, ctx.next(), ctx.sweepCol(), ctx.metrics());
+        }
 
-                int[][] after = deepCopy(baseField);
-                place(after, shape, row, col);
-                int cleared = clearFullLines(after);
+        double score = s1 + LOOKAHEAD_DISCOUNT * s2; // weight lookahead less than immediate result
+        score = withPositionTerms(score, col, after, ctx.currentCol(), ctx.sweepCol());
 
-                int bottomFilled = cellsPlacedOnRow(shape, row, rows - 1);
-                int help1 = cellsHelpingCriticalRows(shape, row, rs, 1);
-                int help2 = (help1 == 0) ? cellsHelpingCriticalRows(shape, row, rs, 2) : 0;
-                int help3 = (help1 == 0 && help2 == 0) ? cellsHelpingCriticalRows(shape, row, rs, 3) : 0;
+        return score;
+    }
 
-                double s = evaluate(after, cleared, bottomEmpty, bottomFilled,
-                        row, rows, help1, help2, help3);
+    /**
+     * Add the positional terms of a first placement at {@code col} to its score:
+     * travel from the piece's column, a pull toward the sweep column and a small
+     * bonus for shallow edges ({@code after} is the board once it has locked).
+     * Shared with {@link BeamSearchPlanner} so both planners rank moves alike.
+     */
+    static double withPositionTerms(double score, int col, Board after, int currentCol, int sweepCol) {
+        int cols = after.cols();
+
+        // reduce side-to-side motion (weaker so edges are viable)
+        int horizDist = Math.abs(col - currentCol);
+        final double DIST_PENALTY = 0.03; // was 0.08
+        score -= DIST_PENALTY * horizDist;
+
+        // mild sweep pull toward the current sweep column
+        int sweepDist = Math.abs(col - sweepCol);
+        final double SWEEP_PULL = 0.05;
+        score -= SWEEP_PULL * sweepDist;
+
+        // NEW: tiny edge preference when edges are shallow
+        int onBoard = Math.max(0, col); // the top-left is left of the board for some edge placements
+        int distanceToEdge = Math.min(onBoard, cols - 1 - onBoard);
+        int localHeight = after.columnHeight(onBoard);
+        int edgeShallowBonus = Math.max(0, 6 - localHeight); // more bonus if shallow
+        final double EDGE_PULL = 0.02;
+        score += EDGE_PULL * Math.max(0, 3 - distanceToEdge) * edgeShallowBonus;
+
+        return score;
+    }
 
-                // small bias toward continuing the sweep
-                final double SWEEP_PULL = 0.03;
-                s -= SWEEP_PULL * Math.abs(col - st.sweepCol);
+    /** Weight of the next ply relative to this one; the beam search discounts each deeper ply by it too. */
+    static final double LOOKAHEAD_DISCOUNT = 0.65;
+
+    /** Sweep pull on the reply to a first placement (weaker than on the first placement itself). */
+    static final double REPLY_SWEEP_PULL = 0.03;
+
+    /** Splits a candidate range in halves until it is small enough to score directly. */
+    @SuppressWarnings("serial") // a fork/join task, never serialized
+    private final class ScoreTask extends RecursiveAction {
+        private final PlanContext ctx;
+        private final Tetromino t;
+        private final int[] rot, col, row;
+        private final double[] out;
+        private final int from, to;
+
+        ScoreTask(PlanContext ctx, Tetromino t, int[] rot, int[] col, int[] row,
+                  double[] out, int from, int to) {
+            this.ctx = ctx; this.t = t;
+            this.rot = rot; this.col = col; this.row = row;
+            this.out = out; this.from = from; this.to = to;
+        }
 
-                if (s > best) best = s;
+        @Override
+        protected void compute() {
+            if (to - from <= 2) {
+                for (int i = from; i < to; i++) out[i] = scoreCandidate(ctx, t, rot[i], col[i], row[i]);
+                return;
             }
+            int mid = (from + to) >>> 1;
+            invokeAll(new ScoreTask(ctx, t, rot, col, row, out, from, mid),
+                      new ScoreTask(ctx, t, rot, col, row, out, mid, to));
         }
-        return (best == -Double.MAX_VALUE) ? -5.0 : best; // if no move, punish
     }
 
-    // ---------- Heuristic ----------
-
-    private double evaluate(int[][] field,
-                            int linesCleared,
-                            int bottomEmptyBefore,
-                            int bottomFilledByThisPiece,
-                            int landingRow,
-                            int totalRows,
-                            int help1, int help2, int help3) {
-
-        int cols = field[0].length;
-        int rows = field.length;
-
-        int[] heights = new int[cols];
-        int holes = 0;
-
-        // heights & holes
-        for (int c = 0; c < cols; c++) {
-            int h = 0;
-            boolean blockSeen = false;
-            for (int r = 0; r < rows; r++) {
-                if (field[r][c] != 0) {
-                    if (!blockSeen) { h = rows - r; blockSeen = true; }
-                } else {
-                    if (blockSeen) holes++; // empty below a block
-                }
-            }
-            heights[c] = h;
+    /** Evaluate the best placement score for the given next piece on a hypothetical board. */
+    private double bestReplyScore(Board baseField, Tetromino next, int sweepCol, AiMetrics metrics) {
+        if (cache == null) return searchReplies(baseField, next, sweepCol, metrics);
+        long key = replyKey(baseField, next, sweepCol);
+        double cached = cache.get(key);
+        if (!Double.isNaN(cached)) {
+            if (metrics != null) metrics.cacheHits.increment();
+            return cached;
         }
+        if (metrics != null) metrics.cacheMisses.increment();
+        double score = searchReplies(baseField, next, sweepCol, metrics);
+        cache.put(key, score);
+        return score;
+    }
 
-        int aggregateHeight = 0;
-        for (int h : heights) aggregateHeight += h;
-
-        int bumpiness = 0;
-        for (int c = 0; c < cols - 1; c++) bumpiness += Math.abs(heights[c] - heights[c + 1]);
-
-        // encourage filling low/near-bottom empties
-        int lowGapsScore = 0;
-        for (int c = 0; c < cols; c++) {
-            int empties = 0;
-            for (int r = rows - 1; r >= 0; r--) {
-                if (field[r][c] == 0) empties++;
-                else break;
-            }
-            if (empties > 0) lowGapsScore += Math.max(1, 4 - empties);
-        }
+    /** Search depth tag mixed into reply keys (deeper searches get their own entries). */
+    private static final int REPLY_DEPTH = 1;
 
-        // well preference: reward deep, clean wells anywhere (no center bias)
-        int well = 0;
-        for (int c = 1; c < cols - 1; c++) {
-            int left = heights[c - 1], h = heights[c], right = heights[c + 1];
-            if (h < left && h < right) {
-                well += Math.max(0, Math.min(6, Math.min(left, right) - h));
-            }
-        }
+    /* Position key plus every other input the reply score depends on. */
+    private long replyKey(Board field, Tetromino next, int sweepCol) {
+        long extras = ((long) field.rows() << 40) | ((long) field.cols() << 32)
+                | ((long) REPLY_DEPTH << 16) | (sweepCol & 0xFFFF);
+        return field.hash() ^ Zobrist.type(next) ^ Zobrist.mix(extras) ^ evaluatorSalt();
+    }
 
-        // edge cliff penalty: tall edges next to low neighbors are awkward
-        int edgeCliff = 0;
-        edgeCliff += Math.max(0, heights[0]      - heights[1]);
-        edgeCliff += Math.max(0, heights[cols-1] - heights[cols-2]);
-
-        // row-depth weight (lower is better)
-        double depthWeight = Math.max(0.0, (double) landingRow / Math.max(1, totalRows - 1));
-
-        // Weights (close to your originals)
-        final double W_LINES        = 3.40;
-        final double W_TETRIS       = 2.00;
-        final double W_BOTTOM_FILL  = 0.45;
-        final double W_LOW_GAPS     = 0.12;
-        final double W_HEIGHT       = -0.36;
-        final double W_HOLES        = -0.82;
-        final double W_BUMPINESS    = -0.18;
-        final double W_WELL         = 0.05;
-        final double W_EDGE_CLIFF   = -0.10;
-
-        // Imminent-completion helpers (tiered)
-        final double W_HELP1        = 0.90;
-        final double W_HELP2        = 0.45;
-        final double W_HELP3        = 0.20;
-        final double W_DEPTH_BONUS  = 0.40;
-
-        double tetrisBonus = (linesCleared == 4) ? 1.0 : 0.0;
-        double bottomHelp = (bottomEmptyBefore > 0) ? (bottomFilledByThisPiece * W_BOTTOM_FILL) : 0.0;
-
-        return  W_LINES * linesCleared
-                + W_TETRIS * tetrisBonus
-                + bottomHelp
-                + W_LOW_GAPS * lowGapsScore
-                + W_HEIGHT * aggregateHeight
-                + W_HOLES  * holes
-                + W_BUMPINESS * bumpiness
-                + W_WELL * well
-                + W_EDGE_CLIFF * edgeCliff
-                + W_HELP1 * help1 + W_HELP2 * help2 + W_HELP3 * help3
-                + W_DEPTH_BONUS * depthWeight;
-    }
-
-    private int findDeepest(int[] h) {
-        int best = 0, bi = 0;
-        for (int i = 0; i < h.length; i++) if (h[i] > best) { best = h[i]; bi = i; }
-        return bi;
-    }
-
-    // ---------- Reachability (BFS over (row,col,rot) while falling; no kicks) ----------
-
-    private boolean pathExistsFromSpawn(int[][] field,
-                                        Tetromino tet,
-                                        int spawnCol,
-                                        int rows,
-                                        int cols,
-                                        int targetRot,
-                                        int targetCol) {
-
-        spawnCol = clamp(spawnCol, cols - 1);
-
-        boolean[][][] vis = new boolean[rows][cols][4];
-        Deque<StateNode> q = new ArrayDeque<>();
-
-        if (!canPlace(field, tet.shape(0), 0, spawnCol)) return false;
-
-        q.add(new StateNode(0, spawnCol, 0));
-        vis[0][spawnCol][0] = true;
-
-        while (!q.isEmpty()) {
-            StateNode s = q.removeFirst();
-
-            // gravity
-            if (s.row + 1 < rows && canPlace(field, tet.shape(s.rot), s.row + 1, s.col)) {
-                if (!vis[s.row + 1][s.col][s.rot]) {
-                    vis[s.row + 1][s.col][s.rot] = true;
-                    q.addLast(new StateNode(s.row + 1, s.col, s.rot));
-                }
-            } else {
-                // landing
-                if (s.col == targetCol && s.rot == (targetRot & 3)) return true;
-            }
+    private double searchReplies(Board baseField, Tetromino next, int sweepCol, AiMetrics metrics) {
+        int cols = baseField.cols();
+        int[] rots = rotationsToTry(next);
+        Board after = SCRATCH.get().ply2(baseField);
 
-            // rotations (no kicks)
-            tryVisit(field, tet, s.row, s.col, (s.rot + 1) & 3, vis, q);
-            tryVisit(field, tet, s.row, s.col, (s.rot + 3) & 3, vis, q);
-            tryVisit(field, tet, s.row, s.col, (s.rot + 2) & 3, vis, q);
+        double best = -Double.MAX_VALUE;
+        int explored = 0, CAP = 400;
+        int scored = 0;
 
-            // left/right
-            if (s.col - 1 >= 0 && canPlace(field, tet.shape(s.rot), s.row, s.col - 1) && !vis[s.row][s.col - 1][s.rot]) {
-                vis[s.row][s.col - 1][s.rot] = true;
-                q.addLast(new StateNode(s.row, s.col - 1, s.rot));
-            }
-            if (s.col + 1 < cols && canPlace(field, tet.shape(s.rot), s.row, s.col + 1) && !vis[s.row][s.col + 1][s.rot]) {
-                vis[s.row][s.col + 1][s.rot] = true;
-                q.addLast(new StateNode(s.row, s.col + 1, s.rot));
-            }
-        }
-        return false;
-    }
+        for (int rot : rots) {
+            ShapeMask shape = next.mask(rot);
+            if (shape.cellCount() == 0 || shape.maxCol() - shape.minCol() >= cols) continue;
 
-    private void tryVisit(int[][] field, Tetromino tet, int row, int col, int rot,
-                          boolean[][][] vis, Deque<StateNode> q) {
-        if (canPlace(field, tet.shape(rot), row, col) && !vis[row][col][rot]) {
-            vis[row][col][rot] = true;
-            q.addLast(new StateNode(row, col, rot));
-        }
-    }
+            for (int col = -shape.minCol(); col < cols - shape.maxCol(); col++) {
+                if (++explored > CAP) break;
 
-    private record StateNode(int row, int col, int rot) { }
+                if (!baseField.canPlace(shape, 0, col)) continue;
+                int row = baseField.landingRow(shape, 0, col);
 
-    // ---------- Field simulation & quick helpers ----------
+                after.copyFrom(baseField);
+                after.place(shape, row, col, 1);
+                int cleared = after.clearFullRows();
 
-    private int[][] snapshot(Board b, int rows, int cols) {
-        int[][] f = new int[rows][cols];
-        for (int r = 0; r < rows; r++)
-            for (int c = 0; c < cols; c++)
-                f[r][c] = b.get(r, c);
-        return f;
-    }
+                double s = placementScore(baseField, shape, row, after, cleared);
 
-    private int[][] deepCopy(int[][] src) {
-        int[][] out = new int[src.length][];
-        for (int i = 0; i < src.length; i++) out[i] = Arrays.copyOf(src[i], src[i].length);
-        return out;
-    }
+                // small bias toward continuing the sweep
+                s -= REPLY_SWEEP_PULL * Math.abs(col - sweepCol);
 
-    private boolean canPlace(int[][] field, int[][] shape, int row, int col) {
-        int rows = field.length, cols = field[0].length;
-        for (int r = 0; r < shape.length; r++) {
-            for (int c = 0; c < shape[r].length; c++) if (shape[r][c] != 0) {
-                int rr = row + r, cc = col + c;
-                if (rr < 0 || rr >= rows || cc < 0 || cc >= cols) return false;
-                if (field[rr][cc] != 0) return false;
+                if (s > best) best = s;
+                scored++;
             }
         }
-        return true;
+        if (metrics != null) metrics.evaluated.add(scored);
+        return (best == -Double.MAX_VALUE) ? -5.0 : best; // if no move, punish
     }
 
-    private void place(int[][] field, int[][] shape, int row, int col) {
-        for (int r = 0; r < shape.length; r++)
-            for (int c = 0; c < shape[r].length; c++)
-                if (shape[r][c] != 0) field[row + r][col + c] = 1;
-    }
+    // ---------- Heuristic ----------
 
-    private int clearFullLines(int[][] field) {
-        int rows = field.length, cols = field[0].length;
-        int write = rows - 1;
-        int cleared = 0;
-        for (int r = rows - 1; r >= 0; r--) {
-            boolean full = true;
-            for (int c = 0; c < cols; c++) if (field[r][c] == 0) { full = false; break; }
-            if (!full) {
-                if (write != r) field[write] = Arrays.copyOf(field[r], cols);
-                write--;
-            } else {
-                cleared++;
-            }
-        }
-        for (int r = write; r >= 0; r--) Arrays.fill(field[r], 0);
-        return cleared;
+    /** Swap the placement heuristic (takes effect for the next plan). */
+    public void setEvaluator(BoardEvaluator evaluator) {
+        this.evaluator = (evaluator != null) ? evaluator : LinearEvaluator.defaults();
     }
 
-    private int cellsPlacedOnRow(int[][] shape, int baseRow, int targetRow) {
-        int count = 0;
-        for (int r = 0; r < shape.length; r++) {
-            for (int c = 0; c < shape[r].length; c++) {
-                if (shape[r][c] != 0 && (baseRow + r) == targetRow) count++;
-            }
-        }
-        return count;
-    }
+    public BoardEvaluator evaluator() { return evaluator; }
 
-    private static final class RowStat { int empties; RowStat(int e){ empties = e; } }
+    /* Mixed into cache keys so evaluators sharing a cache never read each other's scores. */
+    long evaluatorSalt() {
+        return Zobrist.mix(0xE7A1L + evaluator.hashCode());
+    }
 
-    private RowStat[] rowStats(int[][] field) {
-        int rows = field.length, cols = field[0].length;
-        RowStat[] rs = new RowStat[rows];
-        for (int r = 0; r < rows; r++) {
-            int empties = 0;
-            for (int c = 0; c < cols; c++) if (field[r][c] == 0) empties++;
-            rs[r] = new RowStat(empties);
-        }
-        return rs;
-    }
-
-    private int cellsHelpingCriticalRows(int[][] shape, int baseRow,
-                                         RowStat[] rs, int criticalMaxEmpty) {
-        int count = 0;
-        for (int r = 0; r < shape.length; r++) {
-            int absR = baseRow + r;
-            if (absR < 0 || absR >= rs.length) continue;
-            if (rs[absR].empties > 0 && rs[absR].empties <= criticalMaxEmpty) {
-                for (int c = 0; c < shape[r].length; c++) {
-                    if (shape[r][c] != 0) count++;
-                }
-            }
-        }
-        return count;
+    /**
+     * One-ply score of dropping {@code shape} at {@code row} on {@code before},
+     * which produced {@code after} with {@code cleared} lines. Thread-safe.
+     */
+    double placementScore(Board before, ShapeMask shape, int row, Board after, int cleared) {
+        return evaluator.evaluate(before, shape, row, after, cleared);
     }
 
-    private boolean columnHealthy(int[][] field, int col) {
-        int rows = field.length;
+    // ---------- Field simulation & quick helpers ----------
+
+    private static boolean columnHealthy(Board field, int col) {
+        int rows = field.rows();
         int empties = 0;
         for (int r = rows - 1; r >= Math.max(0, rows - 6); r--) {
-            if (field[r][col] == 0) empties++;
+            if (field.empty(r, col)) empties++;
         }
         return empties <= 2; // tweakable threshold
     }
 
-    private int[] rotationsToTry(Tetromino t) {
-        if (t == null) return new int[]{0};
+    private static final int[] ROTS_1 = {0};
+    private static final int[] ROTS_2 = {0, 1};
+    private static final int[] ROTS_4 = {0, 1, 2, 3};
+
+    /** Distinct rotations worth trying (shared arrays: callers must not modify them). */
+    static int[] rotationsToTry(Tetromino t) {
+        if (t == null) return ROTS_1;
         return switch (t) {
-            case O -> new int[]{0};
-            case I, S, Z -> new int[]{0, 1};
-            default -> new int[]{0, 1, 2, 3}; // T, J, L
+            case O -> ROTS_1;
+            case I, S, Z -> ROTS_2;
+            default -> ROTS_4; // T, J, L
         };
     }
 
@@ -532,17 +672,7 @@ public final class AiController {
         double x = piece.x(); // may be pixel or cell units depending on your entity
         if (x > GameConfig.get().cols() + 0.5) x /= Math.max(1, tileSize); // pixel->cell if needed
         int col = (int)Math.round(x);
-        return clamp(col, GameConfig.get().cols() - 1);
+        // matrices are at most 4 wide, so a top-left against the left wall is at most 3 off the board
+        return Math.max(-3, Math.min(col, GameConfig.get().cols() - 1));
     }
-
-    private int columnHeight(int[][] f, int c) {
-        int rows = f.length;
-        for (int r = 0; r < rows; r++) {
-            if (f[r][c] != 0) return rows - r;
-        }
-        return 0;
-    }
-
-    private static int clamp(int v, int hi) { return (v < 0) ? 0 : Math.min(v, hi); }
-    private static int countZeros(int[] arr) { int z = 0; for (int v : arr) if (v == 0) z++; return z; }
 }
@@ -0,0 +1,84 @@
+package org.oosd.game;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-side AI instrumentation, filled in by {@link AiController}.
+ *
+ * Latencies: {@code plan} is the time to compute one plan on whichever thread
+ * ran it (planner, pool or game thread); {@code update} is the time each
+ * {@link AiController#update} call spends on the game thread.
+ *
+ * Counters, for first-ply candidates of the fixed planner:
+ *  - generated: (rotation, column) positions looked at
+ *  - pruned: blocked at spawn or not reachable from it
+ *  - capped: skipped because the exploration cap was hit
+ *  - evaluated: placements scored (first ply, replies and beam nodes)
+ *  - cache hits / misses: reply-score lookups in the transposition cache
+ *  - fallbacks: async plans that missed the deadline and were replaced inline
+ */
+public final class AiMetrics {
+
+    private final int side;
+    final LatencyHistogram plan = new LatencyHistogram();
+    final LatencyHistogram update = new LatencyHistogram();
+    final LongAdder generated = new LongAdder();
+    final LongAdder pruned = new LongAdder();
+    final LongAdder capped = new LongAdder();
+    final LongAdder evaluated = new LongAdder();
+    final LongAdder cacheHits = new LongAdder();
+    final LongAdder cacheMisses = new LongAdder();
+    final LongAdder fallbacks = new LongAdder();
+
+    public AiMetrics(int side) { this.side = side; }
+
+    public int side() { return side; }
+
+    public LatencyHistogram planLatency()   { return plan; }
+    public LatencyHistogram updateLatency() { return update; }
+
+    /** Point-in-time copy of every figure (latencies in nanoseconds). */
+    public record Snapshot(int side,
+                           long plans, long planP50, long planP90, long planP99, long planP999,
+                           long planMax, double planMean,
+                           long updates, long updateP99, long updateMax,
+                           long generated, long pruned, long capped, long evaluated,
+                           long cacheHits, long cacheMisses, long fallbacks) {
+
+        public static final String CSV_HEADER =
+                "side,plans,plan_p50_ns,plan_p90_ns,plan_p99_ns,plan_p999_ns,plan_max_ns,plan_mean_ns,"
+                + "updates,update_p99_ns,update_max_ns,generated,pruned,capped,evaluated,"
+                + "cache_hits,cache_misses,fallbacks";
+
+        public String toCsv() {
+            return side + "," + plans + "," + planP50 + "," + planP90 + "," + planP99 + "," + planP999 + ","
+                    + planMax + "," + Math.round(planMean) + "," + updates + "," + updateP99 + ","
+                    + updateMax + "," + generated + "," + pruned + "," + capped + "," + evaluated + ","
+                    + cacheHits + "," + cacheMisses + "," + fallbacks;
+        }
+
+        /** Cache hits / lookups, or 0 before the first lookup. */
+        public double cacheHitRate() {
+            long total = cacheHits + cacheMisses;
+            return (total == 0) ? 0.0 : (double) cacheHits / total;
+        }
+    }
+
+    public Snapshot snapshot() {
+        return new Snapshot(side,
+                plan.count(), plan.valueAtPercentile(50), plan.valueAtPercentile(90),
+                plan.valueAtPercentile(99), plan.valueAtPercentile(99.9), plan.max(), plan.mean(),
+                update.count(), update.valueAtPercentile(99), update.max(),
+                generated.sum(), pruned.sum(), capped.sum(), evaluated.sum(),
+                cacheHits.sum(), cacheMisses.sum(), fallbacks.sum());
+    }
+
+    /** Zero every histogram and counter. */
+    public void reset() {
+        plan.reset();
+        update.reset();
+        for (LongAdder a : new LongAdder[]{generated, pruned, capped, evaluated, cacheHits, cacheMisses, fallbacks}) {
+            a.reset();
+        }
+    }
+}
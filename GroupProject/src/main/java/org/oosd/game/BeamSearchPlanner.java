@@ -0,0 +1,315 @@
+package org.oosd.game;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.LongSupplier;
+
+/**
+ * Time-budgeted beam search with iterative deepening.
+ *
+ * Depth 1 looks at the current piece only; every iteration adds one ply:
+ *  - plies covered by known pieces (current + preview) keep the best {@code width}
+ *    boards of each ply (the beam)
+ *  - later plies average, over all seven pieces, the best of the top few replies
+ *    (the bag is shared by both sides, so its remaining contents are unknown)
+ * Ply k is weighted by discount^k ({@link AiController#LOOKAHEAD_DISCOUNT} by
+ * default, the classic planner's lookahead weight).
+ * The first placement also gets the classic planner's positional terms (travel,
+ * sweep pull, shallow edges; {@link AiController#withPositionTerms}) and a known
+ * reply its sweep pull, so at equal depth both planners rank moves the same way.
+ *
+ * Depth 1 always completes. Deeper iterations run until the budget is spent, and
+ * the plan from the last completed depth is returned; by default the budget is
+ * the only bound on depth (each expectation ply multiplies the work by about
+ * 7 x EXPECT_BRANCH, so the budget runs out long before depth gets silly). Placement scores come from
+ * {@link AiController#placementScore}; expected values are memoised in the
+ * controller's {@link TranspositionCache} when it has one. Beam boards are
+ * occupancy-only copies; the last ply is scored on a per-thread scratch board
+ * without allocating. Candidates, pruned placements, scored nodes and cache
+ * lookups are added to the side's {@link AiMetrics} when one is given.
+ * Thread-safe.
+ */
+final class BeamSearchPlanner {
+
+    /**
+     * Boards kept per known ply. Every board is expanded into ~34 placements on
+     * the next ply, so 8 keeps a two-piece preview to a few hundred nodes while
+     * still holding the second- and third-best first moves.
+     */
+    static final int DEFAULT_WIDTH = 8;
+
+    /**
+     * Replies per piece followed below an expectation ply: the best one alone
+     * over-rates boards that only suit one placement, and past three the extra
+     * replies almost never win but each multiplies the work of every deeper ply.
+     */
+    private static final int EXPECT_BRANCH = 3;
+    /** Score for a ply where the piece has nowhere to go. */
+    private static final double NO_MOVE = -5.0;
+    private static final Tetromino[] PIECES = Tetromino.values();
+
+    /** Plan of the deepest completed iteration, with search stats. */
+    record Result(AiController.Plan plan, int depth, long nodes) { }
+
+    private static final ThreadLocal<MoveGenerator> MOVES = ThreadLocal.withInitial(MoveGenerator::new);
+    private static final ThreadLocal<Board[]> SCRATCH = ThreadLocal.withInitial(() -> new Board[1]);
+
+    private final AiController heuristics;
+    private final int width;
+    private final double discount;
+    private final int maxDepth;
+    private final LongSupplier clock;
+
+    BeamSearchPlanner(AiController heuristics) {
+        this(heuristics, DEFAULT_WIDTH, AiController.LOOKAHEAD_DISCOUNT, Integer.MAX_VALUE, System::nanoTime);
+    }
+
+    /** @param maxDepth deepest iteration to run even with budget left (tests use it to stop a fake clock) */
+    BeamSearchPlanner(AiController heuristics, int width, double discount, int maxDepth, LongSupplier clock) {
+        this.heuristics = heuristics;
+        this.width = Math.max(1, width);
+        this.discount = discount;
+        this.maxDepth = Math.max(1, maxDepth);
+        this.clock = clock;
+    }
+
+    /** As below for a piece still at its spawn column, sweeping from there. */
+    Result plan(Board field, Tetromino current, List<Tetromino> preview, int spawnCol, long budgetNanos) {
+        return plan(field, current, preview, spawnCol, spawnCol, spawnCol, budgetNanos);
+    }
+
+    /**
+     * @param field    board to plan on (only read)
+     * @param current  piece to place now
+     * @param preview  known pieces after it, in order (may be empty)
+     * @param spawnCol configured spawn column; each piece starts there, moved left to fit
+     *                 as {@link GameEngine#spawnColumn} does, for reachability
+     * @param currentCol column the piece is at now (travel penalty)
+     * @param sweepCol column the side is sweeping toward
+     * @param budgetNanos time allowed for iterations beyond depth 1
+     * @return best plan, or null if the current piece cannot be placed at all
+     */
+    Result plan(Board field, Tetromino current, List<Tetromino> preview, int spawnCol,
+                int currentCol, int sweepCol, long budgetNanos) {
+        return plan(field, current, preview, spawnCol, currentCol, sweepCol, budgetNanos, null);
+    }
+
+    /** As above, adding the search's counters to {@code metrics} when it is not null. */
+    Result plan(Board field, Tetromino current, List<Tetromino> preview, int spawnCol,
+                int currentCol, int sweepCol, long budgetNanos, AiMetrics metrics) {
+        List<Tetromino> known = new ArrayList<>(1 + preview.size());
+        known.add(current);
+        known.addAll(preview);
+
+        Search search = new Search(spawnCol, currentCol, sweepCol, clock.getAsLong() + Math.max(0L, budgetNanos));
+        Result best = null;
+        for (int depth = 1; depth <= maxDepth; depth++) {
+            search.abortable = depth > 1;
+            Leaf leaf;
+            try {
+                leaf = search.run(field, known, depth);
+            } catch (OutOfTime e) {
+                break;
+            }
+            if (leaf == null) break; // no legal placement for the current piece
+            best = new Result(new AiController.Plan(leaf.col, leaf.rot & 3), depth, search.nodes);
+            if (clock.getAsLong() >= search.deadline) break;
+        }
+        if (metrics != null) search.addTo(metrics); // the abandoned iteration's work counts too
+        return best;
+    }
+
+    /* ---------------- search state (one per plan call) ---------------- */
+
+    private static final class OutOfTime extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        OutOfTime() { super(null, null, false, false); }
+    }
+
+    private static final OutOfTime OUT_OF_TIME = new OutOfTime();
+
+    /** Board in the beam plus the first move that led to it. */
+    private record Leaf(Board board, int rot, int col, double score) { }
+
+    /** One placement of a piece on a board. */
+    private record Child(Board after, int rot, int col, double score) { }
+
+    private final class Search {
+        final int spawnCol, currentCol, sweepCol;
+        final long deadline;
+        boolean abortable;
+        long nodes;
+        long generated, pruned, cacheHits, cacheMisses; // counted locally, added to AiMetrics once
+
+        Search(int spawnCol, int currentCol, int sweepCol, long deadline) {
+            this.spawnCol = spawnCol;
+            this.currentCol = currentCol;
+            this.sweepCol = sweepCol;
+            this.deadline = deadline;
+        }
+
+        void addTo(AiMetrics m) {
+            m.generated.add(generated);
+            m.pruned.add(pruned);
+            m.evaluated.add(nodes);
+            m.cacheHits.add(cacheHits);
+            m.cacheMisses.add(cacheMisses);
+        }
+
+        Leaf run(Board field, List<Tetromino> known, int depth) {
+            List<Leaf> beam = List.of(new Leaf(field, -1, -1, 0.0));
+            int beamPlies = Math.min(depth, known.size());
+            double weight = 1.0;
+
+            for (int ply = 0; ply < beamPlies; ply++) {
+                List<Leaf> next = new ArrayList<>();
+                for (Leaf leaf : beam) {
+                    List<Child> children = children(leaf.board(), known.get(ply));
+                    if (children.isEmpty()) {
+                        if (ply == 0) return null;
+                        next.add(new Leaf(leaf.board(), leaf.rot(), leaf.col(), leaf.score() + weight * NO_MOVE));
+                        continue;
+                    }
+                    for (Child c : children) {
+                        int rot = (ply == 0) ? c.rot() : leaf.rot();
+                        int col = (ply == 0) ? c.col() : leaf.col();
+                        double score = c.score();
+                        if (ply == 0) score = AiController.withPositionTerms(score, c.col(), c.after(), currentCol, sweepCol);
+                        else if (ply == 1) score -= AiController.REPLY_SWEEP_PULL * Math.abs(c.col() - sweepCol);
+                        next.add(new Leaf(c.after(), rot, col, leaf.score() + weight * score));
+                    }
+                }
+                next.sort(Comparator.comparingDouble(Leaf::score).reversed()); // stable: ties keep order
+                beam = (next.size() > width) ? next.subList(0, width) : next;
+                weight *= discount;
+            }
+
+            int expectPlies = depth - beamPlies;
+            Leaf best = null;
+            double bestValue = -Double.MAX_VALUE;
+            for (Leaf leaf : beam) {
+                double value = leaf.score();
+                if (expectPlies > 0) value += weight * expected(leaf.board(), expectPlies);
+                if (value > bestValue) {
+                    bestValue = value;
+                    best = leaf;
+                }
+            }
+            return best;
+        }
+
+        /* Undiscounted expected value of the next `plies` plies with unknown pieces. */
+        double expected(Board board, int plies) {
+            TranspositionCache cache = heuristics.cache();
+            long key = 0L;
+            if (cache != null) {
+                key = expectKey(board, plies);
+                double hit = cache.get(key);
+                if (!Double.isNaN(hit)) {
+                    cacheHits++;
+                    return hit;
+                }
+                cacheMisses++;
+            }
+
+            double sum = 0.0;
+            for (Tetromino p : PIECES) {
+                if (plies == 1) {           // leaf ply: best immediate score, nothing kept
+                    sum += bestImmediate(board, p);
+                    continue;
+                }
+                List<Child> children = children(board, p);
+                if (children.isEmpty()) {
+                    sum += NO_MOVE;
+                    continue;
+                }
+                children.sort(Comparator.comparingDouble(Child::score).reversed());
+                double best = -Double.MAX_VALUE;
+                int follow = Math.min(EXPECT_BRANCH, children.size());
+                for (int i = 0; i < follow; i++) {
+                    Child c = children.get(i);
+                    double v = c.score() + discount * expected(c.after(), plies - 1);
+                    if (v > best) best = v;
+                }
+                sum += best;
+            }
+            double value = sum / PIECES.length;
+            if (cache != null) cache.put(key, value);
+            return value;
+        }
+
+        /* Every reachable straight-drop placement of `t`, in (rot, col) order. */
+        List<Child> children(Board board, Tetromino t) {
+            checkTime();
+            MoveGenerator moves = MOVES.get();
+            moves.generate(board, t, 0, 0, GameEngine.spawnColumn(spawnCol, t, board.cols()));
+
+            List<Child> out = new ArrayList<>();
+            int cols = board.cols();
+            for (int rot : AiController.rotationsToTry(t)) {
+                ShapeMask shape = t.mask(rot);
+                if (shape.cellCount() == 0 || shape.maxCol() - shape.minCol() >= cols) continue;
+                for (int col = -shape.minCol(); col < cols - shape.maxCol(); col++) {
+                    generated++;
+                    if (!board.canPlace(shape, 0, col) || !moves.canLand(rot, col)) {
+                        pruned++;
+                        continue;
+                    }
+                    int row = board.landingRow(shape, 0, col);
+                    Board after = board.occupancyCopy();
+                    after.place(shape, row, col, 1);
+                    int cleared = after.clearFullRows();
+                    out.add(new Child(after, rot, col, heuristics.placementScore(board, shape, row, after, cleared)));
+                    nodes++;
+                }
+            }
+            return out;
+        }
+
+        /* Max placement score of `t` (or NO_MOVE), simulated on the scratch board. */
+        double bestImmediate(Board board, Tetromino t) {
+            checkTime();
+            MoveGenerator moves = MOVES.get();
+            moves.generate(board, t, 0, 0, GameEngine.spawnColumn(spawnCol, t, board.cols()));
+
+            Board[] holder = SCRATCH.get();
+            if (!board.sameSize(holder[0])) holder[0] = Board.occupancyOnly(board.rows(), board.cols());
+            Board after = holder[0];
+
+            double best = -Double.MAX_VALUE;
+            int cols = board.cols();
+            for (int rot : AiController.rotationsToTry(t)) {
+                ShapeMask shape = t.mask(rot);
+                if (shape.cellCount() == 0 || shape.maxCol() - shape.minCol() >= cols) continue;
+                for (int col = -shape.minCol(); col < cols - shape.maxCol(); col++) {
+                    generated++;
+                    if (!board.canPlace(shape, 0, col) || !moves.canLand(rot, col)) {
+                        pruned++;
+                        continue;
+                    }
+                    int row = board.landingRow(shape, 0, col);
+                    after.copyFrom(board);
+                    after.place(shape, row, col, 1);
+                    int cleared = after.clearFullRows();
+                    best = Math.max(best, heuristics.placementScore(board, shape, row, after, cleared));
+                    nodes++;
+                }
+            }
+            return (best == -Double.MAX_VALUE) ? NO_MOVE : best;
+        }
+
+        void checkTime() {
+            if (abortable && clock.getAsLong() >= deadline) throw OUT_OF_TIME;
+        }
+    }
+
+    /* Expected values depend on the position, remaining plies and board size. */
+    private long expectKey(Board board, int plies) {
+        long extras = ((long) board.rows() << 40) | ((long) board.cols() << 32)
+                | (0xBEAL << 16) | plies;
+        return board.hash() ^ Zobrist.mix(extras ^ Double.doubleToLongBits(discount))
+                ^ heuristics.evaluatorSalt();
+    }
+}
@@ -8,6 +8,7 @@ public class BlockEntity extends GameEntity {
         this.x = col;
         this.y = row;
         this.colorId = colorId;
+        capturePrevious();
     }
 
     @Override protected void process(double dt) {
@@ -2,11 +2,29 @@ package org.oosd.game;
 
 import org.oosd.core.GameConfig;
 
+import java.util.Arrays;
+
 /**
  * Configurable Tetris board/grid.
  * Cell values:
  *  - 0  = empty
  *  - >0 = filled, value corresponds to tetromino color/type ID
+ *
+ * Storage is split into two planes:
+ *  - an occupancy bitboard (one int mask per row, bit c = column c)
+ *  - a color plane that is only read for rendering
+ * Full-row checks are a single mask compare and clears are one compaction pass.
+ *
+ * Column heights, per-column fill counts and the total hole count are kept in
+ * step with every mutation so AI feature reads are O(1) instead of grid scans.
+ * A hole is an empty cell below the top filled cell of its column.
+ *
+ * A 64-bit Zobrist hash of the occupancy plane is updated on every cell
+ * change and row clear, giving each position a cheap identity.
+ *
+ * {@link #occupancyOnly} boards skip the color plane. The AI uses them as
+ * reusable scratch space: resetting one with {@link #copyFrom} copies only
+ * O(rows + cols) ints.
  */
 public class Board {
 
@@ -14,57 +32,251 @@ public class Board {
     public static final int DEFAULT_ROWS = 20;
     public static final int DEFAULT_COLS = 10;
 
+    /** Widest board a row mask can hold (one bit per column, sign bit unused). */
+    public static final int MAX_COLS = 31;
+
     private final int rows;
     private final int cols;
-    private final int[][] cells;
+    private final int fullMask;
+    private final int[] rowMasks;   // occupancy plane
+    private final int[][] colors;   // color plane (0 = empty); null on occupancy-only boards
+
+    // incrementally maintained features
+    private final int[] heights;    // rows - (top filled row), 0 for an empty column
+    private final int[] colFill;    // filled cells per column
+    private int aggregateHeight;
+    private int holes;
+    private long hash;              // Zobrist hash of the occupancy plane
 
     /** Use current GameConfig rows/cols. */
     public Board() {
         this(GameConfig.get().rows(), GameConfig.get().cols());
     }
 
-    /** Explicit size (useful for tests or future multiplayer boards). */
+    /**
+     * Explicit size (useful for tests or future multiplayer boards).
+     *
+     * @throws IllegalArgumentException if {@code cols} is over {@link #MAX_COLS}
+     */
     public Board(int rows, int cols) {
+        this(rows, cols, true);
+    }
+
+    private Board(int rows, int cols, boolean withColors) {
+        if (cols > MAX_COLS) throw new IllegalArgumentException("cols " + cols + " exceeds MAX_COLS " + MAX_COLS);
         this.rows = Math.max(1, rows);
         this.cols = Math.max(1, cols);
-        this.cells = new int[this.rows][this.cols];
+        this.fullMask = (1 << this.cols) - 1;
+        this.rowMasks = new int[this.rows];
+        this.colors = withColors ? new int[this.rows][this.cols] : null;
+        this.heights = new int[this.cols];
+        this.colFill = new int[this.cols];
+    }
+
+    /** Board without a color plane (get() reports 1 for filled cells); for simulation only. Same limits as the constructor. */
+    public static Board occupancyOnly(int rows, int cols) {
+        return new Board(rows, cols, false);
     }
 
+    public boolean hasColors() { return colors != null; }
+
     // --- dimensions ---
     public int rows() { return rows; }
     public int cols() { return cols; }
 
     // --- cell access ---
-    public int get(int r, int c) { return cells[r][c]; }
-    public void set(int r, int c, int v) { cells[r][c] = v; }
+    public int get(int r, int c) {
+        return (colors != null) ? colors[r][c] : (rowMasks[r] >>> c) & 1;
+    }
+
+    public void set(int r, int c, int v) {
+        if (colors != null) colors[r][c] = v;
+        int bit = 1 << c;
+        boolean was = (rowMasks[r] & bit) != 0;
+        if (was == (v != 0)) return; // recolor only, occupancy unchanged
+
+        hash ^= Zobrist.cell(r, c);
+        int oldHeight = heights[c];
+        int oldHoles = oldHeight - colFill[c];
+        if (v != 0) {
+            rowMasks[r] |= bit;
+            colFill[c]++;
+            if (rows - r > oldHeight) heights[c] = rows - r;
+        } else {
+            rowMasks[r] &= ~bit;
+            colFill[c]--;
+            if (rows - r == oldHeight) heights[c] = scanHeight(c, r + 1);
+        }
+        aggregateHeight += heights[c] - oldHeight;
+        holes += (heights[c] - colFill[c]) - oldHoles;
+    }
 
     public boolean inBounds(int r, int c) {
         return r >= 0 && r < rows && c >= 0 && c < cols;
     }
 
     public boolean empty(int r, int c) {
-        return inBounds(r, c) && cells[r][c] == 0;
+        return inBounds(r, c) && (rowMasks[r] & (1 << c)) == 0;
+    }
+
+    // --- bitboard access ---
+
+    /** Occupancy bits of a row (bit c set = column c filled). */
+    public int rowMask(int r) { return rowMasks[r]; }
+
+    /** Mask with one bit set for every column of this board. */
+    public int fullMask() { return fullMask; }
+
+    public boolean isRowFull(int r) { return rowMasks[r] == fullMask; }
+
+    // --- incremental features (O(1)) ---
+
+    /** Height of column c: rows minus the index of its top filled cell (0 if empty). */
+    public int columnHeight(int c) { return heights[c]; }
+
+    /** Filled cells in row r. */
+    public int rowFill(int r) { return Integer.bitCount(rowMasks[r]); }
+
+    /** Filled cells in column c. */
+    public int columnFill(int c) { return colFill[c]; }
+
+    /** Sum of all column heights. */
+    public int aggregateHeight() { return aggregateHeight; }
+
+    /** Empty cells that have a filled cell somewhere above them in the same column. */
+    public int holes() { return holes; }
+
+    /** Zobrist hash of the occupied cells (colors ignored). */
+    public long hash() { return hash; }
+
+    // --- piece collision (shifted row-mask ANDs) ---
+
+    /** True if the shape fits with its matrix top-left at (row, col): in bounds and not overlapping. */
+    public boolean canPlace(ShapeMask m, int row, int col) {
+        if (row + m.minRow() < 0 || row + m.maxRow() >= rows) return false;
+        if (col + m.minCol() < 0 || col + m.maxCol() >= cols) return false;
+        for (int i = m.minRow(); i <= m.maxRow(); i++) {
+            // bounding box check above guarantees no filled bit is shifted out
+            int bits = (col >= 0) ? (m.rowMask(i) << col) : (m.rowMask(i) >>> -col);
+            if ((rowMasks[row + i] & bits) != 0) return false;
+        }
+        return true;
     }
 
-    /** Detects & clears all full rows (bottom-up). @return number of cleared rows. */
+    public boolean canPlace(Tetromino t, int rot, int row, int col) {
+        return canPlace(t.mask(rot), row, col);
+    }
+
+    /** Drop straight down from (row, col); returns the last row where the shape still fits. */
+    public int landingRow(ShapeMask m, int row, int col) {
+        while (canPlace(m, row + 1, col)) row++;
+        return row;
+    }
+
+    /** Write the shape's cells with the given color (cells outside the board are skipped). */
+    public void place(ShapeMask m, int row, int col, int colorId) {
+        for (int i = 0; i < m.cellCount(); i++) {
+            int r = row + m.cellRow(i), c = col + m.cellCol(i);
+            if (inBounds(r, c)) set(r, c, colorId);
+        }
+    }
+
+    /** Independent copy (with a color plane only if this board has one). */
+    public Board copy() {
+        Board b = new Board(rows, cols, colors != null);
+        b.copyFrom(this);
+        return b;
+    }
+
+    /** Independent copy without the color plane. */
+    public Board occupancyCopy() {
+        Board b = occupancyOnly(rows, cols);
+        b.copyFrom(this);
+        return b;
+    }
+
+    /** True if {@code other} has the same dimensions (so copyFrom works both ways). */
+    public boolean sameSize(Board other) {
+        return other != null && other.rows == rows && other.cols == cols;
+    }
+
+    /**
+     * Overwrite this board with another board of the same size. Colors are copied when
+     * both boards have them; copying from an occupancy-only board colors filled cells 1.
+     */
+    public void copyFrom(Board src) {
+        System.arraycopy(src.rowMasks, 0, rowMasks, 0, rows);
+        if (colors != null) {
+            for (int r = 0; r < rows; r++) {
+                if (src.colors != null) {
+                    System.arraycopy(src.colors[r], 0, colors[r], 0, cols);
+                } else {
+                    for (int c = 0; c < cols; c++) colors[r][c] = (rowMasks[r] >>> c) & 1;
+                }
+            }
+        }
+        System.arraycopy(src.heights, 0, heights, 0, cols);
+        System.arraycopy(src.colFill, 0, colFill, 0, cols);
+        aggregateHeight = src.aggregateHeight;
+        holes = src.holes;
+        hash = src.hash;
+    }
+
+    /** Empty every cell. */
+    public void clear() {
+        Arrays.fill(rowMasks, 0);
+        if (colors != null) for (int[] row : colors) Arrays.fill(row, 0);
+        Arrays.fill(heights, 0);
+        Arrays.fill(colFill, 0);
+        aggregateHeight = 0;
+        holes = 0;
+        hash = 0L;
+    }
+
+    /** Detects & clears all full rows in one bottom-up compaction pass. @return number of cleared rows. */
     public int clearFullRows() {
-        int cleared = 0;
+        int write = rows - 1;
         for (int r = rows - 1; r >= 0; r--) {
-            boolean full = true;
-            for (int c = 0; c < cols; c++) {
-                if (cells[r][c] == 0) { full = false; break; }
+            int m = rowMasks[r];
+            if (m == fullMask) {                 // drop full row
+                hash ^= Zobrist.row(r, m);
+                continue;
             }
-            if (full) {
-                cleared++;
-                // shift rows down
-                for (int rr = r; rr > 0; rr--) {
-                    System.arraycopy(cells[rr - 1], 0, cells[rr], 0, cols);
-                }
-                // top row -> empty
-                for (int c = 0; c < cols; c++) cells[0][c] = 0;
-                r++; // re-check same index after shift
+            if (write != r) {
+                if (m != 0) hash ^= Zobrist.row(r, m) ^ Zobrist.row(write, m);
+                rowMasks[write] = m;
+                if (colors != null) System.arraycopy(colors[r], 0, colors[write], 0, cols);
             }
+            write--;
         }
+        int cleared = write + 1;
+        // rows above the compacted stack -> empty
+        for (int r = write; r >= 0; r--) {
+            rowMasks[r] = 0;
+            if (colors != null) Arrays.fill(colors[r], 0);
+        }
+        if (cleared > 0) refreshColumnsAfterClear(cleared);
         return cleared;
     }
+
+    /* Every column lost one cell per cleared row; tops only move down, so rescan from the old top. */
+    private void refreshColumnsAfterClear(int cleared) {
+        aggregateHeight = 0;
+        holes = 0;
+        for (int c = 0; c < cols; c++) {
+            colFill[c] -= cleared;
+            heights[c] = scanHeight(c, rows - heights[c]);
+            aggregateHeight += heights[c];
+            holes += heights[c] - colFill[c];
+        }
+    }
+
+    /* Height of column c looking for its top cell from row `from` downwards. */
+    private int scanHeight(int c, int from) {
+        int bit = 1 << c;
+        for (int r = Math.max(0, from); r < rows; r++) {
+            if ((rowMasks[r] & bit) != 0) return rows - r;
+        }
+        return 0;
+    }
 }
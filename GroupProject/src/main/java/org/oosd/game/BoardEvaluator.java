@@ -0,0 +1,47 @@
+package org.oosd.game;
+
+import org.oosd.core.AiWeightsStore;
+
+/**
+ * Scores one AI placement (higher is better).
+ *
+ * Implementations must be thread-safe: plans score candidates on several threads.
+ * {@link #fromConfig()} picks the evaluator and weights from
+ * {@code ~/.oosd-tetris/ai-weights.json}, so weight sets can be swapped without
+ * recompiling.
+ */
+public interface BoardEvaluator {
+
+    /**
+     * @param before  board before the piece was placed
+     * @param shape   placed rotation
+     * @param row     landing row of the shape's matrix
+     * @param after   board after placement and line clears
+     * @param cleared rows cleared by this placement
+     */
+    double evaluate(Board before, ShapeMask shape, int row, Board after, int cleared);
+
+    /**
+     * Evaluator named in the weights file: "linear" (or no file) gives a
+     * {@link LinearEvaluator}; any other value is a class name implementing this
+     * interface with a public constructor taking {@code Map<String, Double>} or none.
+     * Falls back to the built-in weights if the file cannot be used.
+     */
+    static BoardEvaluator fromConfig() {
+        AiWeightsStore.Weights w = AiWeightsStore.load();
+        if (w == null || w.evaluator() == null || w.evaluator().equals(LinearEvaluator.NAME)) {
+            return (w == null) ? LinearEvaluator.defaults() : LinearEvaluator.fromNamed(w.values());
+        }
+        try {
+            Class<?> type = Class.forName(w.evaluator());
+            try {
+                return (BoardEvaluator) type.getConstructor(java.util.Map.class).newInstance(w.values());
+            } catch (NoSuchMethodException e) {
+                return (BoardEvaluator) type.getConstructor().newInstance();
+            }
+        } catch (ReflectiveOperationException | ClassCastException e) {
+            e.printStackTrace();
+            return LinearEvaluator.defaults();
+        }
+    }
+}
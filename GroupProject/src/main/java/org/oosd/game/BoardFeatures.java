@@ -0,0 +1,108 @@
+package org.oosd.game;
+
+/**
+ * Feature vector of one placement, extracted in a single pass.
+ *
+ * Column features come from Board's incremental heights (one sliding-window
+ * loop), low gaps from one bottom-up sweep over the row masks that stops once
+ * every column has been seen, and help tiers from the piece's own rows.
+ * Index constants name the slots; {@link #NAMES} are the keys used in weight files.
+ */
+public final class BoardFeatures {
+    private BoardFeatures() {}
+
+    public static final int LINES       = 0;  // rows cleared by this placement
+    public static final int TETRIS      = 1;  // 1 if four rows were cleared
+    public static final int BOTTOM_FILL = 2;  // piece cells on the bottom row (if it had gaps)
+    public static final int LOW_GAPS    = 3;  // reward for short empty runs at column bottoms
+    public static final int HEIGHT      = 4;  // aggregate column height
+    public static final int HOLES       = 5;  // covered empty cells
+    public static final int BUMPINESS   = 6;  // sum of neighbour height differences
+    public static final int WELL        = 7;  // depth of clean wells (capped at 6 each)
+    public static final int EDGE_CLIFF  = 8;  // edge columns towering over their neighbour
+    public static final int HELP1       = 9;  // piece cells in rows that had 1 empty
+    public static final int HELP2       = 10; // ... rows with <= 2 empties (only if no HELP1)
+    public static final int HELP3       = 11; // ... rows with <= 3 empties (only if neither)
+    public static final int DEPTH       = 12; // landing row / (rows - 1)
+
+    public static final int COUNT = 13;
+
+    public static final String[] NAMES = {
+            "lines", "tetris", "bottomFill", "lowGaps", "height", "holes", "bumpiness",
+            "well", "edgeCliff", "help1", "help2", "help3", "depth"
+    };
+
+    /** Index of a feature name, or -1. */
+    public static int indexOf(String name) {
+        for (int i = 0; i < COUNT; i++) if (NAMES[i].equals(name)) return i;
+        return -1;
+    }
+
+    /**
+     * Fill {@code out[0..COUNT)} for {@code shape} dropped at {@code row} on
+     * {@code before}, which produced {@code after} with {@code cleared} rows.
+     */
+    public static void extract(Board before, ShapeMask shape, int row, Board after, int cleared, double[] out) {
+        int rows = before.rows();
+
+        out[LINES] = cleared;
+        out[TETRIS] = (cleared == 4) ? 1 : 0;
+
+        // piece rows vs. the pre-placement board: bottom fill and help tiers
+        int bottomEmpty = before.cols() - before.rowFill(rows - 1);
+        out[BOTTOM_FILL] = (bottomEmpty > 0) ? shape.cellsInRow(rows - 1 - row) : 0;
+        int c1 = 0, c2 = 0, c3 = 0;
+        for (int i = shape.minRow(); i <= shape.maxRow(); i++) {
+            int r = row + i;
+            if (r < 0 || r >= rows) continue;
+            int empties = before.cols() - before.rowFill(r);
+            if (empties <= 0 || empties > 3) continue;
+            int cells = shape.cellsInRow(i);
+            c3 += cells;
+            if (empties <= 2) c2 += cells;
+            if (empties == 1) c1 += cells;
+        }
+        out[HELP1] = c1;
+        out[HELP2] = (c1 == 0) ? c2 : 0;
+        out[HELP3] = (c1 == 0 && c2 == 0) ? c3 : 0;
+        out[DEPTH] = Math.max(0.0, (double) row / Math.max(1, rows - 1));
+
+        // maintained incrementally by Board
+        out[HEIGHT] = after.aggregateHeight();
+        out[HOLES] = after.holes();
+
+        // one pass over column heights: bumpiness, wells, edge cliffs
+        int cols = after.cols();
+        int bumpiness = 0, well = 0;
+        int left = 0, mid = after.columnHeight(0);
+        for (int c = 1; c < cols; c++) {
+            int h = after.columnHeight(c);
+            bumpiness += Math.abs(mid - h);
+            if (c >= 2 && mid < left && mid < h) well += Math.max(0, Math.min(6, Math.min(left, h) - mid));
+            left = mid;
+            mid = h;
+        }
+        out[BUMPINESS] = bumpiness;
+        out[WELL] = well;
+        out[EDGE_CLIFF] = (cols < 2) ? 0
+                : Math.max(0, after.columnHeight(0) - after.columnHeight(1))
+                + Math.max(0, after.columnHeight(cols - 1) - after.columnHeight(cols - 2));
+
+        out[LOW_GAPS] = lowGaps(after);
+    }
+
+    /* Empty run at the bottom of each column, from one bit-parallel sweep up the rows. */
+    private static int lowGaps(Board b) {
+        int rows = b.rows();
+        int open = b.fullMask(); // columns whose lowest filled cell is not found yet
+        int score = 0;
+        for (int r = rows - 1; r >= 0 && open != 0; r--) {
+            int hit = b.rowMask(r) & open;
+            if (hit == 0) continue;
+            int empties = rows - 1 - r;
+            if (empties > 0) score += Integer.bitCount(hit) * Math.max(1, 4 - empties);
+            open &= ~hit;
+        }
+        return score + Integer.bitCount(open) * Math.max(1, 4 - rows); // empty columns
+    }
+}
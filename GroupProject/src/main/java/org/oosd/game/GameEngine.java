@@ -0,0 +1,271 @@
+package org.oosd.game;
+
+import org.oosd.core.GameConfig;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Headless, deterministic Tetris rules for one or two sides (no JavaFX).
+ *
+ * The engine owns its own clock: every {@link #step(int[], long)} advances it by
+ * the given number of nanoseconds, so simulations, benchmarks and servers can run
+ * faster than real time. Given the same PieceBag seed, inputs and step sizes, two
+ * engines produce identical games. Real-time views drive it at the fixed rate
+ * {@link #TICK_HZ} so gameplay timing does not depend on the display refresh rate.
+ *
+ * Per step and side: inputs -> AI -> gravity -> lock -> line clears/scoring -> spawn.
+ * Views observe changes through {@link Listener}.
+ */
+public final class GameEngine {
+
+    /** Player inputs for one step; combine with {@link #bit()}. */
+    public enum Input {
+        LEFT, RIGHT, ROTATE, SOFT_DROP;
+
+        public int bit() { return 1 << ordinal(); }
+        public boolean in(int inputs) { return (inputs & bit()) != 0; }
+    }
+
+    /** Callbacks fired synchronously from inside {@link #step(int[], long)} (or restart). */
+    public interface Listener {
+        default void onSpawn(Side side) { }
+        default void onLinesCleared(Side side, int cleared) { }
+        default void onGameOver(Side side) { }
+        default void onRotate(Side side) { }
+    }
+
+    /** Fixed simulation rate used by real-time drivers. */
+    public static final int  TICK_HZ    = 120;
+    public static final long TICK_NANOS = 1_000_000_000L / TICK_HZ;
+
+    /** Gravity is skipped for this long after a manual soft drop. */
+    private static final long MANUAL_DROP_COOLDOWN_NS = 100_000_000L; // ~100ms
+
+    /** Per-player game state. */
+    public static final class Side {
+        private final int id; // 1 or 2
+        private final Board board;
+
+        private ActivePieceEntity active;
+        private Tetromino nextPiece;
+        private boolean ai;
+        private boolean paused;
+        private boolean gameOver;
+        private int score;
+        private int lines;
+
+        // clocks (engine time)
+        private long runStartNanos;
+        private long lastGravityNs;
+        private long lastManualDropNs = Long.MIN_VALUE / 2;
+
+        private Side(int id, int rows, int cols) {
+            this.id = id;
+            this.board = new Board(rows, cols);
+        }
+
+        public int id()                     { return id; }
+        public Board board()                { return board; }
+        public ActivePieceEntity activePiece() { return active; }
+        public Tetromino nextPiece()        { return nextPiece; }
+        public boolean isAi()               { return ai; }
+        public boolean isPaused()           { return paused; }
+        public boolean isGameOver()         { return gameOver; }
+        public int score()                  { return score; }
+        public int lines()                  { return lines; }
+    }
+
+    private final List<Side> sides = new ArrayList<>(2);
+    private final PieceBag pieceBag;
+    private final AiController aiController;
+    private final int spawnCol;
+    private final int tileSize;
+    private final long gravityIntervalNs;
+
+    private Listener listener = new Listener() { };
+    private long clock = 0L;
+    private long clockDelta = 0L;  // size of the step in progress
+
+    /** Sizes, spawn column and gravity come from the current GameConfig. */
+    public GameEngine(int players, PieceBag pieceBag) {
+        this(players, pieceBag, new AiController());
+    }
+
+    public GameEngine(int players, PieceBag pieceBag, AiController aiController) {
+        GameConfig cfg = GameConfig.get();
+        this.pieceBag = pieceBag;
+        this.aiController = aiController;
+        this.spawnCol = cfg.spawnCol();
+        this.tileSize = cfg.tileSize();
+        double cps = Math.max(0.1, cfg.gravityCps());
+        this.gravityIntervalNs = (long) (1_000_000_000L / cps);
+
+        int n = (players == 2) ? 2 : 1;
+        for (int id = 1; id <= n; id++) sides.add(new Side(id, cfg.rows(), cfg.cols()));
+    }
+
+    /* ---------------- Setup ---------------- */
+
+    public void setListener(Listener listener) {
+        this.listener = (listener != null) ? listener : new Listener() { };
+    }
+
+    public void setAi(int sideId, boolean ai) { side(sideId).ai = ai; }
+
+    /** Deal the first preview piece and spawn for every side. */
+    public void start() {
+        for (Side s : sides) {
+            s.runStartNanos = clock;
+            s.lastGravityNs = clock;
+            s.nextPiece = pieceBag.next();
+            spawnActivePiece(s);
+        }
+    }
+
+    /* ---------------- Queries ---------------- */
+
+    public List<Side> sides() { return Collections.unmodifiableList(sides); }
+
+    public Side side(int sideId) { return sides.get(sideId - 1); }
+
+    /** Engine time in nanoseconds (sum of all step sizes). */
+    public long clock() { return clock; }
+
+    /** Time since the side's run started (keeps counting while paused). */
+    public long elapsedNanos(int sideId) { return clock - side(sideId).runStartNanos; }
+
+    /* ---------------- Commands ---------------- */
+
+    /** Flip pause for a side; ignored after game over. @return new paused state */
+    public boolean togglePause(int sideId) {
+        Side s = side(sideId);
+        if (!s.gameOver) s.paused = !s.paused;
+        return s.paused;
+    }
+
+    /** Clear the board and start a fresh run for one side. */
+    public void restart(int sideId) {
+        Side s = side(sideId);
+        s.board.clear();
+        s.active = null;
+        s.score = 0;
+        s.lines = 0;
+        s.paused = false;
+        s.gameOver = false;
+        s.runStartNanos = clock;
+        s.lastGravityNs = clock;
+        s.nextPiece = pieceBag.next();
+        spawnActivePiece(s);
+    }
+
+    /**
+     * Advance the simulation.
+     * @param inputs per-side input bits (index 0 = side 1); may be null or shorter than sides
+     * @param nanos  how far to advance the engine clock
+     */
+    public void step(int[] inputs, long nanos) {
+        clockDelta = Math.max(0L, nanos);
+        clock += clockDelta;
+        for (int i = 0; i < sides.size(); i++) {
+            int in = (inputs != null && i < inputs.length) ? inputs[i] : 0;
+            stepSide(sides.get(i), in);
+        }
+    }
+
+    /* ---------------- Rules ---------------- */
+
+    private void stepSide(Side s, int inputs) {
+        // interpolation start point (also while paused, so a frozen piece renders still)
+        if (s.active != null) s.active.capturePrevious();
+        if (s.paused || s.gameOver) return;
+
+        if (s.active != null && !s.ai) applyInputs(s, inputs);
+        if (s.active != null && s.ai) {
+            aiController.update(s.id, s.board, s.active, s.nextPiece, clock, tileSize);
+        }
+        enforceGravity(s);
+
+        if (s.active != null) {
+            s.active.step(clockDelta);
+            if (s.active.isDead()) s.active = null; // locked this step
+        }
+        if (s.active == null) {
+            scoreClearedRows(s);
+            spawnActivePiece(s);
+        }
+    }
+
+    private void applyInputs(Side s, int inputs) {
+        ActivePieceEntity piece = s.active;
+        if (Input.LEFT.in(inputs))  piece.tryLeft();
+        if (Input.RIGHT.in(inputs)) piece.tryRight();
+        if (Input.ROTATE.in(inputs)) {
+            piece.tryRotateCW();
+            listener.onRotate(s);
+        }
+        if (Input.SOFT_DROP.in(inputs)) {
+            piece.softDrop();              // manual drop: no lock
+            s.lastManualDropNs = clock;    // start cooldown for gravity
+        }
+    }
+
+    // Force a down step or lock at fixed intervals of engine time.
+    private void enforceGravity(Side s) {
+        if (s.active == null || s.active.isDead()) return;
+        if (clock - s.lastGravityNs < gravityIntervalNs) return;
+        // if the player manually soft-dropped very recently, skip this gravity tick
+        if (clock - s.lastManualDropNs < MANUAL_DROP_COOLDOWN_NS) return;
+
+        s.active.softDropOrLock();
+        s.lastGravityNs = clock;
+    }
+
+    private void scoreClearedRows(Side s) {
+        int cleared = s.board.clearFullRows();
+        if (cleared <= 0) return;
+        s.lines += cleared;
+        s.score += lineScore(cleared);
+        listener.onLinesCleared(s, cleared);
+    }
+
+    /** Points for clearing {@code cleared} rows with one piece (also used by {@link SelfPlay}). */
+    public static int lineScore(int cleared) {
+        return switch (cleared) {
+            case 0 -> 0;
+            case 1 -> 100;
+            case 2 -> 300;
+            case 3 -> 500;
+            case 4 -> 800;
+            default -> cleared * 100;
+        };
+    }
+
+    /** Column {@code t} spawns at: the configured one, moved left so its rotation-0 matrix fits. */
+    public static int spawnColumn(int spawnCol, Tetromino t, int cols) {
+        return Math.max(0, Math.min(spawnCol, cols - t.mask(0).size()));
+    }
+
+    private void spawnActivePiece(Side s) {
+        if (s.gameOver) return;
+        if (s.nextPiece == null) s.nextPiece = pieceBag.next();
+
+        Tetromino t = s.nextPiece;
+        int col = spawnColumn(spawnCol, t, s.board.cols());
+
+        if (!s.board.canPlace(t, 0, 0, col)) {
+            s.gameOver = true;
+            s.paused = true;
+            listener.onGameOver(s);
+            return;
+        }
+
+        s.active = new ActivePieceEntity(s.board, t, col);
+        s.nextPiece = pieceBag.next();
+        s.lastGravityNs = clock;
+        // start planning right away (async planners work while the piece appears)
+        if (s.ai) aiController.prepare(s.id, s.board, s.active, s.nextPiece, clock, tileSize);
+        listener.onSpawn(s);
+    }
+}
@@ -6,27 +6,40 @@ public abstract class GameEntity {
     protected double y;     // row    (fractional for smooth gravity)
     protected final EntityType type;
 
+    // position at the start of the current simulation step (for render interpolation)
+    private double prevX;
+    private double prevY;
+
     // lifecycle (seconds). life<0 => eternal
     protected double lifeSeconds = -1;
 
-    private long createdNanos = System.nanoTime();
-    private long lastNanos = createdNanos;
+    private long ageNanos = 0L;
     private boolean dead = false;
 
     protected GameEntity(EntityType type) {
         this.type = type;
     }
 
-    /** Called each frame. Time-based movement, independent of FPS. */
-    public final void tick(long nowNanos) {
-        double dt = (nowNanos - lastNanos) / 1_000_000_000.0;
-        lastNanos = nowNanos;
+    /**
+     * Called once per fixed simulation step (see GameEngine.TICK_NANOS).
+     * Age and movement advance by simulated time only, never by wall-clock deltas,
+     * so behaviour is identical at any display refresh rate.
+     */
+    public final void step(long dtNanos) {
+        if (dead) return;
+        ageNanos += dtNanos;
 
         if (lifeSeconds >= 0) {
-            double age = (nowNanos - createdNanos) / 1_000_000_000.0;
+            double age = ageNanos / 1_000_000_000.0;
             if (age >= lifeSeconds) { dead = true; return; }
         }
-        if (!dead) process(dt);
+        process(dtNanos / 1_000_000_000.0);
+    }
+
+    /** Remember the current position as the interpolation start; call before a step mutates it. */
+    public final void capturePrevious() {
+        prevX = x;
+        prevY = y;
     }
 
     /** Subclasses implement their behavior using delta time (seconds). */
@@ -37,5 +50,10 @@ public abstract class GameEntity {
 
     public double x() { return x; }
     public double y() { return y; }
+
+    /** Position blended between the previous and current step, alpha in [0, 1]. */
+    public double renderX(double alpha) { return prevX + (x - prevX) * alpha; }
+    public double renderY(double alpha) { return prevY + (y - prevY) * alpha; }
+
     public EntityType entityType() { return type; }
 }
@@ -0,0 +1,87 @@
+package org.oosd.game;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free latency histogram in nanoseconds, HDR style.
+ *
+ * Buckets are log-linear: every power of two is split into {@link #SUB_BUCKETS}
+ * equal parts, so any recorded value is reported within ~3% while the whole
+ * range (1 ns up to ~18 minutes) fits in about a thousand counters. Recording
+ * is one atomic increment plus two adders, safe from any thread; reads are
+ * approximate while writers are active.
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BITS = 5;
+    public static final int SUB_BUCKETS = 1 << SUB_BITS;   // per power of two
+    private static final int MAX_BIT = 40;                 // 2^40 ns ~ 18 min; larger values are clamped
+    private static final long MAX_VALUE = (1L << (MAX_BIT + 1)) - 1;
+    private static final int BUCKETS = (MAX_BIT - SUB_BITS + 2) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    /** Record one duration (negative values count as 0). */
+    public void record(long nanos) {
+        long v = Math.min(Math.max(0L, nanos), MAX_VALUE);
+        counts.incrementAndGet(index(v));
+        count.increment();
+        sum.add(v);
+        if (v > max.get()) max.accumulateAndGet(v, Math::max);
+    }
+
+    public long count() { return count.sum(); }
+    public long max()   { return max.get(); }
+
+    public double mean() {
+        long n = count();
+        return (n == 0) ? 0.0 : (double) sum.sum() / n;
+    }
+
+    /**
+     * Smallest bucket bound that at least {@code percentile}% of the values do
+     * not exceed (capped at the max seen), or 0 when empty.
+     */
+    public long valueAtPercentile(double percentile) {
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) total += counts.get(i);
+        if (total == 0) return 0L;
+
+        long rank = Math.max(1L, (long) Math.ceil(Math.min(100.0, Math.max(0.0, percentile)) / 100.0 * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) return Math.min(highestIn(i), max());
+        }
+        return max();
+    }
+
+    /** Forget everything recorded so far. */
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) counts.set(i, 0L);
+        count.reset();
+        sum.reset();
+        max.set(0L);
+    }
+
+    /* Values below SUB_BUCKETS map 1:1, then SUB_BUCKETS linear steps per power of two. */
+    static int index(long v) {
+        int msb = 63 - Long.numberOfLeadingZeros(v);
+        if (msb < SUB_BITS) return (int) v;
+        int shift = msb - SUB_BITS;
+        return ((shift + 1) << SUB_BITS) + (int) ((v >>> shift) & (SUB_BUCKETS - 1));
+    }
+
+    /* Largest value that maps to bucket i. */
+    static long highestIn(int i) {
+        if (i < SUB_BUCKETS) return i;
+        int shift = (i >>> SUB_BITS) - 1;
+        long low = (long) (SUB_BUCKETS + (i & (SUB_BUCKETS - 1))) << shift;
+        return low + (1L << shift) - 1;
+    }
+}
@@ -0,0 +1,94 @@
+package org.oosd.game;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Weighted sum of {@link BoardFeatures}.
+ * The default weights are the AI's original hand-tuned constants, so the default
+ * evaluator scores exactly as the old hard-coded heuristic did.
+ */
+public final class LinearEvaluator implements BoardEvaluator {
+
+    /** Evaluator name used in the weights file. */
+    public static final String NAME = "linear";
+
+    private static final double[] DEFAULT_WEIGHTS = new double[BoardFeatures.COUNT];
+    static {
+        DEFAULT_WEIGHTS[BoardFeatures.LINES]       = 3.40;
+        DEFAULT_WEIGHTS[BoardFeatures.TETRIS]      = 2.00;
+        DEFAULT_WEIGHTS[BoardFeatures.BOTTOM_FILL] = 0.45;
+        DEFAULT_WEIGHTS[BoardFeatures.LOW_GAPS]    = 0.12;
+        DEFAULT_WEIGHTS[BoardFeatures.HEIGHT]      = -0.36;
+        DEFAULT_WEIGHTS[BoardFeatures.HOLES]       = -0.82;
+        DEFAULT_WEIGHTS[BoardFeatures.BUMPINESS]   = -0.18;
+        DEFAULT_WEIGHTS[BoardFeatures.WELL]        = 0.05;
+        DEFAULT_WEIGHTS[BoardFeatures.EDGE_CLIFF]  = -0.10;
+        // imminent-completion helpers (tiered)
+        DEFAULT_WEIGHTS[BoardFeatures.HELP1]       = 0.90;
+        DEFAULT_WEIGHTS[BoardFeatures.HELP2]       = 0.45;
+        DEFAULT_WEIGHTS[BoardFeatures.HELP3]       = 0.20;
+        DEFAULT_WEIGHTS[BoardFeatures.DEPTH]       = 0.40;
+    }
+
+    private static final LinearEvaluator DEFAULT = new LinearEvaluator(DEFAULT_WEIGHTS);
+
+    // feature buffer per thread: scoring a candidate allocates nothing
+    private static final ThreadLocal<double[]> FEATURES =
+            ThreadLocal.withInitial(() -> new double[BoardFeatures.COUNT]);
+
+    private final double[] weights;
+
+    /** @param weights one weight per {@link BoardFeatures} index (copied) */
+    public LinearEvaluator(double[] weights) {
+        if (weights.length != BoardFeatures.COUNT) {
+            throw new IllegalArgumentException("expected " + BoardFeatures.COUNT + " weights, got " + weights.length);
+        }
+        this.weights = weights.clone();
+    }
+
+    public static LinearEvaluator defaults() { return DEFAULT; }
+
+    /** Weights by feature name; unknown names are ignored, missing ones keep their default. */
+    public static LinearEvaluator fromNamed(Map<String, Double> named) {
+        double[] w = DEFAULT_WEIGHTS.clone();
+        for (Map.Entry<String, Double> e : named.entrySet()) {
+            int i = BoardFeatures.indexOf(e.getKey());
+            if (i >= 0 && e.getValue() != null) w[i] = e.getValue();
+        }
+        return new LinearEvaluator(w);
+    }
+
+    /** Copy of the weight vector. */
+    public double[] weights() { return weights.clone(); }
+
+    /** Weights keyed by feature name, in index order. */
+    public Map<String, Double> toNamed() {
+        Map<String, Double> m = new LinkedHashMap<>();
+        for (int i = 0; i < BoardFeatures.COUNT; i++) m.put(BoardFeatures.NAMES[i], weights[i]);
+        return m;
+    }
+
+    @Override
+    public double evaluate(Board before, ShapeMask shape, int row, Board after, int cleared) {
+        double[] f = FEATURES.get();
+        BoardFeatures.extract(before, shape, row, after, cleared, f);
+        return score(f);
+    }
+
+    /** Dot product with a feature vector (index order, so results are reproducible). */
+    public double score(double[] features) {
+        double s = 0.0;
+        for (int i = 0; i < BoardFeatures.COUNT; i++) s += weights[i] * features[i];
+        return s;
+    }
+
+    @Override public boolean equals(Object o) {
+        return o instanceof LinearEvaluator other && Arrays.equals(weights, other.weights);
+    }
+
+    @Override public int hashCode() { return Arrays.hashCode(weights); }
+
+    @Override public String toString() { return NAME + toNamed(); }
+}
@@ -0,0 +1,190 @@
+package org.oosd.game;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Enumerates every lock position a piece can reach from spawn in one BFS.
+ *
+ * States are (row, col, rot), col being the matrix top-left as everywhere else,
+ * so it goes negative when a rotation's first matrix columns are empty (an O or
+ * a vertical I against the left wall). Nodes are indexed by the column of the
+ * leftmost filled cell instead, which is always on the board. Moves are the ones
+ * the AI reachability check always allowed: one row down, left, right and
+ * CW/CCW/180 rotation without kicks. A state lands when it cannot move down.
+ * Rotations with the same cells (every O rotation, I 0/2 and 1/3) are one lock
+ * position: only the first one reached is listed as a landing, though
+ * {@link #canLand} answers for every rotation. Parent pointers let callers
+ * rebuild the shortest input path to any landing.
+ *
+ * The visited/queue buffers are reused between calls (epoch-stamped, never
+ * cleared), so an instance is cheap to call repeatedly but not thread-safe.
+ */
+public final class MoveGenerator {
+
+    /** One input step on a path. */
+    public enum Move { DOWN, ROTATE_CW, ROTATE_CCW, ROTATE_180, LEFT, RIGHT }
+
+    /** A reachable lock position and the inputs that lead there from spawn. */
+    public record Landing(int rot, int row, int col, List<Move> path) { }
+
+    private static final Move[] MOVES = Move.values();
+
+    private int rows, cols;
+    private int[] stamp = new int[0];      // == epoch when visited
+    private int[] parent = new int[0];     // previous node index
+    private byte[] via = new byte[0];      // move ordinal that reached the node
+    private int[] queue = new int[0];
+    private int[] landings = new int[0];   // node indices of landing states
+    private int landingCount;
+    private int[] landedStamp = new int[0]; // per (rot, filled col): == epoch if some landing exists
+    private int[] cellStamp = new int[0];   // per (shape, filled row, filled col): == epoch once listed
+    private final int[] minCol = new int[4];  // leftmost filled matrix column per rotation
+    private final int[] minRow = new int[4];
+    private final int[] shapeId = new int[4]; // lowest rotation with the same cells, per rotation
+    private int epoch;
+    private int startNode = -1;
+
+    /**
+     * Flood-fill from the spawn state.
+     * @return number of distinct landings (0 if the spawn state itself is blocked)
+     */
+    public int generate(Board field, Tetromino t, int spawnRot, int spawnRow, int spawnCol) {
+        ensureCapacity(field.rows(), field.cols());
+        if (++epoch == 0) { // wrapped: reset stamps once
+            Arrays.fill(stamp, 0);
+            Arrays.fill(landedStamp, 0);
+            Arrays.fill(cellStamp, 0);
+            epoch = 1;
+        }
+        landingCount = 0;
+        startNode = -1;
+        for (int rot = 0; rot < 4; rot++) {
+            ShapeMask m = t.mask(rot);
+            minCol[rot] = m.minCol();
+            minRow[rot] = m.minRow();
+            shapeId[rot] = rot;
+            for (int other = 0; other < rot; other++) {
+                if (sameCells(t.mask(other), m)) { shapeId[rot] = other; break; }
+            }
+        }
+
+        int rot0 = spawnRot & 3;
+        if (spawnRow < 0 || spawnRow >= rows) return 0;
+        if (!field.canPlace(t.mask(rot0), spawnRow, spawnCol)) return 0; // also checks the columns
+
+        int head = 0, tail = 0;
+        startNode = node(spawnRow, spawnCol, rot0);
+        stamp[startNode] = epoch;
+        parent[startNode] = -1;
+        queue[tail++] = startNode;
+
+        while (head < tail) {
+            int n = queue[head++];
+            int rot = n & 3;
+            int cell = n >>> 2;
+            int row = cell / cols, col = cell % cols - minCol[rot];
+
+            // gravity, or land
+            if (row + 1 < rows && field.canPlace(t.mask(rot), row + 1, col)) {
+                tail = visit(n, row + 1, col, rot, Move.DOWN, tail);
+            } else {
+                landedStamp[rot * cols + col + minCol[rot]] = epoch;
+                int key = (((row + minRow[rot]) * cols + col + minCol[rot]) << 2) | shapeId[rot];
+                if (cellStamp[key] != epoch) { // first rotation to lock these cells
+                    cellStamp[key] = epoch;
+                    landings[landingCount++] = n;
+                }
+            }
+
+            // rotations (no kicks)
+            if (field.canPlace(t.mask(rot + 1), row, col)) tail = visit(n, row, col, (rot + 1) & 3, Move.ROTATE_CW, tail);
+            if (field.canPlace(t.mask(rot + 3), row, col)) tail = visit(n, row, col, (rot + 3) & 3, Move.ROTATE_CCW, tail);
+            if (field.canPlace(t.mask(rot + 2), row, col)) tail = visit(n, row, col, (rot + 2) & 3, Move.ROTATE_180, tail);
+
+            // left/right (canPlace keeps every filled cell on the board)
+            if (field.canPlace(t.mask(rot), row, col - 1)) tail = visit(n, row, col - 1, rot, Move.LEFT, tail);
+            if (field.canPlace(t.mask(rot), row, col + 1)) tail = visit(n, row, col + 1, rot, Move.RIGHT, tail);
+        }
+        return landingCount;
+    }
+
+    // --- results of the last generate() ---
+
+    public int landingCount()      { return landingCount; }
+    public int landingRot(int i)   { return landings[i] & 3; }
+    public int landingRow(int i)   { return (landings[i] >>> 2) / cols; }
+    /** Matrix top-left column of landing i (negative when the rotation's first columns are empty). */
+    public int landingCol(int i)   { return (landings[i] >>> 2) % cols - minCol[landings[i] & 3]; }
+
+    /** True if the piece can lock somewhere in this rotation and (matrix top-left) column. */
+    public boolean canLand(int rot, int col) {
+        int filled = col + minCol[rot & 3];
+        if (filled < 0 || filled >= cols) return false;
+        return landedStamp[(rot & 3) * cols + filled] == epoch;
+    }
+
+    /** Shortest input path from spawn to landing i. */
+    public List<Move> path(int i) {
+        List<Move> moves = new ArrayList<>();
+        for (int n = landings[i]; n != startNode; n = parent[n]) moves.add(MOVES[via[n]]);
+        Collections.reverse(moves);
+        return moves;
+    }
+
+    /** All landings with their paths (allocates; convenience for tools and tests). */
+    public List<Landing> landings() {
+        List<Landing> out = new ArrayList<>(landingCount);
+        for (int i = 0; i < landingCount; i++) {
+            out.add(new Landing(landingRot(i), landingRow(i), landingCol(i), path(i)));
+        }
+        return out;
+    }
+
+    /* ---------------- internals ---------------- */
+
+    private int node(int row, int col, int rot) {
+        return ((row * cols + col + minCol[rot]) << 2) | rot;
+    }
+
+    /* Same filled cells once both are moved to their bounding box's top-left. */
+    private static boolean sameCells(ShapeMask a, ShapeMask b) {
+        int height = a.maxRow() - a.minRow();
+        if (height != b.maxRow() - b.minRow()) return false;
+        for (int i = 0; i <= height; i++) {
+            if (a.rowMask(a.minRow() + i) >>> a.minCol() != b.rowMask(b.minRow() + i) >>> b.minCol()) return false;
+        }
+        return true;
+    }
+
+    private int visit(int from, int row, int col, int rot, Move move, int tail) {
+        int n = node(row, col, rot);
+        if (stamp[n] == epoch) return tail;
+        stamp[n] = epoch;
+        parent[n] = from;
+        via[n] = (byte) move.ordinal();
+        queue[tail] = n;
+        return tail + 1;
+    }
+
+    private void ensureCapacity(int rows, int cols) {
+        this.rows = rows;
+        this.cols = cols;
+        int nodes = rows * cols * 4;
+        if (stamp.length < nodes) {
+            stamp = new int[nodes];
+            parent = new int[nodes];
+            via = new byte[nodes];
+            queue = new int[nodes];
+            landings = new int[nodes];
+            cellStamp = new int[nodes];
+        }
+        if (landedStamp.length < cols * 4) {
+            landedStamp = new int[cols * 4];
+        }
+        // resized buffers start at stamp 0; stale stamps from a different
+        // geometry are harmless because epoch only grows
+    }
+}
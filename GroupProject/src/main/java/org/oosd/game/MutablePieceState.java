@@ -0,0 +1,47 @@
+package org.oosd.game;
+
+/**
+ * Reusable, mutable counterpart of {@link PieceState}.
+ * The active piece updates one instance in place so that movement
+ * (gravity ticks, key presses, AI nudges) never allocates.
+ * Use {@link #toRecord()} when an immutable snapshot is needed.
+ */
+public final class MutablePieceState {
+    private Tetromino type;
+    private int rot;
+    private int row;
+    private int col;
+
+    public MutablePieceState(Tetromino type, int rot, int row, int col) {
+        set(type, rot, row, col);
+    }
+
+    public Tetromino type() { return type; }
+    public int rot() { return rot; }
+    public int row() { return row; }
+    public int col() { return col; }
+
+    /** Collision mask for the current rotation. */
+    public ShapeMask mask() { return type.mask(rot); }
+
+    public void set(Tetromino type, int rot, int row, int col) {
+        this.type = type;
+        set(rot, row, col);
+    }
+
+    /** Commit a candidate position (same piece type). */
+    public void set(int rot, int row, int col) {
+        this.rot = rot;
+        this.row = row;
+        this.col = col;
+    }
+
+    /** Same value as {@link PieceState#hash()} for the current placement. */
+    public long hash() {
+        return Zobrist.piece(type, rot, row, col);
+    }
+
+    public PieceState toRecord() {
+        return new PieceState(type, rot, row, col);
+    }
+}
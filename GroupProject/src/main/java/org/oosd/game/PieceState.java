@@ -6,4 +6,10 @@ package org.oosd.game;
  * - Its rotation
  * - Its position (row and column)
  */
-public record PieceState(Tetromino type, int rot, int row, int col) { }
+public record PieceState(Tetromino type, int rot, int row, int col) {
+
+    /** Zobrist hash of this placement; combine with Board.hash() for a full position key. */
+    public long hash() {
+        return Zobrist.piece(type, rot, row, col);
+    }
+}
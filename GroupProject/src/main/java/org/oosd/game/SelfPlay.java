@@ -0,0 +1,59 @@
+package org.oosd.game;
+
+import org.oosd.core.GameConfig;
+
+/**
+ * Headless AI game for tuning and benchmarks.
+ *
+ * Same rules as a live AI side, minus the real-time part: each piece spawns
+ * like {@link GameEngine} spawns it, the controller plans it, and it is dropped
+ * straight onto its planned landing; the sweep column moves on at the lock,
+ * before rows clear, as it does in play. Board size and spawn column come from
+ * the current GameConfig. Games are deterministic per seed; run as many as you
+ * like in parallel (one board per call, planners are thread-safe).
+ *
+ * Plans always come from the fixed-depth planner
+ * ({@link AiController#planBestPlacement}), whatever the controller's search
+ * budget: a time-budgeted beam search depends on machine speed, which would
+ * make games irreproducible. Live sides with a think time plan with the beam
+ * search, which scores placements with the same evaluator.
+ */
+public final class SelfPlay {
+    private SelfPlay() {}
+
+    /** Outcome of one game. {@code toppedOut} is false if the piece cap ended it. */
+    public record Result(int pieces, int lines, int score, boolean toppedOut) { }
+
+    /**
+     * Play one game with {@code ai} on pieces from {@code new PieceBag(seed)}.
+     *
+     * @param maxPieces stop after this many pieces even if the stack is healthy
+     */
+    public static Result play(AiController ai, long seed, int maxPieces) {
+        GameConfig cfg = GameConfig.get();
+        Board board = Board.occupancyOnly(cfg.rows(), cfg.cols());
+        PieceBag bag = new PieceBag(seed);
+        AiController.State sweep = new AiController.State();
+
+        Tetromino next = bag.next();
+        int pieces = 0, lines = 0, score = 0;
+        while (pieces < maxPieces) {
+            Tetromino t = next;
+            next = bag.next();
+            int col = GameEngine.spawnColumn(cfg.spawnCol(), t, board.cols());
+            if (!board.canPlace(t, 0, 0, col)) return new Result(pieces, lines, score, true);
+
+            AiController.Plan plan = ai.planBestPlacement(board, t, col, next, sweep.sweepCol);
+            ShapeMask shape = t.mask(plan.targetRot());
+            if (!board.canPlace(shape, 0, plan.targetCol())) return new Result(pieces, lines, score, true);
+            board.place(shape, board.landingRow(shape, 0, plan.targetCol()), plan.targetCol(), 1);
+            pieces++;
+            sweep.afterLock(board); // the live AI moves its sweep on at the lock, before rows clear
+
+            int cleared = board.clearFullRows();
+            lines += cleared;
+            score += GameEngine.lineScore(cleared);
+        }
+        return new Result(pieces, lines, score, false);
+    }
+}
@@ -0,0 +1,90 @@
+package org.oosd.game;
+
+import java.util.Arrays;
+
+/**
+ * Precomputed bit-mask view of one tetromino rotation.
+ * Built once per (piece, rotation) from the shape matrix in {@link Tetromino}.
+ *
+ * Coordinates are relative to the top-left of the shape matrix:
+ *  - row mask i has bit c set when matrix cell [i][c] is filled
+ *  - the bounding box covers only filled cells (matrices have empty padding)
+ *  - colBottom/colTop give the lowest/highest filled row per matrix column (-1 if none)
+ */
+public final class ShapeMask {
+
+    private final int size;        // matrix width (== height for our shapes)
+    private final int[] rowMasks;
+    private final int minRow, maxRow, minCol, maxCol;
+    private final int[] colBottom;
+    private final int[] colTop;
+    private final int[] cellRows;
+    private final int[] cellCols;
+
+    private ShapeMask(int[][] m) {
+        this.size = (m.length == 0) ? 0 : m[0].length;
+        this.rowMasks = new int[m.length];
+        this.colBottom = new int[size];
+        this.colTop = new int[size];
+        Arrays.fill(colBottom, -1);
+        Arrays.fill(colTop, -1);
+
+        int count = 0;
+        for (int[] row : m) for (int v : row) if (v != 0) count++;
+        this.cellRows = new int[count];
+        this.cellCols = new int[count];
+
+        int rMin = Integer.MAX_VALUE, rMax = -1, cMin = Integer.MAX_VALUE, cMax = -1;
+        int i = 0;
+        for (int r = 0; r < m.length; r++) {
+            for (int c = 0; c < m[r].length; c++) {
+                if (m[r][c] == 0) continue;
+                rowMasks[r] |= (1 << c);
+                cellRows[i] = r;
+                cellCols[i] = c;
+                i++;
+                rMin = Math.min(rMin, r); rMax = Math.max(rMax, r);
+                cMin = Math.min(cMin, c); cMax = Math.max(cMax, c);
+                if (colTop[c] < 0) colTop[c] = r;
+                colBottom[c] = r;
+            }
+        }
+        this.minRow = (rMax < 0) ? 0 : rMin;
+        this.maxRow = rMax;
+        this.minCol = (cMax < 0) ? 0 : cMin;
+        this.maxCol = cMax;
+    }
+
+    /** Build the mask table entry for one shape matrix. */
+    static ShapeMask of(int[][] matrix) {
+        return new ShapeMask(matrix);
+    }
+
+    /** Width of the source matrix (what the AI iterates columns against). */
+    public int size() { return size; }
+
+    /** Occupancy bits of matrix row i (0 for padding rows). */
+    public int rowMask(int i) { return rowMasks[i]; }
+    public int rowCount() { return rowMasks.length; }
+
+    // --- bounding box of filled cells (matrix coordinates, inclusive) ---
+    public int minRow() { return minRow; }
+    public int maxRow() { return maxRow; }
+    public int minCol() { return minCol; }
+    public int maxCol() { return maxCol; }
+
+    /** Lowest filled row offset in matrix column c, or -1 if the column is empty. */
+    public int colBottom(int c) { return colBottom[c]; }
+    /** Highest filled row offset in matrix column c, or -1 if the column is empty. */
+    public int colTop(int c) { return colTop[c]; }
+
+    // --- cell list ---
+    public int cellCount() { return cellRows.length; }
+    public int cellRow(int i) { return cellRows[i]; }
+    public int cellCol(int i) { return cellCols[i]; }
+
+    /** Number of filled cells in matrix row i. */
+    public int cellsInRow(int i) {
+        return (i < 0 || i >= rowMasks.length) ? 0 : Integer.bitCount(rowMasks[i]);
+    }
+}
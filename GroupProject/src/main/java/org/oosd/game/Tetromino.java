@@ -64,6 +64,9 @@ public enum Tetromino {
     // Array of all rotations for the tetromino
     private final int[][][] rotations;
 
+    // Precomputed bit-mask table, one entry per rotation
+    private final ShapeMask[] masks;
+
     // Color identifier (1–7) for rendering in the UI
     private final int colorId;
 
@@ -75,6 +78,8 @@ public enum Tetromino {
     Tetromino(int[][][] rotations, int colorId) {
         this.rotations = rotations;
         this.colorId = colorId;
+        this.masks = new ShapeMask[rotations.length];
+        for (int i = 0; i < rotations.length; i++) masks[i] = ShapeMask.of(rotations[i]);
     }
 
     /**
@@ -85,6 +90,14 @@ public enum Tetromino {
         return rotations[rot % rotations.length];
     }
 
+    /**
+     * Get the precomputed collision mask for a given rotation index.
+     * Rotation wraps around like {@link #shape(int)}.
+     */
+    public ShapeMask mask(int rot) {
+        return masks[rot % masks.length];
+    }
+
     /**
      * Get the number of rotation states this piece has.
      */
@@ -0,0 +1,128 @@
+package org.oosd.game;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded cache of AI evaluation scores keyed by a 64-bit position key
+ * (board Zobrist hash mixed with piece, depth and any other score inputs).
+ *
+ * Layout is set-associative: a key maps to one bucket of {@link #WAYS} slots held
+ * in flat primitive arrays (no boxing, no per-entry objects). When a bucket is
+ * full a per-bucket clock hand gives recently hit slots a second chance before
+ * evicting. Buckets are guarded by striped locks so parallel plan workers can
+ * share one cache.
+ */
+public final class TranspositionCache {
+
+    /** Slots per bucket. */
+    public static final int WAYS = 4;
+
+    private static final int STRIPES = 64;          // power of two
+    private static final byte USED = 1, REFERENCED = 2;
+
+    private final int bucketMask;
+    private final long[] keys;
+    private final double[] values;
+    private final byte[] flags;
+    private final byte[] hands;                     // clock hand per bucket
+    private final Object[] locks = new Object[STRIPES];
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /** @param capacity approximate number of entries (rounded up to a power of two) */
+    public TranspositionCache(int capacity) {
+        int want = Math.max(1, (capacity + WAYS - 1) / WAYS);
+        int buckets = Integer.highestOneBit(want);
+        if (buckets < want) buckets <<= 1;
+        this.bucketMask = buckets - 1;
+        this.keys = new long[buckets * WAYS];
+        this.values = new double[buckets * WAYS];
+        this.flags = new byte[buckets * WAYS];
+        this.hands = new byte[buckets];
+        for (int i = 0; i < STRIPES; i++) locks[i] = new Object();
+    }
+
+    /** Stored score for the key, or NaN if absent. */
+    public double get(long key) {
+        int bucket = bucket(key);
+        int base = bucket * WAYS;
+        synchronized (locks[bucket & (STRIPES - 1)]) {
+            for (int i = base; i < base + WAYS; i++) {
+                if ((flags[i] & USED) != 0 && keys[i] == key) {
+                    flags[i] |= REFERENCED;
+                    hits.increment();
+                    return values[i];
+                }
+            }
+        }
+        misses.increment();
+        return Double.NaN;
+    }
+
+    /** Insert or overwrite the score for a key. */
+    public void put(long key, double value) {
+        int bucket = bucket(key);
+        int base = bucket * WAYS;
+        synchronized (locks[bucket & (STRIPES - 1)]) {
+            int free = -1;
+            for (int i = base; i < base + WAYS; i++) {
+                if ((flags[i] & USED) == 0) {
+                    if (free < 0) free = i;
+                } else if (keys[i] == key) {
+                    values[i] = value;
+                    return;
+                }
+            }
+            if (free < 0) {
+                free = victim(bucket, base);
+                evictions.increment();
+            }
+            keys[free] = key;
+            values[free] = value;
+            flags[free] = USED;
+        }
+    }
+
+    /** Drop every entry (counters are kept). */
+    public void clear() {
+        for (int s = 0; s < STRIPES; s++) {
+            synchronized (locks[s]) {
+                for (int b = s; b <= bucketMask; b += STRIPES) {
+                    for (int i = b * WAYS; i < (b + 1) * WAYS; i++) flags[i] = 0;
+                }
+            }
+        }
+    }
+
+    public int capacity()  { return keys.length; }
+    public long hits()     { return hits.sum(); }
+    public long misses()   { return misses.sum(); }
+    public long evictions() { return evictions.sum(); }
+
+    /** Hits / lookups, or 0 before the first lookup. */
+    public double hitRate() {
+        long h = hits(), total = h + misses();
+        return (total == 0) ? 0.0 : (double) h / total;
+    }
+
+    /* Second chance: clear reference bits until an unreferenced slot comes round. */
+    private int victim(int bucket, int base) {
+        int hand = hands[bucket];
+        while (true) {
+            int i = base + hand;
+            hand = (hand + 1) & (WAYS - 1);
+            if ((flags[i] & REFERENCED) != 0) {
+                flags[i] &= ~REFERENCED;
+            } else {
+                hands[bucket] = (byte) hand;
+                return i;
+            }
+        }
+    }
+
+    private int bucket(long key) {
+        return (int) (Zobrist.mix(key) & bucketMask);
+    }
+}
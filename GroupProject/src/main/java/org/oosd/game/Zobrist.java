@@ -0,0 +1,87 @@
+package org.oosd.game;
+
+import java.util.SplittableRandom;
+
+/**
+ * Fixed 64-bit Zobrist keys for board cells and piece placements.
+ *
+ * Keys come from a constant seed, so hashes are stable across runs and
+ * processes (replays, client/server checks). Board hashes cover occupancy
+ * only; colors are render data and do not change a position.
+ */
+public final class Zobrist {
+    private Zobrist() {}
+
+    private static final long SEED = 0x7E7215_0A5DL;
+
+    // table extents; anything outside falls back to a mixed key
+    private static final int MAX_ROWS = 64;
+    private static final int MAX_COLS = Board.MAX_COLS + 1;
+    private static final int OFFSET = 8;            // piece row/col may be slightly negative
+    private static final int PIECE_ROWS = MAX_ROWS + OFFSET;
+    private static final int PIECE_COLS = MAX_COLS + OFFSET;
+
+    private static final long[] CELL = new long[MAX_ROWS * MAX_COLS];
+    private static final long[] TYPE_ROT = new long[Tetromino.values().length * 4];
+    private static final long[] PIECE_ROW = new long[PIECE_ROWS];
+    private static final long[] PIECE_COL = new long[PIECE_COLS];
+
+    static {
+        SplittableRandom rng = new SplittableRandom(SEED);
+        for (int i = 0; i < CELL.length; i++) CELL[i] = rng.nextLong();
+        for (int i = 0; i < TYPE_ROT.length; i++) TYPE_ROT[i] = rng.nextLong();
+        for (int i = 0; i < PIECE_ROW.length; i++) PIECE_ROW[i] = rng.nextLong();
+        for (int i = 0; i < PIECE_COL.length; i++) PIECE_COL[i] = rng.nextLong();
+    }
+
+    /** Key for an occupied cell. */
+    public static long cell(int r, int c) {
+        if (r >= 0 && r < MAX_ROWS && c >= 0 && c < MAX_COLS) return CELL[r * MAX_COLS + c];
+        return mix(SEED ^ ((long) r << 32) ^ (c & 0xFFFFFFFFL));
+    }
+
+    /** XOR of the cell keys for every set bit of a row mask. */
+    public static long row(int r, int mask) {
+        long h = 0L;
+        while (mask != 0) {
+            int c = Integer.numberOfTrailingZeros(mask);
+            h ^= cell(r, c);
+            mask &= mask - 1;
+        }
+        return h;
+    }
+
+    /** Key for a piece type alone (e.g. "which piece is next"). */
+    public static long type(Tetromino t) {
+        return TYPE_ROT[t.ordinal() * 4];
+    }
+
+    /** Key for a piece type, rotation and position. */
+    public static long piece(Tetromino t, int rot, int row, int col) {
+        return TYPE_ROT[t.ordinal() * 4 + (rot & 3)] ^ rowKey(row) ^ colKey(col);
+    }
+
+    /** Full hash of a board from scratch (reference for the incremental one). */
+    public static long of(Board b) {
+        long h = 0L;
+        for (int r = 0; r < b.rows(); r++) h ^= row(r, b.rowMask(r));
+        return h;
+    }
+
+    private static long rowKey(int row) {
+        int i = row + OFFSET;
+        return (i >= 0 && i < PIECE_ROWS) ? PIECE_ROW[i] : mix(SEED + 31L * row);
+    }
+
+    private static long colKey(int col) {
+        int i = col + OFFSET;
+        return (i >= 0 && i < PIECE_COLS) ? PIECE_COL[i] : mix(SEED + 131L * col);
+    }
+
+    /** splitmix64 finalizer. */
+    static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,362 @@
+package org.oosd.net;
+
+import org.oosd.game.Tetromino;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Compact binary payloads for {@link Frame}s (capability {@value #CAPABILITY}).
+ *
+ * PureGame:
+ *  - u16 width, u16 height, u16 rows, u16 cols of the cell grid
+ *  - u8 cell mode, then one bit per cell (row-major, MSB first) and the values
+ *    of the filled cells: none when they are all 1, else nibbles, bytes or ints
+ *  - current and next shape as piece tags: 0 = none, 1..28 = the exact matrix of
+ *    a {@link Tetromino} rotation (ordinal * 4 + rot + 1), {@code 0xFE} = such a
+ *    pattern filled with another value (int follows), {@code 0xFF} = raw matrix
+ * A 20x10 board with two pieces is 36 bytes instead of ~500 bytes of JSON.
+ * Decoding is lossless for any rectangular grid of up to {@value #MAX_CELLS}
+ * cells; sizes the payload cannot back are rejected before anything is allocated.
+ *
+ * OpMove: i32 opX, i32 opRotate.
+ *
+ * Batch request: u16 count, then per game i32 length + PureGame. Batch reply:
+ * u16 count, then per game u8 0 + OpMove, or u8 1 + u16 length + UTF-8 error.
+ */
+public final class BinaryCodec {
+    private BinaryCodec() {}
+
+    /** Name announced in the connection hello. */
+    public static final String CAPABILITY = "bin1";
+
+    /** Largest cell grid (and raw piece) a payload may declare. */
+    public static final int MAX_CELLS = 1 << 16;
+
+    private static final int CELLS_ONES = 0, CELLS_NIBBLES = 1, CELLS_BYTES = 2, CELLS_INTS = 3, CELLS_NULL = 4;
+    private static final int PIECE_NONE = 0, PIECE_VALUED = 0xFE, PIECE_RAW = 0xFF;
+    private static final Tetromino[] PIECES = Tetromino.values();
+
+    /* ---------------- PureGame ---------------- */
+
+    public static byte[] encodeGame(PureGame game) {
+        Out out = new Out(64);
+        out.u16(game.getWidth());
+        out.u16(game.getHeight());
+        writeCells(out, game.getCells());
+        writePiece(out, game.getCurrentShape());
+        writePiece(out, game.getNextShape());
+        return out.toByteArray();
+    }
+
+    public static PureGame decodeGame(byte[] bytes) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+        int width = in.readUnsignedShort();
+        int height = in.readUnsignedShort();
+        int[][] cells = readCells(in);
+        int[][] current = readPiece(in);
+        int[][] next = readPiece(in);
+        if (in.available() > 0) throw new IOException("trailing bytes in game payload");
+        return new PureGame(width, height, cells, current, next);
+    }
+
+    /* ---------------- OpMove ---------------- */
+
+    public static byte[] encodeMove(OpMove move) {
+        Out out = new Out(8);
+        out.i32(move.opX());
+        out.i32(move.opRotate());
+        return out.toByteArray();
+    }
+
+    public static OpMove decodeMove(byte[] bytes) throws IOException {
+        if (bytes.length != 8) throw new IOException("bad move payload (" + bytes.length + " bytes)");
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+        return new OpMove(in.readInt(), in.readInt());
+    }
+
+    /* ---------------- batches ---------------- */
+
+    /** One game's answer in a batch: a move, or the server's error for that game. */
+    public record BatchItem(OpMove move, String error) { }
+
+    public static byte[] encodeBatch(List<PureGame> games) {
+        Out out = new Out(64 * games.size());
+        out.u16(games.size());
+        for (PureGame g : games) {
+            byte[] body = encodeGame(g);
+            out.i32(body.length);
+            out.write(body, 0, body.length);
+        }
+        return out.toByteArray();
+    }
+
+    public static List<PureGame> decodeBatch(byte[] bytes) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+        int n = in.readUnsignedShort();
+        List<PureGame> games = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            int length = in.readInt();
+            if (length < 0 || length > in.available()) throw new IOException("bad game length " + length);
+            byte[] body = new byte[length];
+            in.readFully(body);
+            games.add(decodeGame(body));
+        }
+        if (in.available() > 0) throw new IOException("trailing bytes in batch payload");
+        return games;
+    }
+
+    public static byte[] encodeBatchReply(List<BatchItem> items) {
+        Out out = new Out(9 * items.size() + 2);
+        out.u16(items.size());
+        for (BatchItem item : items) {
+            if (item.error() == null) {
+                out.u8(0);
+                out.i32(item.move().opX());
+                out.i32(item.move().opRotate());
+            } else {
+                byte[] msg = item.error().getBytes(StandardCharsets.UTF_8);
+                int length = Math.min(msg.length, 0xFFFF);
+                out.u8(1);
+                out.u16(length);
+                out.write(msg, 0, length);
+            }
+        }
+        return out.toByteArray();
+    }
+
+    public static List<BatchItem> decodeBatchReply(byte[] bytes) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+        int n = in.readUnsignedShort();
+        List<BatchItem> items = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            int status = in.readUnsignedByte();
+            if (status == 0) {
+                items.add(new BatchItem(new OpMove(in.readInt(), in.readInt()), null));
+            } else if (status == 1) {
+                byte[] msg = new byte[in.readUnsignedShort()];
+                in.readFully(msg);
+                items.add(new BatchItem(null, new String(msg, StandardCharsets.UTF_8)));
+            } else {
+                throw new IOException("bad batch item status " + status);
+            }
+        }
+        if (in.available() > 0) throw new IOException("trailing bytes in batch reply");
+        return items;
+    }
+
+    /* ---------------- cells ---------------- */
+
+    private static void writeCells(Out out, int[][] cells) {
+        if (cells == null) {
+            out.u16(0);
+            out.u16(0);
+            out.u8(CELLS_NULL);
+            return;
+        }
+        int rows = cells.length;
+        int cols = (rows == 0) ? 0 : cells[0].length;
+        int mode = CELLS_ONES;
+        for (int[] row : cells) {
+            if (row.length != cols) throw new IllegalArgumentException("cells must be rectangular");
+            for (int v : row) {
+                if (v == 0 || v == 1) continue;
+                int need = (v > 0 && v <= 0xF) ? CELLS_NIBBLES : (v > 0 && v <= 0xFF) ? CELLS_BYTES : CELLS_INTS;
+                mode = Math.max(mode, need);
+            }
+        }
+        out.u16(rows);
+        out.u16(cols);
+        out.u8(mode);
+
+        // occupancy bits
+        int acc = 0, bits = 0;
+        for (int[] row : cells) {
+            for (int v : row) {
+                acc = (acc << 1) | (v != 0 ? 1 : 0);
+                if (++bits == 8) { out.u8(acc); acc = 0; bits = 0; }
+            }
+        }
+        if (bits > 0) out.u8(acc << (8 - bits));
+
+        // values of filled cells
+        if (mode == CELLS_ONES) return;
+        int pending = -1; // high nibble waiting for its partner
+        for (int[] row : cells) {
+            for (int v : row) {
+                if (v == 0) continue;
+                switch (mode) {
+                    case CELLS_NIBBLES -> {
+                        if (pending < 0) pending = v;
+                        else { out.u8((pending << 4) | v); pending = -1; }
+                    }
+                    case CELLS_BYTES -> out.u8(v);
+                    default -> out.i32(v);
+                }
+            }
+        }
+        if (pending >= 0) out.u8(pending << 4);
+    }
+
+    private static int[][] readCells(DataInputStream in) throws IOException {
+        int rows = in.readUnsignedShort();
+        int cols = in.readUnsignedShort();
+        int mode = in.readUnsignedByte();
+        if (mode == CELLS_NULL) return null;
+        if (mode > CELLS_INTS) throw new IOException("bad cell mode " + mode);
+        long count = (long) rows * cols;
+        if (count > MAX_CELLS || count > (long) in.available() * 8) {
+            throw new IOException("bad cell grid " + rows + "x" + cols + " for " + in.available() + " bytes");
+        }
+
+        int[][] cells = new int[rows][cols];
+        int filled = 0;
+        int acc = 0, bits = 0;
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < cols; c++) {
+                if (bits == 0) { acc = in.readUnsignedByte(); bits = 8; }
+                bits--;
+                if (((acc >>> bits) & 1) != 0) { cells[r][c] = 1; filled++; }
+            }
+        }
+        if (mode == CELLS_ONES) return cells;
+
+        int nibble = -1;
+        for (int[] row : cells) {
+            for (int c = 0; c < cols; c++) {
+                if (row[c] == 0) continue;
+                row[c] = switch (mode) {
+                    case CELLS_NIBBLES -> {
+                        if (nibble < 0) {
+                            int b = in.readUnsignedByte();
+                            nibble = b & 0xF;
+                            yield b >>> 4;
+                        }
+                        int v = nibble;
+                        nibble = -1;
+                        yield v;
+                    }
+                    case CELLS_BYTES -> in.readUnsignedByte();
+                    default -> in.readInt();
+                };
+            }
+        }
+        return cells;
+    }
+
+    /* ---------------- pieces ---------------- */
+
+    static void writePiece(Out out, int[][] shape) {
+        if (shape == null) {
+            out.u8(PIECE_NONE);
+            return;
+        }
+        int value = uniformValue(shape);
+        if (value != 0) {
+            for (Tetromino t : PIECES) {
+                for (int rot = 0; rot < t.rotationCount(); rot++) {
+                    if (!samePattern(t.shape(rot), shape)) continue;
+                    if (value == 1) {
+                        out.u8(t.ordinal() * 4 + rot + 1);
+                    } else {
+                        out.u8(PIECE_VALUED);
+                        out.u8(t.ordinal() * 4 + rot + 1);
+                        out.i32(value);
+                    }
+                    return;
+                }
+            }
+        }
+        out.u8(PIECE_RAW);
+        out.u16(shape.length);
+        for (int[] row : shape) {
+            out.u16(row.length);
+            for (int v : row) out.i32(v);
+        }
+    }
+
+    static int[][] readPiece(DataInputStream in) throws IOException {
+        int tag = in.readUnsignedByte();
+        if (tag == PIECE_NONE) return null;
+        if (tag == PIECE_RAW) {
+            int rows = in.readUnsignedShort();
+            if (rows > MAX_CELLS || (long) rows * 2 > in.available()) throw new IOException("bad piece rows " + rows);
+            int[][] shape = new int[rows][];
+            for (int r = 0; r < rows; r++) {
+                int cols = in.readUnsignedShort();
+                if ((long) cols * 4 > in.available()) throw new IOException("bad piece row length " + cols);
+                shape[r] = new int[cols];
+                for (int c = 0; c < shape[r].length; c++) shape[r][c] = in.readInt();
+            }
+            return shape;
+        }
+        int value = 1;
+        if (tag == PIECE_VALUED) {
+            tag = in.readUnsignedByte();
+            value = in.readInt();
+        }
+        int id = tag - 1;
+        if (id < 0 || id / 4 >= PIECES.length) throw new IOException("bad piece tag " + tag);
+        int[][] shape = deepCopy(PIECES[id / 4].shape(id % 4));
+        if (value != 1) for (int[] row : shape) for (int c = 0; c < row.length; c++) if (row[c] != 0) row[c] = value;
+        return shape;
+    }
+
+    /** The single non-zero value used by every filled cell, or 0 if none or mixed. */
+    private static int uniformValue(int[][] shape) {
+        int value = 0;
+        for (int[] row : shape) {
+            for (int v : row) {
+                if (v == 0) continue;
+                if (value == 0) value = v;
+                else if (v != value) return 0;
+            }
+        }
+        return value;
+    }
+
+    private static boolean samePattern(int[][] pattern, int[][] shape) {
+        if (pattern.length != shape.length) return false;
+        for (int r = 0; r < shape.length; r++) {
+            if (pattern[r].length != shape[r].length) return false;
+            for (int c = 0; c < shape[r].length; c++) {
+                if ((pattern[r][c] != 0) != (shape[r][c] != 0)) return false;
+            }
+        }
+        return true;
+    }
+
+    private static int[][] deepCopy(int[][] m) {
+        int[][] copy = new int[m.length][];
+        for (int r = 0; r < m.length; r++) copy[r] = Arrays.copyOf(m[r], m[r].length);
+        return copy;
+    }
+
+    /** Byte sink without checked exceptions. */
+    static final class Out extends ByteArrayOutputStream {
+        Out(int size) { super(size); }
+
+        void u8(int v)  { write(v); }
+        void u16(int v) {
+            if (v < 0 || v > 0xFFFF) throw new IllegalArgumentException("value out of range: " + v);
+            write(v >>> 8);
+            write(v);
+        }
+        void i32(int v) {
+            write(v >>> 24);
+            write(v >>> 16);
+            write(v >>> 8);
+            write(v);
+        }
+        void i64(long v) {
+            i32((int) (v >>> 32));
+            i32((int) v);
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package org.oosd.net;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.*;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+
+/**
+ * One client socket speaking JSON lines or binary frames (after the hello).
+ * Writes and reads are separate so requests can be pipelined: JSON replies
+ * come back in request order, binary replies carry the request id.
+ * Not thread-safe; {@link TetrisClient} and {@link Pipeline} serialise access.
+ */
+final class ClientConnection {
+
+    /**
+     * A reply, or why it is not a move: a {@link ServerErrorException} when the
+     * server reported an error, another IOException when the reply was unreadable.
+     * requestId is -1 for JSON (match by order).
+     */
+    record Reply(int requestId, OpMove move, IOException error) { }
+
+    final Socket socket;
+    final boolean binary;
+    final boolean sessions; // server keeps MoveSession boards
+    final boolean batches;  // server takes BATCH_REQUEST frames
+    private final ObjectMapper mapper;
+    private final int readTimeoutMs;
+    private BufferedReader in;
+    private BufferedWriter out;
+    private DataInputStream frameIn;
+    private DataOutputStream frameOut;
+    private int nextRequestId = 1;
+
+    // pool bookkeeping (TetrisClient)
+    long lastUsedNs = System.nanoTime();
+    boolean reused = false;
+
+    /** @param caps capabilities the server accepted in the hello (empty = JSON) */
+    ClientConnection(Socket socket, Set<String> caps, ObjectMapper mapper, int readTimeoutMs) throws IOException {
+        this.socket = socket;
+        this.binary = caps.contains(BinaryCodec.CAPABILITY);
+        this.sessions = binary && caps.contains(MoveSession.CAPABILITY);
+        this.batches = binary && caps.contains(MoveBatcher.CAPABILITY);
+        this.mapper = mapper;
+        this.readTimeoutMs = readTimeoutMs;
+        if (binary) {
+            frameIn  = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            frameOut = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        } else {
+            in  = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+        }
+    }
+
+    /** Blocking round trip. */
+    OpMove request(PureGame game) throws IOException {
+        int id = nextRequestId++;
+        send(id, game);
+        Reply reply = receive();
+        if (binary && reply.requestId() != id) {
+            throw new IOException("reply " + reply.requestId() + " for request " + id);
+        }
+        if (reply.error() != null) throw reply.error();
+        return reply.move();
+    }
+
+    /** Blocking binary round trip of one frame; the reply must carry its id. */
+    Frame exchange(byte type, byte[] payload) throws IOException {
+        if (!binary) throw new IllegalStateException("not a binary connection");
+        int id = nextRequestId++;
+        new Frame(type, id, payload).write(frameOut);
+        frameOut.flush();
+        Frame reply = Frame.read(frameIn);
+        if (reply.requestId() != id) throw new IOException("reply " + reply.requestId() + " for request " + id);
+        return reply;
+    }
+
+    void send(int requestId, PureGame game) throws IOException {
+        if (binary) {
+            new Frame(Frame.MOVE_REQUEST, requestId, BinaryCodec.encodeGame(game)).write(frameOut);
+            frameOut.flush();
+        } else {
+            out.write(mapper.writeValueAsString(game));
+            out.write("\n");              // server reads one JSON line
+            out.flush();
+        }
+    }
+
+    /** Next reply; EOFException when the server hangs up. */
+    Reply receive() throws IOException {
+        if (!binary) {
+            String response = in.readLine();
+            if (response == null) throw new EOFException("Server closed the connection");
+            if (response.isEmpty()) return new Reply(-1, null, new IOException("Empty response from server"));
+            try {
+                JsonNode node = mapper.readTree(response);
+                JsonNode error = node.get("error");
+                if (error != null) return new Reply(-1, null, new ServerErrorException(error.asText()));
+                return new Reply(-1, mapper.treeToValue(node, OpMove.class), null);
+            } catch (JsonProcessingException e) {
+                return new Reply(-1, null, new IOException("bad reply: " + e.getOriginalMessage()));
+            }
+        }
+
+        Frame reply;
+        try {
+            reply = Frame.read(frameIn);
+        } catch (EOFException e) {
+            throw new EOFException("Server closed the connection");
+        }
+        return switch (reply.type()) {
+            case Frame.MOVE_REPLY -> new Reply(reply.requestId(), BinaryCodec.decodeMove(reply.payload()), null);
+            case Frame.ERROR -> new Reply(reply.requestId(), null, serverError(reply));
+            default -> throw new IOException("unexpected frame type " + reply.type());
+        };
+    }
+
+    /** The message of an ERROR frame. */
+    static ServerErrorException serverError(Frame reply) {
+        return new ServerErrorException(new String(reply.payload(), StandardCharsets.UTF_8));
+    }
+
+    /** 0 = block until a reply or EOF (pipelined readers enforce deadlines per request). */
+    void setReadTimeout(int millis) throws IOException {
+        socket.setSoTimeout(millis);
+    }
+
+    /* Recently used: trust it. Otherwise a 1 ms read must time out (EOF or stray bytes = dead). */
+    boolean healthy(long now, long idleProbeNs) {
+        if (socket.isClosed() || socket.isInputShutdown()) return false;
+        if (now - lastUsedNs < idleProbeNs) return true;
+        try {
+            if (binary ? frameIn.available() > 0 : in.ready()) return false;
+            socket.setSoTimeout(1);
+            try {
+                socket.getInputStream().read();
+                return false;           // EOF, or bytes nobody asked for
+            } catch (SocketTimeoutException quiet) {
+                return true;
+            } finally {
+                socket.setSoTimeout(readTimeoutMs);
+            }
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    void close() {
+        try {
+            socket.close();
+        } catch (IOException ignored) {
+            // already broken
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package org.oosd.net;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * One length-prefixed binary message:
+ * {@code int length | byte type | int requestId | payload}, big-endian,
+ * where length counts everything after itself.
+ *
+ * @param requestId chosen by the client and echoed in the reply
+ */
+public record Frame(byte type, int requestId, byte[] payload) {
+
+    /** PureGame in, OpMove back (see {@link BinaryCodec}). */
+    public static final byte MOVE_REQUEST = 1;
+    public static final byte MOVE_REPLY   = 2;
+    /** Payload is a UTF-8 message. */
+    public static final byte ERROR        = 3;
+    /** Session protocol (see {@link MoveSession}): full board, board delta, and "send the full board". */
+    public static final byte SESSION_SYNC  = 4;
+    public static final byte SESSION_DELTA = 5;
+    public static final byte RESYNC        = 6;
+    /** Many PureGames in, one OpMove or error per game back, in order (see {@link MoveBatcher}). */
+    public static final byte BATCH_REQUEST = 7;
+    public static final byte BATCH_REPLY   = 8;
+
+    private static final int HEADER = 1 + 4;
+    /** Larger frames are rejected as corrupt. */
+    public static final int MAX_LENGTH = 1 << 20;
+
+    public void write(DataOutputStream out) throws IOException {
+        out.writeInt(HEADER + payload.length);
+        out.writeByte(type);
+        out.writeInt(requestId);
+        out.write(payload);
+    }
+
+    /** Next frame, or EOFException if the stream ends before one starts. */
+    public static Frame read(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < HEADER || length > MAX_LENGTH) throw new IOException("bad frame length " + length);
+        byte type = in.readByte();
+        int requestId = in.readInt();
+        byte[] payload = new byte[length - HEADER];
+        in.readFully(payload);
+        return new Frame(type, requestId, payload);
+    }
+
+    /** Bytes this frame takes on the wire. */
+    public int wireSize() { return 4 + HEADER + payload.length; }
+}
@@ -0,0 +1,55 @@
+package org.oosd.net;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Optional first line of a connection: {@code OOSD-HELLO cap1 cap2...}.
+ *
+ * The client lists what it can speak, the server answers with the subset it
+ * accepts (possibly none), and both switch to it. A connection that starts with
+ * anything else is plain newline-delimited JSON. Lines are read byte by byte so
+ * nothing after the newline is buffered away from the next protocol.
+ */
+final class Hello {
+    private Hello() {}
+
+    static final String PREFIX = "OOSD-HELLO";
+    private static final int MAX_LINE = 256;
+
+    static String line(Collection<String> caps) {
+        return caps.isEmpty() ? PREFIX : PREFIX + " " + String.join(" ", caps);
+    }
+
+    /** Capabilities in a hello line, or null if the line is not a hello. */
+    static Set<String> parse(String line) {
+        if (line == null) return null;
+        String[] parts = line.trim().split("\\s+");
+        if (!parts[0].equals(PREFIX)) return null;
+        return new LinkedHashSet<>(Arrays.asList(parts).subList(1, parts.length));
+    }
+
+    static void write(OutputStream out, String line) throws IOException {
+        out.write((line + "\n").getBytes(StandardCharsets.UTF_8));
+        out.flush();
+    }
+
+    /** One line without its newline, or null at EOF. Unbuffered on purpose. */
+    static String readLine(InputStream in) throws IOException {
+        byte[] buf = new byte[MAX_LINE];
+        int n = 0;
+        while (true) {
+            int b = in.read();
+            if (b < 0) return (n == 0) ? null : new String(buf, 0, n, StandardCharsets.UTF_8);
+            if (b == '\n') return new String(buf, 0, n, StandardCharsets.UTF_8);
+            if (n == MAX_LINE) throw new IOException("hello line too long");
+            buf[n++] = (byte) b;
+        }
+    }
+}
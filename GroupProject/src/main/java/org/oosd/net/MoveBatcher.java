@@ -0,0 +1,179 @@
+package org.oosd.net;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Coalesces move requests from many boards into batch frames.
+ *
+ * The first request after a flush opens a window; everything submitted before it
+ * closes (or until {@code maxBatch} requests are waiting) goes out as one
+ * BATCH_REQUEST on a pooled connection, and the server plans the boards in
+ * parallel. Each flush runs on its own virtual thread, so batches overlap when
+ * the server is slower than the window. Servers that did not accept
+ * {@link #CAPABILITY} get the requests one by one on the same connection.
+ *
+ * A failed batch fails every request in it; an error the server reports for
+ * one board (in a batch reply, or to its own request on the fallback) fails
+ * only that board's future. close() sends what is pending and refuses more.
+ */
+public final class MoveBatcher implements Closeable {
+
+    /** Name announced in the connection hello (needs {@link BinaryCodec#CAPABILITY} too). */
+    public static final String CAPABILITY = "batch1";
+    public static final Duration DEFAULT_WINDOW = Duration.ofMillis(1);
+    public static final int DEFAULT_MAX_BATCH = 256;
+
+    private record Pending(PureGame game, CompletableFuture<OpMove> result) { }
+
+    private final TetrisClient client;
+    private final Duration window;
+    private final int maxBatch;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private List<Pending> pending = new ArrayList<>();  // guarded by lock
+    private long epoch = 0;                              // guarded by lock; bumped on every flush
+    private boolean closed = false;                      // guarded by lock
+
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder requests = new LongAdder();
+
+    MoveBatcher(TetrisClient client, Duration window, int maxBatch) {
+        this.client = client;
+        this.window = window;
+        this.maxBatch = Math.max(1, Math.min(maxBatch, 0xFFFF));
+    }
+
+    /** Queue {@code game} for the next batch. */
+    public CompletableFuture<OpMove> submit(PureGame game) {
+        MoveCache mc = client.moveCache();
+        if (mc != null) {
+            MoveCache.Key key = MoveCache.key(game);
+            OpMove hit = mc.get(key);
+            if (hit != null) return CompletableFuture.completedFuture(hit);
+            CompletableFuture<OpMove> result = enqueue(game);
+            result.thenAccept(move -> mc.put(key, move));
+            return result;
+        }
+        return enqueue(game);
+    }
+
+    private CompletableFuture<OpMove> enqueue(PureGame game) {
+        CompletableFuture<OpMove> result = new CompletableFuture<>();
+        List<Pending> full = null;
+        long armed = -1;
+        lock.lock();
+        try {
+            if (closed) {
+                result.completeExceptionally(new IOException("batcher closed"));
+                return result;
+            }
+            pending.add(new Pending(game, result));
+            if (pending.size() >= maxBatch) full = take();
+            else if (pending.size() == 1) armed = epoch;
+        } finally {
+            lock.unlock();
+        }
+        if (full != null) send(full);
+        else if (armed >= 0) startTimer(armed);
+        return result;
+    }
+
+    /** Batches sent so far. */
+    public long batchesSent() { return batches.sum(); }
+
+    /** Requests sent so far (in batches or one by one). */
+    public long requestsSent() { return requests.sum(); }
+
+    @Override
+    public void close() {
+        List<Pending> rest;
+        lock.lock();
+        try {
+            closed = true;
+            rest = take();
+        } finally {
+            lock.unlock();
+        }
+        if (!rest.isEmpty()) send(rest);
+    }
+
+    /* Flush when the window that {@code armed} opened closes, unless a full batch already went. */
+    private void startTimer(long armed) {
+        Thread.ofVirtual().name("move-batcher-window").start(() -> {
+            try {
+                Thread.sleep(window);
+            } catch (InterruptedException ignored) {
+                // flush early
+            }
+            List<Pending> due = null;
+            lock.lock();
+            try {
+                if (epoch == armed && !pending.isEmpty()) due = take();
+            } finally {
+                lock.unlock();
+            }
+            if (due != null) sendNow(due);
+        });
+    }
+
+    // caller holds lock
+    private List<Pending> take() {
+        List<Pending> out = pending;
+        pending = new ArrayList<>();
+        epoch++;
+        return out;
+    }
+
+    private void send(List<Pending> batch) {
+        Thread.ofVirtual().name("move-batcher-send").start(() -> sendNow(batch));
+    }
+
+    private void sendNow(List<Pending> batch) {
+        List<PureGame> games = new ArrayList<>(batch.size());
+        for (Pending p : batch) games.add(p.game());
+        List<BinaryCodec.BatchItem> items;
+        try {
+            items = client.call(c -> exchange(c, games));
+        } catch (IOException | RuntimeException e) {
+            for (Pending p : batch) p.result().completeExceptionally(e);
+            return;
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            BinaryCodec.BatchItem item = items.get(i);
+            if (item.error() == null) batch.get(i).result().complete(item.move());
+            else batch.get(i).result().completeExceptionally(new ServerErrorException(item.error()));
+        }
+    }
+
+    private List<BinaryCodec.BatchItem> exchange(ClientConnection c, List<PureGame> games) throws IOException {
+        List<BinaryCodec.BatchItem> items = new ArrayList<>(games.size());
+        if (!c.batches) {
+            for (PureGame g : games) {
+                try {
+                    items.add(new BinaryCodec.BatchItem(c.request(g), null));
+                } catch (ServerErrorException e) {
+                    items.add(new BinaryCodec.BatchItem(null, e.serverMessage())); // this board only
+                }
+            }
+            requests.add(games.size());
+            return items;
+        }
+        Frame reply = c.exchange(Frame.BATCH_REQUEST, BinaryCodec.encodeBatch(games));
+        if (reply.type() == Frame.ERROR) throw ClientConnection.serverError(reply);
+        if (reply.type() != Frame.BATCH_REPLY) throw new IOException("unexpected frame type " + reply.type());
+        items = BinaryCodec.decodeBatchReply(reply.payload());
+        if (items.size() != games.size()) {
+            throw new IOException(items.size() + " answers for " + games.size() + " boards");
+        }
+        batches.increment();
+        requests.add(games.size());
+        return items;
+    }
+}
@@ -0,0 +1,161 @@
+package org.oosd.net;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * In-process cache of server answers, for {@link TetrisClient#setMoveCache}.
+ *
+ * Keyed by a hash of the whole request: width, height, every cell value and the
+ * current and next shapes. Two independent 64-bit hashes are kept per entry,
+ * so a false hit needs a 128-bit collision. Entries are evicted least recently
+ * used first once {@code maxEntries} is reached, and expire {@code ttl} after
+ * they were stored (zero = never), so a changed server is picked up eventually.
+ * Thread-safe.
+ */
+public final class MoveCache {
+
+    /** Request identity: primary hash plus an independent check hash. */
+    public record Key(long hash, long check) { }
+
+    /** Counters since creation (or {@link #clear}). */
+    public record Stats(long hits, long misses, long evictions, long expirations, int size) {
+        public double hitRate() {
+            long n = hits + misses;
+            return (n == 0) ? 0.0 : (double) hits / n;
+        }
+    }
+
+    private record Entry(OpMove move, long storedNs) { }
+
+    private final int maxEntries;
+    private final long ttlNs;
+    private final LongSupplier clock;
+
+    // guarded by this; access order = least recently used first
+    private final LinkedHashMap<Key, Entry> entries;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+
+    /** @param ttl how long an answer stays valid, or {@link Duration#ZERO} for ever */
+    public MoveCache(int maxEntries, Duration ttl) {
+        this(maxEntries, ttl, System::nanoTime);
+    }
+
+    MoveCache(int maxEntries, Duration ttl, LongSupplier clock) {
+        this.maxEntries = Math.max(1, maxEntries);
+        this.ttlNs = ttl.toNanos();
+        this.clock = clock;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                if (size() <= MoveCache.this.maxEntries) return false;
+                evictions.increment();
+                return true;
+            }
+        };
+    }
+
+    /** Cached move for {@code key}, or null on a miss (expired entries are dropped). */
+    public OpMove get(Key key) {
+        synchronized (this) {
+            Entry e = entries.get(key);
+            if (e != null && !expired(e, clock.getAsLong())) {
+                hits.increment();
+                return e.move();
+            }
+            if (e != null) {
+                entries.remove(key);
+                expirations.increment();
+            }
+        }
+        misses.increment();
+        return null;
+    }
+
+    public synchronized void put(Key key, OpMove move) {
+        entries.put(key, new Entry(move, clock.getAsLong()));
+    }
+
+    /** Drop every expired entry now (they are otherwise dropped when looked up or evicted). */
+    public synchronized void purgeExpired() {
+        long now = clock.getAsLong();
+        for (Iterator<Entry> it = entries.values().iterator(); it.hasNext(); ) {
+            if (expired(it.next(), now)) {
+                it.remove();
+                expirations.increment();
+            }
+        }
+    }
+
+    public synchronized int size() { return entries.size(); }
+
+    public synchronized void clear() {
+        entries.clear();
+        hits.reset();
+        misses.reset();
+        evictions.reset();
+        expirations.reset();
+    }
+
+    public Stats stats() {
+        return new Stats(hits.sum(), misses.sum(), evictions.sum(), expirations.sum(), size());
+    }
+
+    private boolean expired(Entry e, long now) {
+        return ttlNs > 0 && now - e.storedNs() >= ttlNs;
+    }
+
+    /* ---------------- keys ---------------- */
+
+    /** Key of everything in {@code game} a server could base its answer on. */
+    public static Key key(PureGame game) {
+        Hasher h = new Hasher();
+        h.add(game.getWidth());
+        h.add(game.getHeight());
+        h.add(game.getCells());
+        h.add(game.getCurrentShape());
+        h.add(game.getNextShape());
+        return new Key(h.a, h.b);
+    }
+
+    /** Two differently seeded multiply-xorshift streams over the same ints. */
+    private static final class Hasher {
+        long a = 0x9E3779B97F4A7C15L, b = 0xC2B2AE3D27D4EB4FL;
+
+        void add(int v) {
+            a = mix(a ^ (v & 0xFFFFFFFFL), 0xBF58476D1CE4E5B9L);
+            b = mix(b + (v & 0xFFFFFFFFL), 0x94D049BB133111EBL);
+        }
+
+        void add(int[][] m) {
+            if (m == null) {
+                add(-1);
+                return;
+            }
+            add(m.length);
+            for (int[] row : m) {
+                if (row == null) {
+                    add(-1);
+                    continue;
+                }
+                add(row.length);
+                for (int v : row) add(v);
+            }
+        }
+
+        private static long mix(long x, long k) {
+            x *= k;
+            x ^= x >>> 31;
+            x *= 0xD6E8FEB86659FD93L;
+            return x ^ (x >>> 29);
+        }
+    }
+}
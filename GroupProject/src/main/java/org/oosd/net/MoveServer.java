@@ -0,0 +1,518 @@
+package org.oosd.net;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.oosd.game.AiController;
+import org.oosd.game.Board;
+import org.oosd.game.LatencyHistogram;
+import org.oosd.game.Tetromino;
+
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.IntStream;
+
+/**
+ * Local stand-in for the move server {@link TetrisClient} talks to.
+ *
+ * Speaks the same protocol: one JSON PureGame line in, one JSON OpMove line
+ * back, and also answers a {@link Hello} offering {@link BinaryCodec#CAPABILITY}
+ * with binary frames. Every connection gets its own virtual thread. JSON
+ * requests on a connection are answered in order; binary requests are planned
+ * concurrently (up to {@link #MAX_IN_FLIGHT} per connection) and answered as
+ * they finish, matched by request id. Binary planning runs on a fixed pool of
+ * long-lived threads, so the planners' per-thread scratch boards and move
+ * generators are reused across requests instead of rebuilt for each one.
+ *
+ * Moves come from {@link AiController#planSpawn}: opX is the target column of
+ * the piece's rotation matrix (its top-left, which may be negative), opRotate
+ * its rotation. Bad requests get {@code {"error":...}}
+ * (JSON) or an ERROR frame, so the connection stays usable.
+ *
+ * Binary connections may also use {@link MoveSession}s: the server keeps each
+ * session's board (up to {@link #MAX_SESSIONS}, least recently used dropped
+ * first) and applies deltas to it, answering RESYNC when it cannot.
+ *
+ * BATCH_REQUEST frames ({@link MoveBatcher}) carry many boards; they are planned
+ * in parallel on a ForkJoinPool (the common pool by default) and answered in
+ * one frame, with a move or an error per board. A batch is waited for on its
+ * own virtual thread, so large batches never hold up the planner threads.
+ *
+ * Counters ({@link #stats}) cover connections, requests (boards, so a batch
+ * counts each of its boards), errors and service latency per frame (request
+ * read to reply ready to send).
+ */
+public final class MoveServer implements Closeable {
+
+    public static final int DEFAULT_PORT = 3000;
+    /** Binary requests planned at once per connection; more wait in the socket. */
+    public static final int MAX_IN_FLIGHT = 64;
+    /** Threads planning binary requests, shared by every connection. */
+    public static final int PLANNER_THREADS = Runtime.getRuntime().availableProcessors();
+    /** Session boards kept; beyond this the least recently used is dropped. */
+    public static final int MAX_SESSIONS = 10_000;
+
+    private final int requestedPort;
+    private final AiController ai;
+    private final ForkJoinPool batchPool;
+    private final ObjectMapper mapper = new ObjectMapper();
+    private volatile boolean binaryEnabled = true;
+
+    private volatile ServerSocket server;
+    private volatile ExecutorService planners;
+    private final Set<Socket> open = ConcurrentHashMap.newKeySet();
+    private final Map<Long, SessionBoard> sessions = new LinkedHashMap<>(16, 0.75f, true) { // guarded by itself
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, SessionBoard> eldest) {
+            return size() > MAX_SESSIONS; // least recently used
+        }
+    };
+
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder resyncs = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private volatile long statsSinceNs = System.nanoTime();
+
+    /** Server on {@code port} (0 = any free port) with a serial planner. */
+    public MoveServer(int port) {
+        this(port, new AiController());
+    }
+
+    public MoveServer(int port, AiController ai) {
+        this(port, ai, ForkJoinPool.commonPool());
+    }
+
+    /** @param batchPool pool the boards of a batch are planned on */
+    public MoveServer(int port, AiController ai, ForkJoinPool batchPool) {
+        this.requestedPort = port;
+        this.ai = ai;
+        this.batchPool = batchPool;
+    }
+
+    /** Answer binary hellos (on by default); off = JSON only, like an older server. */
+    public void setBinaryEnabled(boolean enabled) { binaryEnabled = enabled; }
+
+    /** Bind and start accepting. Returns this for chaining. */
+    public synchronized MoveServer start() throws IOException {
+        if (server != null) throw new IllegalStateException("already started");
+        ServerSocket s = new ServerSocket();
+        s.setReuseAddress(true);
+        s.bind(new InetSocketAddress(requestedPort));
+        server = s;
+        planners = Executors.newFixedThreadPool(PLANNER_THREADS,
+                Thread.ofPlatform().name("move-server-planner-", 0).daemon().factory());
+        resetStats();
+        Thread.ofVirtual().name("move-server-accept").start(() -> acceptLoop(s));
+        return this;
+    }
+
+    /** Bound port (useful after asking for port 0), or -1 before start. */
+    public int port() {
+        ServerSocket s = server;
+        return (s == null) ? -1 : s.getLocalPort();
+    }
+
+    @Override
+    public void close() {
+        ServerSocket s = server;
+        if (s != null) {
+            try {
+                s.close();
+            } catch (IOException ignored) {
+                // closing anyway
+            }
+        }
+        for (Socket c : open) closeQuietly(c);
+        ExecutorService p = planners;
+        if (p != null) p.shutdownNow();
+    }
+
+    /* ---------------- counters ---------------- */
+
+    /**
+     * Counters since start or the last {@link #resetStats}.
+     *
+     * @param openConnections connections currently open (not reset)
+     * @param throughput      requests per second over the period
+     */
+    public record Stats(long connections, int openConnections, long requests, long errors,
+                        double throughput, long p50Ns, long p99Ns, long maxNs) {
+
+        @Override
+        public String toString() {
+            return String.format("conns=%d open=%d reqs=%d errors=%d rps=%.1f p50=%.2fms p99=%.2fms max=%.2fms",
+                    connections, openConnections, requests, errors, throughput,
+                    p50Ns / 1e6, p99Ns / 1e6, maxNs / 1e6);
+        }
+    }
+
+    public Stats stats() {
+        double seconds = Math.max(1e-9, (System.nanoTime() - statsSinceNs) / 1e9);
+        long n = requests.sum();
+        return new Stats(accepted.sum(), open.size(), n, errors.sum(), n / seconds,
+                latency.valueAtPercentile(50), latency.valueAtPercentile(99), latency.max());
+    }
+
+    /** Batch frames answered (their boards count as requests). */
+    public long batches() { return batches.sum(); }
+
+    /** Session deltas answered with RESYNC. */
+    public long resyncs() { return resyncs.sum(); }
+
+    /** Session boards currently kept. */
+    public int sessions() {
+        synchronized (sessions) { return sessions.size(); }
+    }
+
+    /** Forget every session board; their clients resync on their next request. */
+    public void clearSessions() {
+        synchronized (sessions) { sessions.clear(); }
+    }
+
+    /** Service latency of every answered request. Live; do not reset directly. */
+    public LatencyHistogram latency() { return latency; }
+
+    public void resetStats() {
+        accepted.reset();
+        requests.reset();
+        errors.reset();
+        resyncs.reset();
+        batches.reset();
+        latency.reset();
+        statsSinceNs = System.nanoTime();
+    }
+
+    /* ---------------- connections ---------------- */
+
+    private void acceptLoop(ServerSocket s) {
+        while (!s.isClosed()) {
+            Socket c;
+            try {
+                c = s.accept();
+            } catch (IOException e) {
+                if (!s.isClosed()) e.printStackTrace();
+                return;
+            }
+            accepted.increment();
+            open.add(c);
+            Thread.ofVirtual().name("move-server-conn").start(() -> serve(c));
+        }
+    }
+
+    private void serve(Socket socket) {
+        try (socket) {
+            socket.setTcpNoDelay(true);
+            BufferedInputStream in = new BufferedInputStream(socket.getInputStream());
+            OutputStream out = socket.getOutputStream();
+            if (startsWithHello(in)) {
+                Set<String> offered = Hello.parse(Hello.readLine(in));
+                if (offered == null) offered = Set.of();
+                Set<String> accepted = new LinkedHashSet<>();
+                if (binaryEnabled && offered.contains(BinaryCodec.CAPABILITY)) {
+                    accepted.add(BinaryCodec.CAPABILITY);
+                    if (offered.contains(MoveSession.CAPABILITY)) accepted.add(MoveSession.CAPABILITY);
+                    if (offered.contains(MoveBatcher.CAPABILITY)) accepted.add(MoveBatcher.CAPABILITY);
+                }
+                Hello.write(out, Hello.line(accepted));
+                if (!accepted.isEmpty()) {
+                    serveBinary(new DataInputStream(in), new DataOutputStream(new BufferedOutputStream(out)));
+                    return;
+                }
+            }
+            serveJson(in, out);
+        } catch (IOException ignored) {
+            // client went away or sent garbage framing: drop the connection
+        } finally {
+            open.remove(socket);
+        }
+    }
+
+    /* Peek without consuming: the first line is either a hello or the first JSON request. */
+    private static boolean startsWithHello(BufferedInputStream in) throws IOException {
+        byte[] prefix = Hello.PREFIX.getBytes(StandardCharsets.US_ASCII);
+        in.mark(prefix.length);
+        byte[] head = in.readNBytes(prefix.length);
+        in.reset();
+        return Arrays.equals(head, prefix);
+    }
+
+    private void serveJson(InputStream raw, OutputStream rawOut) throws IOException {
+        BufferedReader in = new BufferedReader(new InputStreamReader(raw, StandardCharsets.UTF_8));
+        BufferedWriter out = new BufferedWriter(new OutputStreamWriter(rawOut, StandardCharsets.UTF_8));
+        String line;
+        while ((line = in.readLine()) != null) {
+            if (line.isBlank()) continue;
+            long start = System.nanoTime();
+            String reply;
+            try {
+                reply = mapper.writeValueAsString(move(mapper.readValue(line, PureGame.class)));
+            } catch (IOException | RuntimeException e) {
+                errors.increment();
+                reply = mapper.writeValueAsString(Map.of("error", String.valueOf(e.getMessage())));
+            }
+            done(start);
+            out.write(reply);
+            out.write("\n");
+            out.flush();
+        }
+    }
+
+    private void serveBinary(DataInputStream in, DataOutputStream out) throws IOException {
+        Semaphore slots = new Semaphore(MAX_IN_FLIGHT);
+        ReentrantLock writeLock = new ReentrantLock(); // not a monitor: a slow reader must not pin carriers
+        while (true) {
+            Frame request;
+            try {
+                request = Frame.read(in);
+            } catch (EOFException e) {
+                return;
+            }
+            long start = System.nanoTime();
+            slots.acquireUninterruptibly();
+            Runnable task = () -> {
+                try {
+                    Frame reply = answer(request);
+                    done(start, boards(reply));
+                    writeLock.lock();
+                    try {
+                        reply.write(out);
+                        out.flush();
+                    } finally {
+                        writeLock.unlock();
+                    }
+                } catch (IOException e) {
+                    // connection closing; the reader notices too
+                } finally {
+                    slots.release();
+                }
+            };
+            try {
+                // a batch waits for the batch pool on a virtual thread, not on a planner single requests need
+                if (request.type() == Frame.BATCH_REQUEST) Thread.ofVirtual().name("move-server-batch").start(task);
+                else planners.execute(task);
+            } catch (RejectedExecutionException e) {
+                return; // server closing
+            }
+        }
+    }
+
+    private Frame answer(Frame request) {
+        try {
+            if (request.type() == Frame.BATCH_REQUEST) {
+                List<BinaryCodec.BatchItem> items = batch(BinaryCodec.decodeBatch(request.payload()));
+                return new Frame(Frame.BATCH_REPLY, request.requestId(), BinaryCodec.encodeBatchReply(items));
+            }
+            OpMove move = switch (request.type()) {
+                case Frame.MOVE_REQUEST -> move(BinaryCodec.decodeGame(request.payload()));
+                case Frame.SESSION_SYNC -> sync(SessionDelta.decodeSync(request.payload()));
+                case Frame.SESSION_DELTA -> delta(SessionDelta.decodeDelta(request.payload()));
+                default -> throw new IllegalArgumentException("unexpected frame type " + request.type());
+            };
+            if (move == null) return new Frame(Frame.RESYNC, request.requestId(), new byte[0]);
+            return new Frame(Frame.MOVE_REPLY, request.requestId(), BinaryCodec.encodeMove(move));
+        } catch (IOException | RuntimeException e) {
+            errors.increment();
+            byte[] msg = String.valueOf(e.getMessage()).getBytes(StandardCharsets.UTF_8);
+            return new Frame(Frame.ERROR, request.requestId(), msg);
+        }
+    }
+
+    private void done(long startNs) {
+        done(startNs, 1);
+    }
+
+    private void done(long startNs, int boards) {
+        latency.record(System.nanoTime() - startNs);
+        requests.add(boards);
+    }
+
+    /* Boards answered by a reply frame: a batch reply starts with its u16 count. */
+    private static int boards(Frame reply) {
+        if (reply.type() != Frame.BATCH_REPLY) return 1;
+        return ((reply.payload()[0] & 0xFF) << 8) | (reply.payload()[1] & 0xFF);
+    }
+
+    /* ---------------- batches ---------------- */
+
+    /* Plan every board of a batch on the batch pool; one board's error doesn't fail the others. */
+    private List<BinaryCodec.BatchItem> batch(List<PureGame> games) {
+        BinaryCodec.BatchItem[] out = new BinaryCodec.BatchItem[games.size()];
+        batchPool.submit(() -> IntStream.range(0, out.length).parallel()
+                .forEach(i -> out[i] = item(games.get(i)))).join();
+        batches.increment();
+        return Arrays.asList(out);
+    }
+
+    private BinaryCodec.BatchItem item(PureGame game) {
+        try {
+            return new BinaryCodec.BatchItem(move(game), null);
+        } catch (RuntimeException e) {
+            errors.increment();
+            return new BinaryCodec.BatchItem(null, String.valueOf(e.getMessage()));
+        }
+    }
+
+    /* ---------------- planning ---------------- */
+
+    OpMove move(PureGame game) {
+        return move(board(game), game.getCurrentShape(), game.getNextShape());
+    }
+
+    private OpMove move(Board board, int[][] currentShape, int[][] nextShape) {
+        Tetromino current = piece(currentShape);
+        if (current == null) throw new IllegalArgumentException("no current piece");
+        AiController.Plan plan = ai.planSpawn(board, current, piece(nextShape));
+        return new OpMove(plan.targetCol(), plan.targetRot());
+    }
+
+    /* ---------------- sessions ---------------- */
+
+    /** Server copy of one MoveSession's board. */
+    private static final class SessionBoard {
+        final int cols;
+        int[] rows;             // guarded by this
+        int seq;                // guarded by this
+
+        SessionBoard(int cols, int[] rows, int seq) {
+            this.cols = cols;
+            this.rows = rows;
+            this.seq = seq;
+        }
+    }
+
+    /* Full board: (re)start the session from it. */
+    private OpMove sync(SessionDelta.Sync sync) {
+        PureGame game = sync.game();
+        Board board = board(game);
+        SessionBoard s = new SessionBoard(game.getWidth(), SessionDelta.masks(game.getCells(), game.getWidth()), sync.seq());
+        synchronized (sessions) { sessions.put(sync.session(), s); } // evicts the least recently used
+        return move(board, game.getCurrentShape(), game.getNextShape());
+    }
+
+    /* Delta: apply it if it follows on and lands on the client's hash, else null (= RESYNC). */
+    private OpMove delta(SessionDelta.Update u) {
+        SessionBoard s;
+        synchronized (sessions) { s = sessions.get(u.session()); } // access order: marks it used
+        if (s == null) {
+            resyncs.increment();
+            return null;
+        }
+        int[] rows;
+        synchronized (s) {
+            try {
+                rows = (u.seq() == s.seq + 1) ? SessionDelta.apply(s.rows, s.cols, u.delta()) : null;
+            } catch (IllegalArgumentException e) {
+                rows = null;
+            }
+            if (rows == null || SessionDelta.hash(rows) != u.hash()) {
+                resyncs.increment();
+                return null;
+            }
+            s.rows = rows;
+            s.seq = u.seq();
+        }
+        Board board = Board.occupancyOnly(rows.length, s.cols);
+        for (int r = 0; r < rows.length; r++) {
+            for (int m = rows[r]; m != 0; m &= m - 1) board.set(r, Integer.numberOfTrailingZeros(m), 1);
+        }
+        return move(board, u.current(), u.next());
+    }
+
+    /** Occupancy of {@code game.cells} (any non-zero cell is filled). */
+    static Board board(PureGame game) {
+        int[][] cells = game.getCells();
+        if (cells == null || cells.length == 0) throw new IllegalArgumentException("no cells");
+        int rows = cells.length, cols = cells[0].length;
+        if (rows != game.getHeight() || cols != game.getWidth()) {
+            throw new IllegalArgumentException("cells are " + rows + "x" + cols + " but the game is "
+                    + game.getHeight() + "x" + game.getWidth());
+        }
+        if (cols < 1) throw new IllegalArgumentException("unsupported width " + cols); // Board rejects > MAX_COLS
+        Board board = Board.occupancyOnly(rows, cols);
+        for (int r = 0; r < rows; r++) {
+            if (cells[r] == null || cells[r].length != cols) throw new IllegalArgumentException("ragged cells");
+            for (int c = 0; c < cols; c++) if (cells[r][c] != 0) board.set(r, c, 1);
+        }
+        return board;
+    }
+
+    /**
+     * The tetromino whose filled cells match {@code shape} in some rotation,
+     * ignoring empty border rows and columns; null for a null shape.
+     */
+    static Tetromino piece(int[][] shape) {
+        if (shape == null) return null;
+        String key = trimmed(shape);
+        for (Tetromino t : Tetromino.values()) {
+            for (int rot = 0; rot < t.rotationCount(); rot++) {
+                if (trimmed(t.shape(rot)).equals(key)) return t;
+            }
+        }
+        throw new IllegalArgumentException("unknown piece " + Arrays.deepToString(shape));
+    }
+
+    /* Filled cells inside their bounding box, as rows of '#'/'.' joined by '/'. */
+    private static String trimmed(int[][] shape) {
+        int top = Integer.MAX_VALUE, bottom = -1, left = Integer.MAX_VALUE, right = -1;
+        for (int r = 0; r < shape.length; r++) {
+            for (int c = 0; c < shape[r].length; c++) {
+                if (shape[r][c] == 0) continue;
+                top = Math.min(top, r);
+                bottom = r;
+                left = Math.min(left, c);
+                right = Math.max(right, c);
+            }
+        }
+        StringBuilder sb = new StringBuilder();
+        for (int r = top; r <= bottom; r++) {
+            if (r > top) sb.append('/');
+            for (int c = left; c <= right; c++) {
+                sb.append(c < shape[r].length && shape[r][c] != 0 ? '#' : '.');
+            }
+        }
+        return sb.toString();
+    }
+
+    private static void closeQuietly(Socket s) {
+        try {
+            s.close();
+        } catch (IOException ignored) {
+            // already closed
+        }
+    }
+
+    /* ---------------- CLI ---------------- */
+
+    /** {@code MoveServer [port]}: serve until killed, printing counters every few seconds. */
+    public static void main(String[] args) throws Exception {
+        int port = (args.length > 0) ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        MoveServer server = new MoveServer(port).start();
+        Runtime.getRuntime().addShutdownHook(new Thread(server::close));
+        System.out.println("move server listening on " + server.port());
+        long lastRequests = 0;
+        while (true) {
+            Thread.sleep(5_000);
+            Stats s = server.stats();
+            if (s.requests() != lastRequests) System.out.println(s);
+            lastRequests = s.requests();
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package org.oosd.net;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * One board's requests, sent as deltas against the board the server already has.
+ *
+ * The first request sends the whole board (SESSION_SYNC). After that each request
+ * sends a {@link SessionDelta}: rows cleared, cells that changed, the pieces, a
+ * sequence number and a hash of the resulting board. The server applies it to
+ * its copy and answers with a move; if its copy is missing (restart, eviction)
+ * or out of step (wrong sequence or hash), it answers RESYNC and the session
+ * sends the whole board again. Any failure also makes the next request a sync.
+ *
+ * Sessions live on the server, not on a connection, so they work across the
+ * client's pool and reconnects. Only occupancy travels: filled cells are sent
+ * as 1s. Boards wider than 31 or very large ones, and servers that did not
+ * accept {@link #CAPABILITY} in the hello, get plain full requests. Requests
+ * on one session are serialised (by a lock, not a monitor, so virtual threads
+ * blocked on the socket don't pin their carrier).
+ */
+public final class MoveSession {
+
+    /** Name announced in the connection hello (needs {@link BinaryCodec#CAPABILITY} too). */
+    public static final String CAPABILITY = "sess1";
+
+    /** Above this many changed cells a full board is about as small; just sync. */
+    private static final int MAX_TOGGLES = 64;
+
+    private final TetrisClient client;
+    private final long id = ThreadLocalRandom.current().nextLong();
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    // guarded by lock
+    private int[] acked;      // board the server confirmed last, or null = sync next
+    private int ackedCols;
+    private int seq = 0;
+    private long syncs, deltas, resyncs;
+
+    MoveSession(TetrisClient client) {
+        this.client = client;
+    }
+
+    /** As {@link TetrisClient#requestMove}, sending only what changed. */
+    public OpMove requestMove(PureGame game) throws IOException {
+        MoveCache mc = client.moveCache();
+        MoveCache.Key key = (mc != null) ? MoveCache.key(game) : null;
+        OpMove hit = (mc != null) ? mc.get(key) : null;
+        if (hit != null) return hit; // the next delta is still taken from the last board the server saw
+        lock.lock();
+        try {
+            OpMove move = client.call(c -> exchange(c, game));
+            if (mc != null) mc.put(key, move);
+            return move;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Full boards sent (the first request, resyncs and fallbacks to a sync). */
+    public long syncs() { return locked(() -> syncs); }
+
+    /** Requests sent as deltas. */
+    public long deltas() { return locked(() -> deltas); }
+
+    /** Deltas the server could not apply. */
+    public long resyncs() { return locked(() -> resyncs); }
+
+    private long locked(LongSupplier read) {
+        lock.lock();
+        try {
+            return read.getAsLong();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private OpMove exchange(ClientConnection c, PureGame game) throws IOException {
+        if (!c.sessions) return c.request(game);
+        int cols = game.getWidth();
+        int[] board;
+        try {
+            board = SessionDelta.masks(game.getCells(), cols);
+        } catch (IllegalArgumentException | NullPointerException e) {
+            return c.request(game);  // not a board the session format can carry
+        }
+        if ((long) board.length * cols > 0xFFFF) return c.request(game);
+
+        try {
+            Frame reply = null;
+            if (acked != null && acked.length == board.length && ackedCols == cols) {
+                SessionDelta.Delta delta = SessionDelta.diff(acked, board, cols);
+                if (delta.toggles().length <= MAX_TOGGLES) {
+                    deltas++;
+                    reply = c.exchange(Frame.SESSION_DELTA, SessionDelta.encodeDelta(id, ++seq,
+                            SessionDelta.hash(board), delta, game.getCurrentShape(), game.getNextShape()));
+                    if (reply.type() == Frame.RESYNC) {
+                        resyncs++;
+                        reply = null;
+                    }
+                }
+            }
+            if (reply == null) {
+                syncs++;
+                reply = c.exchange(Frame.SESSION_SYNC, SessionDelta.encodeSync(id, ++seq, game));
+            }
+            OpMove move = switch (reply.type()) {
+                case Frame.MOVE_REPLY -> BinaryCodec.decodeMove(reply.payload());
+                case Frame.ERROR -> throw ClientConnection.serverError(reply);
+                default -> throw new IOException("unexpected frame type " + reply.type());
+            };
+            acked = board;
+            ackedCols = cols;
+            return move;
+        } catch (IOException e) {
+            acked = null;
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package org.oosd.net;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Many in-flight requests on one {@link ClientConnection}.
+ *
+ * Callers only queue their request and return at once: a virtual writer thread
+ * sends them, so a write stuck on a full socket blocks neither callers nor
+ * close(). A virtual reader thread completes each request's future when its
+ * reply arrives. Binary replies are matched by request id, JSON replies by order
+ * (the single writer keeps the order queue and the wire in step). A future that
+ * times out or is cancelled simply drops its reply when it comes (or is never
+ * sent, if it was still queued); other requests carry on. Only when nothing at
+ * all has come back for {@code stallNs} after a timed-out request went out is
+ * the server taken to be stuck. When the socket fails (or the server is stuck),
+ * every pending request fails with the cause and the pipeline is closed for good.
+ */
+final class Pipeline {
+
+    private final ClientConnection conn;
+    private final long stallNs;
+    private final Map<Integer, CompletableFuture<OpMove>> byId = new ConcurrentHashMap<>();
+    private final Queue<CompletableFuture<OpMove>> inOrder = new ConcurrentLinkedQueue<>();
+    private final BlockingQueue<Outgoing> outbox = new LinkedBlockingQueue<>();
+    private final AtomicInteger ids = new AtomicInteger();
+    private final AtomicReference<IOException> failure = new AtomicReference<>();
+    private final Thread writer;
+    private volatile long lastReplyNs = System.nanoTime();
+
+    private record Outgoing(int id, PureGame game, CompletableFuture<OpMove> result) { }
+
+    /** @param stall how long the server may stay silent, after a request timed out, before it is given up */
+    Pipeline(ClientConnection conn, Duration stall) throws IOException {
+        this.conn = conn;
+        this.stallNs = stall.toNanos();
+        conn.setReadTimeout(0);
+        writer = Thread.ofVirtual().name("tetris-client-writer").start(this::writeLoop);
+        Thread.ofVirtual().name("tetris-client-reader").start(this::readLoop);
+    }
+
+    boolean isOpen() { return failure.get() == null; }
+
+    /** Requests sent but not yet answered (including abandoned ones). */
+    int inFlight() { return conn.binary ? byId.size() : inOrder.size(); }
+
+    /** Queue {@code game} for sending; {@code result} is completed by the reader (or failed). */
+    void submit(PureGame game, CompletableFuture<OpMove> result) {
+        int id = ids.incrementAndGet();
+        long sentNs = System.nanoTime();
+        IOException failed = failure.get();
+        if (failed != null) {
+            result.completeExceptionally(failed);
+            return;
+        }
+        outbox.add(new Outgoing(id, game, result));
+        failed = failure.get();
+        if (failed != null) result.completeExceptionally(failed); // fail() may have drained the outbox already
+        result.whenComplete((move, err) -> {
+            if (conn.binary) byId.remove(id, result);
+            if (err instanceof TimeoutException) checkStalled(sentNs);
+        });
+    }
+
+    /* A deadline only abandons its own reply; if nothing comes back at all within stallNs of it going out, start over. */
+    private void checkStalled(long sentNs) {
+        long wait = sentNs + stallNs - System.nanoTime();
+        CompletableFuture.delayedExecutor(Math.max(0L, wait), TimeUnit.NANOSECONDS).execute(() -> {
+            if (failure.get() == null && lastReplyNs - sentNs < 0) fail(new IOException("no replies from server"));
+        });
+    }
+
+    void close() {
+        fail(new IOException("client closed"));
+    }
+
+    /* The only thread writing to the socket; a request given up before it went out is never sent. */
+    private void writeLoop() {
+        try {
+            while (failure.get() == null) {
+                Outgoing o = outbox.take();
+                if (o.result().isDone()) continue;
+                if (conn.binary) {
+                    byId.put(o.id(), o.result());
+                    if (o.result().isDone()) {      // gave up between the check and the put
+                        byId.remove(o.id(), o.result());
+                        continue;
+                    }
+                } else {
+                    inOrder.add(o.result());
+                }
+                IOException failed = failure.get();
+                if (failed != null) {
+                    o.result().completeExceptionally(failed); // registered after fail() drained
+                    return;
+                }
+                conn.send(o.id(), o.game());
+            }
+        } catch (IOException e) {
+            fail(e);
+        } catch (InterruptedException e) {
+            // closed by fail()
+        }
+    }
+
+    private void readLoop() {
+        try {
+            while (true) {
+                ClientConnection.Reply r = conn.receive();
+                lastReplyNs = System.nanoTime();
+                CompletableFuture<OpMove> f = conn.binary ? byId.remove(r.requestId()) : inOrder.poll();
+                if (f == null) continue; // timed out or cancelled already
+                if (r.error() != null) f.completeExceptionally(r.error());
+                else f.complete(r.move());
+            }
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    private void fail(IOException cause) {
+        failure.compareAndSet(null, cause);
+        IOException failed = failure.get();
+        conn.close();          // unblocks a writer stuck on a full socket
+        writer.interrupt();
+        for (CompletableFuture<OpMove> f : byId.values()) f.completeExceptionally(failed);
+        byId.clear();
+        CompletableFuture<OpMove> f;
+        while ((f = inOrder.poll()) != null) f.completeExceptionally(failed);
+        Outgoing o;
+        while ((o = outbox.poll()) != null) o.result().completeExceptionally(failed);
+    }
+}
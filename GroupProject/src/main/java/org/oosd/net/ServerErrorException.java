@@ -0,0 +1,24 @@
+package org.oosd.net;
+
+import java.io.IOException;
+
+/**
+ * The server answered a request with an error instead of a move.
+ *
+ * The reply was read in full, so the connection is still in step and stays in
+ * use; sending the same request again would only get the same answer.
+ */
+public final class ServerErrorException extends IOException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String serverMessage;
+
+    public ServerErrorException(String serverMessage) {
+        super("server error: " + serverMessage);
+        this.serverMessage = serverMessage;
+    }
+
+    /** The error text exactly as the server sent it. */
+    public String serverMessage() { return serverMessage; }
+}
@@ -0,0 +1,188 @@
+package org.oosd.net;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Board deltas for the session protocol (occupancy only).
+ *
+ * A board is one bit mask per row (bit c = column c, row 0 at the top). Going
+ * from one request's board to the next, a piece locked and maybe some rows
+ * cleared, so a delta is: rows to remove (the rest fall down, empty rows come
+ * in at the top), then cells to toggle. Any set of removed rows gives a
+ * correct delta; {@link #diff} picks the one with the fewest toggles, which for
+ * a normal lock is the real clear plus the 4 (or fewer) surviving piece cells.
+ *
+ * SESSION_SYNC payload:  i64 session, i32 seq, {@link BinaryCodec} game.
+ * SESSION_DELTA payload: i64 session, i32 seq, i64 hash of the board after,
+ * u8 removed-row count, u16 rows, u16 toggle count, u16 cell indices
+ * (row * cols + col), then current and next piece tags.
+ */
+final class SessionDelta {
+    private SessionDelta() {}
+
+    /** A piece covers at most this many rows, so at most this many clear at once. */
+    private static final int MAX_CLEARED = 4;
+    /** Near-full rows considered for clearing (bottom-most first). */
+    private static final int MAX_CANDIDATES = 8;
+
+    record Delta(int[] removed, int[] toggles) { }
+
+    record Sync(long session, int seq, PureGame game) { }
+
+    record Update(long session, int seq, long hash, Delta delta, int[][] current, int[][] next) { }
+
+    /* ---------------- boards ---------------- */
+
+    /** Row masks of {@code cells} (any non-zero cell is filled). */
+    static int[] masks(int[][] cells, int cols) {
+        if (cols < 1 || cols > 31) throw new IllegalArgumentException("unsupported width " + cols);
+        int[] masks = new int[cells.length];
+        for (int r = 0; r < cells.length; r++) {
+            if (cells[r] == null || cells[r].length != cols) throw new IllegalArgumentException("ragged cells");
+            int m = 0;
+            for (int c = 0; c < cols; c++) if (cells[r][c] != 0) m |= 1 << c;
+            masks[r] = m;
+        }
+        return masks;
+    }
+
+    /** Order-sensitive 64-bit hash of a board (both ends must agree, nothing more). */
+    static long hash(int[] masks) {
+        long h = 0x9E3779B97F4A7C15L * (masks.length + 1);
+        for (int m : masks) {
+            h += (m & 0xFFFFFFFFL) + 0x9E3779B97F4A7C15L;
+            h = (h ^ (h >>> 30)) * 0xBF58476D1CE4E5B9L;
+            h = (h ^ (h >>> 27)) * 0x94D049BB133111EBL;
+            h ^= h >>> 31;
+        }
+        return h;
+    }
+
+    /** {@code before} without the given rows, the rest fallen to the bottom. */
+    static int[] removeRows(int[] before, int[] rows) {
+        int[] out = new int[before.length];
+        int dst = before.length - 1;
+        for (int r = before.length - 1; r >= 0; r--) {
+            if (!contains(rows, r)) out[dst--] = before[r];
+        }
+        return out;
+    }
+
+    /** Smallest delta taking {@code before} to {@code after} (same size). */
+    static Delta diff(int[] before, int[] after, int cols) {
+        int full = (1 << cols) - 1;
+        List<Integer> near = new ArrayList<>();
+        for (int r = before.length - 1; r >= 0 && near.size() < MAX_CANDIDATES; r--) {
+            if (Integer.bitCount(before[r]) >= cols - MAX_CLEARED && before[r] != 0 && (before[r] & ~full) == 0) {
+                near.add(r);
+            }
+        }
+
+        int[] best = new int[0];
+        int bestCost = toggleCount(before, after);
+        int n = near.size();
+        for (int subset = 1; subset < (1 << n); subset++) {
+            if (Integer.bitCount(subset) > MAX_CLEARED) continue;
+            int[] rows = new int[Integer.bitCount(subset)];
+            int k = 0;
+            for (int i = 0; i < n; i++) if ((subset & (1 << i)) != 0) rows[k++] = near.get(i);
+            if (rows[0] - rows[rows.length - 1] >= MAX_CLEARED) continue; // one piece spans < 4 rows apart
+            int cost = toggleCount(removeRows(before, rows), after);
+            if (cost < bestCost) {
+                bestCost = cost;
+                best = rows;
+            }
+        }
+
+        int[] shifted = removeRows(before, best);
+        int[] toggles = new int[bestCost];
+        int k = 0;
+        for (int r = 0; r < after.length; r++) {
+            int x = shifted[r] ^ after[r];
+            while (x != 0) {
+                int c = Integer.numberOfTrailingZeros(x);
+                toggles[k++] = r * cols + c;
+                x &= x - 1;
+            }
+        }
+        Arrays.sort(best);
+        return new Delta(best, toggles);
+    }
+
+    /** {@code before} with {@code delta} applied; IllegalArgumentException if it does not fit. */
+    static int[] apply(int[] before, int cols, Delta delta) {
+        for (int r : delta.removed()) {
+            if (r < 0 || r >= before.length) throw new IllegalArgumentException("bad row " + r);
+        }
+        int[] out = removeRows(before, delta.removed());
+        for (int i : delta.toggles()) {
+            int r = i / cols, c = i % cols;
+            if (r >= out.length) throw new IllegalArgumentException("bad cell " + i);
+            out[r] ^= 1 << c;
+        }
+        return out;
+    }
+
+    private static int toggleCount(int[] a, int[] b) {
+        int n = 0;
+        for (int r = 0; r < a.length; r++) n += Integer.bitCount(a[r] ^ b[r]);
+        return n;
+    }
+
+    private static boolean contains(int[] rows, int r) {
+        for (int x : rows) if (x == r) return true;
+        return false;
+    }
+
+    /* ---------------- payloads ---------------- */
+
+    static byte[] encodeSync(long session, int seq, PureGame game) {
+        byte[] body = BinaryCodec.encodeGame(game);
+        BinaryCodec.Out out = new BinaryCodec.Out(12 + body.length);
+        out.i64(session);
+        out.i32(seq);
+        out.write(body, 0, body.length);
+        return out.toByteArray();
+    }
+
+    static Sync decodeSync(byte[] payload) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        long session = in.readLong();
+        int seq = in.readInt();
+        return new Sync(session, seq, BinaryCodec.decodeGame(in.readAllBytes()));
+    }
+
+    static byte[] encodeDelta(long session, int seq, long hash, Delta delta, int[][] current, int[][] next) {
+        BinaryCodec.Out out = new BinaryCodec.Out(32 + 2 * delta.toggles().length);
+        out.i64(session);
+        out.i32(seq);
+        out.i64(hash);
+        out.u8(delta.removed().length);
+        for (int r : delta.removed()) out.u16(r);
+        out.u16(delta.toggles().length);
+        for (int i : delta.toggles()) out.u16(i);
+        BinaryCodec.writePiece(out, current);
+        BinaryCodec.writePiece(out, next);
+        return out.toByteArray();
+    }
+
+    static Update decodeDelta(byte[] payload) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        long session = in.readLong();
+        int seq = in.readInt();
+        long hash = in.readLong();
+        int[] removed = new int[in.readUnsignedByte()];
+        for (int i = 0; i < removed.length; i++) removed[i] = in.readUnsignedShort();
+        int[] toggles = new int[in.readUnsignedShort()];
+        for (int i = 0; i < toggles.length; i++) toggles[i] = in.readUnsignedShort();
+        int[][] current = BinaryCodec.readPiece(in);
+        int[][] next = BinaryCodec.readPiece(in);
+        if (in.available() > 0) throw new IOException("trailing bytes in delta payload");
+        return new Update(session, seq, hash, new Delta(removed, toggles), current, next);
+    }
+}
@@ -5,37 +5,394 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import java.io.*;
 import java.net.InetSocketAddress;
 import java.net.Socket;
-import java.nio.charset.StandardCharsets;
+import java.net.SocketTimeoutException;
 import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 
-public class TetrisClient {
+/**
+ * Client for the move server (one JSON PureGame line out, one JSON OpMove line back).
+ *
+ * Connections are kept open and reused: each request borrows an idle connection
+ * (or opens one), and returns it afterwards; up to {@code poolSize} idle ones are
+ * kept. Sockets use TCP_NODELAY and SO_KEEPALIVE. A connection idle for a while
+ * is probed before reuse, and a request that fails on a reused connection is
+ * retried once on a fresh one (the server may have dropped it). An error the
+ * server reports for a request is thrown as a {@link ServerErrorException}; the
+ * connection stays pooled and the request is not retried. Failed connects
+ * back off exponentially. Thread-safe; close() drops the idle connections.
+ *
+ * With {@link #setBinaryPreferred} each new connection offers the binary format
+ * ({@link BinaryCodec} in {@link Frame}s) in a {@link Hello}; servers that accept
+ * it get frames, others keep JSON. A server that answers the hello with anything
+ * else is remembered and later connections skip it; one that hangs up on it or
+ * does not answer in time gets JSON, and the hello is not offered again until a
+ * backoff (doubling like the connect backoff) has passed. {@link #openSession}
+ * boards additionally send deltas where the server accepts sessions.
+ *
+ * {@link #requestMoveAsync} never waits for the server: requests are pipelined on
+ * one shared connection (opened and written on virtual threads; the caller only
+ * queues the request) and complete from its reader thread, each with its own
+ * deadline. Cancelling a future abandons its reply.
+ *
+ * With {@link #setMoveCache} positions asked about before are answered locally.
+ */
+public class TetrisClient implements Closeable {
     private static final String HOST = "localhost";
     private static final int PORT = 3000;
     private static final Duration CONNECT_TIMEOUT = Duration.ofSeconds(2);
     private static final Duration READ_TIMEOUT = Duration.ofSeconds(5);
 
+    /** Idle connections kept by the default constructors. */
+    public static final int DEFAULT_POOL_SIZE = 2;
+
+    private static final long IDLE_PROBE_NS = Duration.ofSeconds(5).toNanos(); // probe before reusing after this
+    private static final int CONNECT_ATTEMPTS = 3;
+    private static final long BACKOFF_MIN_MS = 50;
+    private static final long BACKOFF_MAX_MS = 2_000;
+    private static final int HELLO_TIMEOUT_MS = 1_000;
+    private static final List<String> OFFERED =
+            List.of(BinaryCodec.CAPABILITY, MoveSession.CAPABILITY, MoveBatcher.CAPABILITY);
+
+    private final String host;
+    private final int port;
+    private final int poolSize;
     private final ObjectMapper mapper = new ObjectMapper();
 
-    /* Sends the PureGame to the server and returns the optimal move. Opens and closes the socket each call. */
+    // guarded by this
+    private final Deque<ClientConnection> idle = new ArrayDeque<>();
+    private long backoffMs = 0;
+    private long retryAtNs = 0;
+    private long helloBackoffMs = 0;
+    private long helloRetryAtNs = 0;
+    private boolean closed = false;
+
+    private volatile boolean binaryPreferred = false;
+    private volatile boolean helloRejected = false;  // server speaks JSON only
+    private volatile MoveCache moveCache;              // null = no caching
+
+    private final LongAdder opened = new LongAdder();
+
+    /* Async requests share one pipelined connection, (re)opened off the caller's thread */
+    private static final Executor CONNECTOR =
+            Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("tetris-client-connect-", 0).factory());
+    private CompletableFuture<Pipeline> pipeline; // guarded by this
+
+    public TetrisClient() {
+        this(HOST, PORT);
+    }
+
+    public TetrisClient(String host, int port) {
+        this(host, port, DEFAULT_POOL_SIZE);
+    }
+
+    /** @param poolSize idle connections kept for reuse (0 = close after every request) */
+    public TetrisClient(String host, int port, int poolSize) {
+        this.host = host;
+        this.port = port;
+        this.poolSize = Math.max(0, poolSize);
+    }
+
+    /** Offer the binary format on new connections (idle JSON connections are dropped). */
+    public void setBinaryPreferred(boolean binary) {
+        binaryPreferred = binary;
+        helloRejected = false;
+        CompletableFuture<Pipeline> p;
+        synchronized (this) {
+            helloBackoffMs = 0;
+            helloRetryAtNs = 0;
+            while (!idle.isEmpty()) idle.pollFirst().close();
+            p = pipeline;
+            pipeline = null;
+        }
+        if (p != null) p.thenAccept(Pipeline::close);
+    }
+
+    public boolean isBinaryPreferred() { return binaryPreferred; }
+
+    /* Sends the PureGame to the server and returns the optimal move, reusing a pooled connection. */
     public OpMove requestMove(PureGame game) throws IOException {
-        try (Socket socket = new Socket()) {
-            socket.connect(new InetSocketAddress(HOST, PORT), (int) CONNECT_TIMEOUT.toMillis());
-            socket.setSoTimeout((int) READ_TIMEOUT.toMillis());
+        MoveCache mc = moveCache;
+        if (mc == null) return call(c -> c.request(game));
+        MoveCache.Key key = MoveCache.key(game);
+        OpMove move = mc.get(key);
+        if (move == null) {
+            move = call(c -> c.request(game));
+            mc.put(key, move);
+        }
+        return move;
+    }
+
+    /**
+     * Answer positions seen before from {@code cache} instead of the server (all
+     * request styles: blocking, async, sessions and batches). Null turns it off.
+     */
+    public void setMoveCache(MoveCache cache) { moveCache = cache; }
+
+    public MoveCache moveCache() { return moveCache; }
+
+    /**
+     * A board that sends only what changed since its last request (see
+     * {@link MoveSession}). Needs {@link #setBinaryPreferred}; on a JSON-only
+     * server it sends full requests.
+     */
+    public MoveSession openSession() {
+        return new MoveSession(this);
+    }
+
+    /**
+     * Collects {@link #requestMoveAsync}-style requests from many boards for a
+     * {@code window} and sends them as one batch (see {@link MoveBatcher}).
+     */
+    public MoveBatcher batcher(Duration window, int maxBatch) {
+        return new MoveBatcher(this, window, maxBatch);
+    }
+
+    /** {@link #batcher(Duration, int)} with a 1 ms window. */
+    public MoveBatcher batcher() {
+        return batcher(MoveBatcher.DEFAULT_WINDOW, MoveBatcher.DEFAULT_MAX_BATCH);
+    }
+
+    /** One blocking exchange on a pooled connection. */
+    interface Exchange<T> {
+        T on(ClientConnection c) throws IOException;
+    }
+
+    /*
+     * Run the exchange on a borrowed connection; a stale pooled one gets one retry on a fresh one.
+     * A server error is an answer, not a broken connection: it goes back to the pool, no retry.
+     */
+    <T> T call(Exchange<T> exchange) throws IOException {
+        ClientConnection c = borrow();
+        T result;
+        try {
+            result = exchange.on(c);
+        } catch (ServerErrorException e) {
+            release(c);
+            throw e;
+        } catch (SocketTimeoutException e) {
+            c.close(); // a slow server is not a stale connection: don't wait twice
+            throw e;
+        } catch (IOException e) {
+            c.close();
+            if (!c.reused) throw e;
+            c = connect();
+            try {
+                result = exchange.on(c);
+            } catch (ServerErrorException again) {
+                release(c);
+                throw again;
+            } catch (IOException again) {
+                c.close();
+                throw again;
+            }
+        }
+        release(c);
+        return result;
+    }
+
+    /** {@link #requestMoveAsync(PureGame, Duration)} with the default read timeout as deadline. */
+    public CompletableFuture<OpMove> requestMoveAsync(PureGame game) {
+        return requestMoveAsync(game, READ_TIMEOUT);
+    }
+
+    /**
+     * Send without waiting. The future fails with a TimeoutException if no reply
+     * arrives within {@code deadline} (connecting included), or with the IOException
+     * that broke the connection; the next request then reconnects.
+     */
+    public CompletableFuture<OpMove> requestMoveAsync(PureGame game, Duration deadline) {
+        MoveCache mc = moveCache;
+        if (mc != null) {
+            MoveCache.Key key = MoveCache.key(game);
+            OpMove hit = mc.get(key);
+            if (hit != null) return CompletableFuture.completedFuture(hit);
+            CompletableFuture<OpMove> result = send(game, deadline);
+            result.thenAccept(move -> mc.put(key, move));
+            return result;
+        }
+        return send(game, deadline);
+    }
+
+    private CompletableFuture<OpMove> send(PureGame game, Duration deadline) {
+        CompletableFuture<OpMove> result = new CompletableFuture<>();
+        result.orTimeout(deadline.toNanos(), TimeUnit.NANOSECONDS);
+        pipeline().whenComplete((p, err) -> {
+            if (err != null) result.completeExceptionally(err instanceof CompletionException ? err.getCause() : err);
+            else if (!result.isDone()) p.submit(game, result);
+        });
+        return result;
+    }
+
+    /** Connections opened so far (reconnects included). */
+    public long connectionsOpened() { return opened.sum(); }
+
+    /** True while an idle pooled connection speaks the binary format. */
+    public synchronized boolean hasBinaryConnection() {
+        for (ClientConnection c : idle) if (c.binary) return true;
+        return false;
+    }
+
+    @Override
+    public void close() {
+        CompletableFuture<Pipeline> p;
+        synchronized (this) {
+            closed = true;
+            while (!idle.isEmpty()) idle.pollFirst().close();
+            p = pipeline;
+            pipeline = null;
+        }
+        if (p != null) p.thenAccept(Pipeline::close);
+    }
+
+    /* The shared pipeline, replaced when it failed or its connect did. */
+    private synchronized CompletableFuture<Pipeline> pipeline() {
+        if (closed) return CompletableFuture.failedFuture(new IOException("client closed"));
+        CompletableFuture<Pipeline> p = pipeline;
+        boolean dead = p != null && p.isDone() && (p.isCompletedExceptionally() || !p.join().isOpen());
+        if (p == null || dead) {
+            p = CompletableFuture.supplyAsync(() -> {
+                try {
+                    return new Pipeline(connect(), READ_TIMEOUT);
+                } catch (IOException e) {
+                    throw new CompletionException(e);
+                }
+            }, CONNECTOR);
+            pipeline = p;
+        }
+        return p;
+    }
+
+    /* ---------------- pool ---------------- */
 
-            try (BufferedWriter out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
-                 BufferedReader in  = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8))) {
+    /* Take idle connections under the monitor, but probe them outside it: a probe may block on a read. */
+    private ClientConnection borrow() throws IOException {
+        long now = System.nanoTime();
+        while (true) {
+            ClientConnection c;
+            synchronized (this) {
+                if (closed) throw new IOException("client closed");
+                c = idle.pollFirst();                   // most recently used first
+            }
+            if (c == null) return connect();
+            if (c.healthy(now, IDLE_PROBE_NS)) {
+                c.reused = true;
+                return c;
+            }
+            c.close();
+        }
+    }
 
-                String jsonGame = mapper.writeValueAsString(game);
-                out.write(jsonGame);
-                out.write("\n");              // server reads one JSON line
-                out.flush();
+    private void release(ClientConnection c) {
+        synchronized (this) {
+            if (!closed && idle.size() < poolSize) {
+                c.lastUsedNs = System.nanoTime();
+                idle.addFirst(c);
+                return;
+            }
+        }
+        c.close();
+    }
 
-                String response = in.readLine();
-                if (response == null || response.isEmpty()) {
-                    throw new EOFException("Empty response from server");
+    /* Open a connection, retrying with exponential backoff shared by all callers. */
+    private ClientConnection connect() throws IOException {
+        IOException last = null;
+        for (int attempt = 0; attempt < CONNECT_ATTEMPTS; attempt++) {
+            awaitBackoff();
+            try {
+                ClientConnection c = handshake(open());
+                synchronized (this) { backoffMs = 0; }
+                opened.increment();
+                return c;
+            } catch (IOException e) {
+                last = e;
+                synchronized (this) {
+                    backoffMs = nextBackoff(backoffMs);
+                    retryAtNs = System.nanoTime() + backoffMs * 1_000_000L;
                 }
-                return mapper.readValue(response, OpMove.class);
             }
         }
+        throw last;
+    }
+
+    private void awaitBackoff() throws IOException {
+        long waitNs;
+        synchronized (this) { waitNs = retryAtNs - System.nanoTime(); }
+        if (waitNs <= 0) return;
+        try {
+            Thread.sleep(Duration.ofNanos(waitNs));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted while backing off");
+        }
+    }
+
+    private static long nextBackoff(long ms) {
+        return (ms == 0) ? BACKOFF_MIN_MS : Math.min(BACKOFF_MAX_MS, ms * 2);
+    }
+
+    /*
+     * Offer binary if wanted. A server that answers with something other than a hello
+     * speaks JSON only and is not asked again. Silence or a hang-up (a legacy server
+     * dropping the unknown line, or a busy one) gets plain JSON on a new socket and
+     * backs the hello off, so such a server is not made to fail every connect.
+     */
+    private ClientConnection handshake(Socket socket) throws IOException {
+        if (!binaryPreferred || helloRejected || helloBackingOff()) return connection(socket, Set.of());
+        try {
+            socket.setSoTimeout(HELLO_TIMEOUT_MS);
+            Hello.write(socket.getOutputStream(), Hello.line(OFFERED));
+            String reply = Hello.readLine(socket.getInputStream());
+            Set<String> accepted = Hello.parse(reply);
+            socket.setSoTimeout((int) READ_TIMEOUT.toMillis());
+            if (accepted != null) {
+                synchronized (this) { helloBackoffMs = 0; }
+                return connection(socket, accepted);
+            }
+            if (reply != null) helloRejected = true;
+            else helloFailed(); // hung up on the hello
+        } catch (SocketTimeoutException | EOFException e) {
+            helloFailed();
+        } catch (IOException e) {
+            socket.close();
+            throw e;
+        }
+        socket.close();
+        return connection(open(), Set.of());
+    }
+
+    private synchronized boolean helloBackingOff() {
+        return helloRetryAtNs - System.nanoTime() > 0;
+    }
+
+    private synchronized void helloFailed() {
+        helloBackoffMs = nextBackoff(helloBackoffMs);
+        helloRetryAtNs = System.nanoTime() + helloBackoffMs * 1_000_000L;
+    }
+
+    private ClientConnection connection(Socket socket, Set<String> caps) throws IOException {
+        return new ClientConnection(socket, caps, mapper, (int) READ_TIMEOUT.toMillis());
+    }
+
+    private Socket open() throws IOException {
+        Socket socket = new Socket();
+        try {
+            socket.setTcpNoDelay(true);   // small request/response lines: don't wait for Nagle
+            socket.setKeepAlive(true);
+            socket.connect(new InetSocketAddress(host, port), (int) CONNECT_TIMEOUT.toMillis());
+            socket.setSoTimeout((int) READ_TIMEOUT.toMillis());
+            return socket;
+        } catch (IOException e) {
+            socket.close();
+            throw e;
+        }
     }
 }
@@ -0,0 +1,204 @@
+package org.oosd.tools;
+
+import org.oosd.core.AiWeightsStore;
+import org.oosd.game.AiController;
+import org.oosd.game.BoardFeatures;
+import org.oosd.game.LinearEvaluator;
+import org.oosd.game.SelfPlay;
+import org.oosd.game.TranspositionCache;
+
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Headless tuner for the AI's {@link LinearEvaluator} weights.
+ *
+ * Noisy cross-entropy method: each generation samples weight vectors from a
+ * Gaussian, plays every sample on the same seeded games (so samples are compared
+ * on identical piece sequences), and refits the Gaussian to the elite fraction.
+ * The best weights seen so far (the champion) play each generation too and are
+ * only replaced by a sample that beats them on the same games. Games run on a
+ * fixed pool with one thread per core by default; results do not depend on the
+ * thread count.
+ *
+ * Games are played by {@link SelfPlay}, i.e. with the fixed-depth planner, so
+ * the weights are fitted to that planner. The beam search live sides use with
+ * a think time scores with the same evaluator, but is not what is tuned here.
+ *
+ * Usage: {@code AiTuner [--generations N] [--population N] [--games N]
+ * [--pieces N] [--threads N] [--seed N] [--elite F] [--out FILE]}.
+ * Without {@code --out} the champion is written to the file AiController loads.
+ */
+public final class AiTuner {
+
+    /** Tuning settings; fitness is mean lines cleared per game. */
+    public record Options(int generations, int population, int games, int maxPieces,
+                          int threads, long seed, double eliteFraction, Path out) {
+
+        public static Options defaults() {
+            return new Options(20, 48, 12, 500, Runtime.getRuntime().availableProcessors(),
+                    1L, 0.2, AiWeightsStore.file());
+        }
+    }
+
+    /** Tuned weights and their fitness on the last generation's games. */
+    public record Result(LinearEvaluator best, double fitness, long pieces) { }
+
+    /** Extra sampling noise at generation 0, fading to 0 (keeps sigma from collapsing early). */
+    private static final double NOISE = 0.25;
+    private static final double MIN_SIGMA = 0.02;
+    private static final int CACHE_ENTRIES = 1 << 14;
+
+    private final Options options;
+    private final PrintStream log;
+
+    public AiTuner(Options options, PrintStream log) {
+        this.options = options;
+        this.log = log;
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        Options o = parse(args);
+        Result r = new AiTuner(o, System.out).tune();
+        AiWeightsStore.save(new AiWeightsStore.Weights(LinearEvaluator.NAME, r.best().toNamed()), o.out());
+        System.out.printf("best %.2f lines/game, wrote %s%n", r.fitness(), o.out().toAbsolutePath());
+    }
+
+    /** Run every generation and return the champion. */
+    public Result tune() throws InterruptedException {
+        int dims = BoardFeatures.COUNT;
+        int population = Math.max(2, options.population());
+        int elites = Math.max(1, (int) Math.round(population * options.eliteFraction()));
+        Random rnd = new Random(options.seed());
+
+        double[] mean = LinearEvaluator.defaults().weights();
+        double[] sigma = new double[dims];
+        for (int i = 0; i < dims; i++) sigma[i] = Math.max(0.1, 0.5 * Math.abs(mean[i]));
+
+        LinearEvaluator champion = LinearEvaluator.defaults();
+        double championFitness = Double.NaN;
+        long pieces = 0;
+
+        ExecutorService workers = Executors.newFixedThreadPool(Math.max(1, options.threads()));
+        try {
+            for (int gen = 0; gen < options.generations(); gen++) {
+                long start = System.nanoTime();
+
+                // slot 0 is the champion, the rest are fresh samples
+                List<LinearEvaluator> candidates = new ArrayList<>(population + 1);
+                candidates.add(champion);
+                for (int k = 0; k < population; k++) {
+                    double[] w = new double[dims];
+                    for (int i = 0; i < dims; i++) w[i] = mean[i] + sigma[i] * rnd.nextGaussian();
+                    candidates.add(new LinearEvaluator(w));
+                }
+
+                long[] seeds = new long[options.games()];
+                for (int g = 0; g < seeds.length; g++) seeds[g] = rnd.nextLong();
+
+                double[] fitness = new double[candidates.size()];
+                long played = evaluate(workers, candidates, seeds, fitness);
+                pieces += played;
+
+                // elites among the samples, best first (index order breaks ties)
+                Integer[] order = new Integer[population];
+                for (int k = 0; k < population; k++) order[k] = k + 1;
+                Arrays.sort(order, (a, b) -> Double.compare(fitness[b], fitness[a]));
+
+                championFitness = fitness[0];
+                if (fitness[order[0]] > championFitness) {
+                    champion = candidates.get(order[0]);
+                    championFitness = fitness[order[0]];
+                }
+
+                // refit the sampling distribution to the elites
+                double noise = NOISE * Math.max(0.0, 1.0 - (double) gen / options.generations());
+                double eliteMean = 0.0;
+                for (int i = 0; i < dims; i++) {
+                    double sum = 0.0, sq = 0.0;
+                    for (int e = 0; e < elites; e++) {
+                        double v = candidates.get(order[e]).weights()[i];
+                        sum += v;
+                        sq += v * v;
+                    }
+                    mean[i] = sum / elites;
+                    double var = Math.max(0.0, sq / elites - mean[i] * mean[i]);
+                    sigma[i] = Math.max(MIN_SIGMA, Math.sqrt(var + noise));
+                }
+                for (int e = 0; e < elites; e++) eliteMean += fitness[order[e]];
+
+                double secs = (System.nanoTime() - start) / 1e9;
+                if (log != null) {
+                    log.printf("gen %2d  champion %7.2f  elite %7.2f  best sample %7.2f  %.1fs  %,.0f pieces/s%n",
+                            gen, championFitness, eliteMean / elites, fitness[order[0]], secs, played / secs);
+                }
+            }
+        } finally {
+            workers.shutdownNow();
+        }
+        return new Result(champion, championFitness, pieces);
+    }
+
+    /* Play every candidate on every seed; fills mean lines per candidate, returns pieces played. */
+    private long evaluate(ExecutorService workers, List<LinearEvaluator> candidates, long[] seeds, double[] fitness)
+            throws InterruptedException {
+        List<Callable<SelfPlay.Result>> games = new ArrayList<>(candidates.size() * seeds.length);
+        for (LinearEvaluator weights : candidates) {
+            AiController ai = new AiController(null, null, new TranspositionCache(CACHE_ENTRIES));
+            ai.setEvaluator(weights);
+            for (long seed : seeds) games.add(() -> SelfPlay.play(ai, seed, options.maxPieces()));
+        }
+
+        List<Future<SelfPlay.Result>> results = workers.invokeAll(games);
+        long pieces = 0;
+        for (int i = 0; i < results.size(); i++) {
+            SelfPlay.Result r;
+            try {
+                r = results.get(i).get();
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("self-play game failed", e.getCause());
+            }
+            fitness[i / seeds.length] += (double) r.lines() / seeds.length;
+            pieces += r.pieces();
+        }
+        return pieces;
+    }
+
+    /** Parse {@code --name value} pairs over the defaults. */
+    static Options parse(String[] args) {
+        Options d = Options.defaults();
+        int generations = d.generations(), population = d.population(), games = d.games();
+        int maxPieces = d.maxPieces(), threads = d.threads();
+        long seed = d.seed();
+        double elite = d.eliteFraction();
+        Path out = d.out();
+
+        for (int i = 0; i < args.length; i++) {
+            String key = args[i];
+            if (i + 1 >= args.length) throw new IllegalArgumentException("missing value for " + key);
+            String value = args[++i];
+            switch (key) {
+                case "--generations" -> generations = Integer.parseInt(value);
+                case "--population"  -> population = Integer.parseInt(value);
+                case "--games"       -> games = Integer.parseInt(value);
+                case "--pieces"      -> maxPieces = Integer.parseInt(value);
+                case "--threads"     -> threads = Integer.parseInt(value);
+                case "--seed"        -> seed = Long.parseLong(value);
+                case "--elite"       -> elite = Double.parseDouble(value);
+                case "--out"         -> out = Paths.get(value);
+                default -> throw new IllegalArgumentException("unknown option " + key);
+            }
+        }
+        return new Options(generations, population, games, maxPieces, threads, seed, elite, out);
+    }
+}
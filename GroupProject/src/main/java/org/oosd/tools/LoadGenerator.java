@@ -0,0 +1,267 @@
+package org.oosd.tools;
+
+import org.oosd.core.GameConfig;
+import org.oosd.game.Board;
+import org.oosd.game.GameEngine;
+import org.oosd.game.LatencyHistogram;
+import org.oosd.game.PieceBag;
+import org.oosd.game.ShapeMask;
+import org.oosd.game.Tetromino;
+import org.oosd.net.MoveBatcher;
+import org.oosd.net.MoveServer;
+import org.oosd.net.MoveSession;
+import org.oosd.net.OpMove;
+import org.oosd.net.PureGame;
+import org.oosd.net.TetrisClient;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.PrintStream;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Load generator for the move-request protocol.
+ *
+ * Simulates N headless games at once, each on its own virtual thread with its
+ * own {@link TetrisClient} (so its own connection, like separate players). A
+ * game sends its board, drops the current piece where the server says and
+ * moves on; a topped-out board starts over. Each game sends at a fixed rate
+ * (0 = back to back), spread evenly so games don't fire together.
+ *
+ * Latency is measured from when a request was due, not when it went out, so a
+ * server that falls behind shows up in the tail instead of quietly lowering
+ * the request rate. Requests due during the warm-up are not counted.
+ *
+ * Usage: {@code LoadGenerator [--host H] [--port N] [--embedded] [--binary]
+ * [--sessions] [--batched] [--games N] [--rate R] [--seconds S] [--warmup S]
+ * [--seed N]}. {@code --embedded} starts a {@link MoveServer} in this JVM and
+ * targets it; {@code --sessions} sends board deltas through a {@link MoveSession}
+ * per game; {@code --batched} makes every game share one client whose
+ * {@link MoveBatcher} coalesces their requests. Both imply {@code --binary}.
+ */
+public final class LoadGenerator {
+
+    /**
+     * @param rate requests per second per game, 0 = as fast as replies come
+     */
+    public record Options(String host, int port, boolean embedded, boolean binary, boolean sessions,
+                          boolean batched, int games, double rate, Duration duration, Duration warmup,
+                          long seed) {
+
+        public static Options defaults() {
+            return new Options("localhost", MoveServer.DEFAULT_PORT, false, false, false, false, 16,
+                    10.0, Duration.ofSeconds(10), Duration.ofSeconds(2), 1L);
+        }
+    }
+
+    /**
+     * Counts over the measured period.
+     *
+     * @param invalid replies that named a placement the piece cannot take
+     * @param toppedOut games that filled up and restarted
+     */
+    public record Result(long requests, long errors, long invalid, long toppedOut,
+                         double seconds, LatencyHistogram latency) {
+
+        public double requestsPerSecond() { return requests / Math.max(1e-9, seconds); }
+
+        @Override
+        public String toString() {
+            return String.format("requests %d in %.1f s = %.1f req/s, errors %d, invalid moves %d, top-outs %d%n"
+                            + "latency p50 %.2f ms  p99 %.2f ms  p99.9 %.2f ms  max %.2f ms",
+                    requests, seconds, requestsPerSecond(), errors, invalid, toppedOut,
+                    ms(latency.valueAtPercentile(50)), ms(latency.valueAtPercentile(99)),
+                    ms(latency.valueAtPercentile(99.9)), ms(latency.max()));
+        }
+
+        private static double ms(long nanos) { return nanos / 1e6; }
+    }
+
+    private final Options options;
+    private final PrintStream log;
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder invalid = new LongAdder();
+    private final LongAdder toppedOut = new LongAdder();
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    public LoadGenerator(Options options, PrintStream log) {
+        this.options = options;
+        this.log = log;
+    }
+
+    public static void main(String[] args) throws Exception {
+        System.out.println(new LoadGenerator(parse(args), System.out).run());
+    }
+
+    /** Run every game for warm-up plus duration and return the measured counts. */
+    public Result run() throws IOException, InterruptedException {
+        MoveServer server = options.embedded() ? new MoveServer(0).start() : null;
+        String host = (server != null) ? "localhost" : options.host();
+        int port = (server != null) ? server.port() : options.port();
+        if (log != null) {
+            String mode = options.batched() ? " (batched)" : options.sessions() ? " (sessions)"
+                    : options.binary() ? " (binary)" : "";
+            log.printf("%d games at %s req/s each against %s:%d%s%n", options.games(),
+                    options.rate() > 0 ? options.rate() : "max", host, port, mode);
+        }
+
+        int games = Math.max(1, options.games());
+        long measureFrom = System.nanoTime() + options.warmup().toNanos();
+        long endNs = measureFrom + options.duration().toNanos();
+        TetrisClient shared = options.batched() ? new TetrisClient(host, port, games) : null;
+        MoveBatcher batcher = null;
+        if (shared != null) {
+            shared.setBinaryPreferred(true);
+            batcher = shared.batcher();
+        }
+        try (ExecutorService pool = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < games; i++) {
+                int index = i;
+                MoveBatcher b = batcher;
+                pool.submit(() -> {
+                    play(index, games, host, port, b, measureFrom, endNs);
+                    return null;
+                });
+            }
+        } finally {
+            if (shared != null) {
+                if (log != null) log.printf("%d batches, %.1f boards each%n", batcher.batchesSent(),
+                        batcher.requestsSent() / Math.max(1.0, batcher.batchesSent()));
+                batcher.close();
+                shared.close();
+            }
+            if (server != null) {
+                if (log != null) log.println("server: " + server.stats());
+                server.close();
+            }
+        }
+        double seconds = options.duration().toNanos() / 1e9;
+        return new Result(requests.sum(), errors.sum(), invalid.sum(), toppedOut.sum(), seconds, latency);
+    }
+
+    /** One blocking move request, however it is sent. */
+    private interface Mover {
+        OpMove request(PureGame game) throws IOException;
+    }
+
+    private void play(int index, int games, String host, int port, MoveBatcher batcher,
+                      long measureFrom, long endNs) throws InterruptedException {
+        GameConfig cfg = GameConfig.get();
+        Board board = Board.occupancyOnly(cfg.rows(), cfg.cols());
+        PieceBag bag = new PieceBag(options.seed() + index);
+        long intervalNs = (options.rate() > 0) ? (long) (1e9 / options.rate()) : 0L;
+        long due = System.nanoTime() + intervalNs * index / games;
+
+        try (TetrisClient client = new TetrisClient(host, port, 1)) {
+            client.setBinaryPreferred(options.binary() || options.sessions());
+            Mover mover;
+            if (batcher != null) mover = game -> await(batcher.submit(game));
+            else if (options.sessions()) mover = client.openSession()::requestMove;
+            else mover = client::requestMove;
+            Tetromino next = bag.next();
+            while (true) {
+                long now = System.nanoTime();
+                if (intervalNs == 0) due = now;
+                else if (due > now) Thread.sleep(Duration.ofNanos(due - now));
+                if (due >= endNs) return;
+
+                Tetromino t = next;
+                next = bag.next();
+                int spawn = GameEngine.spawnColumn(cfg.spawnCol(), t, board.cols());
+                if (!board.canPlace(t, 0, 0, spawn)) {
+                    board.clear();
+                    if (due >= measureFrom) toppedOut.increment();
+                }
+
+                boolean counted = due >= measureFrom;
+                OpMove move = null;
+                try {
+                    move = mover.request(snapshot(board, t, next));
+                    if (counted) {
+                        latency.record(System.nanoTime() - due);
+                        requests.increment();
+                    }
+                } catch (IOException e) {
+                    if (counted) errors.increment();
+                }
+                due += intervalNs;
+                if (move != null && !drop(board, t, move.opRotate(), move.opX())) {
+                    if (counted) invalid.increment();
+                    drop(board, t, 0, spawn);
+                }
+            }
+        }
+    }
+
+    private static OpMove await(CompletableFuture<OpMove> f) throws IOException {
+        try {
+            return f.get();
+        } catch (ExecutionException e) {
+            throw (e.getCause() instanceof IOException io) ? io : new IOException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted waiting for a batch");
+        }
+    }
+
+    /* Teleport the piece onto its landing row; false if it does not fit there. */
+    private static boolean drop(Board board, Tetromino t, int rot, int col) {
+        if (rot < 0 || rot > 3) return false;
+        ShapeMask shape = t.mask(rot);
+        if (!board.canPlace(shape, 0, col)) return false; // also keeps every cell on the board
+        board.place(shape, board.landingRow(shape, 0, col), col, 1);
+        board.clearFullRows();
+        return true;
+    }
+
+    private static PureGame snapshot(Board board, Tetromino current, Tetromino next) {
+        int[][] cells = new int[board.rows()][board.cols()];
+        for (int r = 0; r < board.rows(); r++) {
+            for (int c = 0; c < board.cols(); c++) cells[r][c] = board.empty(r, c) ? 0 : 1;
+        }
+        return new PureGame(board.cols(), board.rows(), cells, current.shape(0), next.shape(0));
+    }
+
+    /** Parse {@code --name value} pairs (and the flags) over the defaults. */
+    static Options parse(String[] args) {
+        Options d = Options.defaults();
+        String host = d.host();
+        int port = d.port(), games = d.games();
+        boolean embedded = d.embedded(), binary = d.binary(), sessions = d.sessions(), batched = d.batched();
+        double rate = d.rate();
+        Duration duration = d.duration(), warmup = d.warmup();
+        long seed = d.seed();
+
+        for (int i = 0; i < args.length; i++) {
+            String key = args[i];
+            if (key.equals("--embedded")) { embedded = true; continue; }
+            if (key.equals("--binary"))   { binary = true; continue; }
+            if (key.equals("--sessions")) { sessions = true; continue; }
+            if (key.equals("--batched"))  { batched = true; continue; }
+            if (i + 1 >= args.length) throw new IllegalArgumentException("missing value for " + key);
+            String value = args[++i];
+            switch (key) {
+                case "--host"    -> host = value;
+                case "--port"    -> port = Integer.parseInt(value);
+                case "--games"   -> games = Integer.parseInt(value);
+                case "--rate"    -> rate = Double.parseDouble(value);
+                case "--seconds" -> duration = seconds(value);
+                case "--warmup"  -> warmup = seconds(value);
+                case "--seed"    -> seed = Long.parseLong(value);
+                default -> throw new IllegalArgumentException("unknown option " + key);
+            }
+        }
+        return new Options(host, port, embedded, binary, sessions, batched, games, rate, duration, warmup, seed);
+    }
+
+    private static Duration seconds(String value) {
+        return Duration.ofMillis(Math.round(Double.parseDouble(value) * 1000));
+    }
+}
@@ -143,6 +143,20 @@ public class ConfigurationView extends AbstractScreen {
             SettingsStore.save(cfg);
         });
 
+        // --- AI think time (beam search budget per move, 0 = fixed-depth planner) ---
+        Label thinkLbl = label("AI Think Time (ms):");
+        Slider think = slider(0, GameConfig.MAX_AI_THINK_MS, cfg.aiThinkMs());
+        think.setMajorTickUnit(50);
+        think.setMinorTickCount(9);   // 5 ms steps
+        think.setBlockIncrement(5);
+        Label thinkVal = valueLabel(think);
+        think.valueProperty().addListener((obs, o, n) -> {
+            cfg.setAiThinkMs(n.intValue());
+            SettingsStore.save(cfg);
+        });
+        grid.add(thinkLbl, 0, row); grid.add(think, 1, row);
+        grid.add(thinkVal, 2, row++); GridPane.setHalignment(thinkVal, HPos.RIGHT);
+
 
 
         // Back button + footer
@@ -19,16 +19,22 @@ import javafx.scene.text.Font;
 import javafx.scene.text.FontWeight;
 
 import org.oosd.core.AbstractScreen;
+import org.oosd.core.AiMetricsStore;
 import org.oosd.core.GameConfig;
 import org.oosd.core.HighScoreStore;
 import org.oosd.game.*;
 import org.oosd.ui.sprites.PieceSprite;
-import org.oosd.ui.sprites.Sprite;
 import org.oosd.ui.sprites.SpriteFactory;
 
+import java.time.Instant;
 import java.util.*;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
 
-/* Honors per-player AI (Human/AI for P1 & P2) as configured in GameConfig. */
+/* Honors per-player AI (Human/AI for P1 & P2) as configured in GameConfig.
+   Thin view over GameEngine: collects key input, steps the engine, renders its state. */
 public class GameView extends AbstractScreen {
 
     /* Config-derived sizing */
@@ -38,25 +44,14 @@ public class GameView extends AbstractScreen {
     private final int players;           // 1 or 2
     private final Runnable onExitToMenu;
 
-    /* Shared piece generator (7-bag) */
-    private static final class PieceBag {
-        private final Random rng = new Random(System.nanoTime());
-        private final ArrayDeque<Tetromino> bag = new ArrayDeque<>(7);
-        synchronized Tetromino next() { if (bag.isEmpty()) refill(); return bag.removeFirst(); }
-        private void refill() {
-            List<Tetromino> list = new ArrayList<>(List.of(Tetromino.values()));
-            Collections.shuffle(list, rng);
-            bag.addAll(list);
-        }
-    }
-    private final PieceBag pieceBag = new PieceBag();
+    /* Rules live in the headless engine */
+    private final GameEngine engine;
+    private final AiController aiController;
 
-    /* Per-player container */
+    /* Per-player view container (game state lives in GameEngine.Side) */
     private static final class Side {
         final int id; // 1 or 2
-        final Board board = new Board();
-        final List<GameEntity> entities = new ArrayList<>();
-        final List<Sprite<?, ?>> sprites = new ArrayList<>();
+        final GameEngine.Side state;
 
         // layers
         final Group gridLayer  = new Group();
@@ -68,6 +63,7 @@ public class GameView extends AbstractScreen {
         final Label linesLabel = new Label("LINES 0");
         final Label timeLabel  = new Label("TIME 00:00");
         final Label pauseOverlay = new Label();
+        final Label debugOverlay = new Label();   // F3: AI latency / counters
 
         // NEXT preview (per side)
         final StackPane nextBox = new StackPane();
@@ -76,41 +72,52 @@ public class GameView extends AbstractScreen {
         // board node for scaling
         StackPane boardSurface;
 
-        // state
-        Tetromino nextPiece = null;
+        // sprite for the engine's current active piece
+        ActivePieceEntity spritePiece = null;
+        PieceSprite pieceSprite = null;
+
+        // mirrored from the engine after every step/command
         boolean paused = false;
         boolean gameOver = false;
         boolean scoreSaved = false;   // prevent multiple prompts
-        int score = 0;
-        int lines = 0;
-        long runStartNanos = 0L;
-        boolean spawnQueued = false;
 
         // per-side AI enable (copied from GameConfig on construction)
         boolean ai = false;
 
-        // AI timers/state per side
-        long aiLastMoveNs = 0L;
-        long aiLastDropNs = 0L;
-        long aiLastRotateNs = 0L;
-        int  aiLastTargetCol = 5;
+        // key taps not yet applied, per GameEngine.Input: each engine step takes one of each,
+        // so repeated taps of a key survive a frame hitch and spread over the catch-up steps
+        final int[] pendingTaps = new int[INPUTS.length];
 
-        // Grav and input clocks
-        long lastGravityNs = 0L;
-        long lastHorizNs   = 0L;
+        Side(GameEngine.Side state) {
+            this.id = state.id();
+            this.state = state;
+        }
 
-        // NEW: manual soft-drop cooldown marker
-        long lastManualDropNs = 0L;
+        void syncFlags() {
+            paused = state.isPaused();
+            gameOver = state.isGameOver();
+        }
 
-        Side(int id) { this.id = id; }
-    }
+        void queueTap(GameEngine.Input in) {
+            int i = in.ordinal();
+            if (pendingTaps[i] < MAX_STEPS_PER_FRAME) pendingTaps[i]++; // bounded like the catch-up batch
+        }
 
-    // Return the gravity step interval (nanoseconds) based on cells-per-second.
-    private long gravityIntervalNs() {
-        double cps = Math.max(0.1, GameConfig.get().gravityCps());
-        return (long) (1_000_000_000L / cps);
+        /* One pending tap of each input, as the next step's input mask. */
+        int takeInputs() {
+            int inputs = 0;
+            for (GameEngine.Input in : INPUTS) {
+                if (pendingTaps[in.ordinal()] > 0) {
+                    pendingTaps[in.ordinal()]--;
+                    inputs |= in.bit();
+                }
+            }
+            return inputs;
+        }
     }
 
+    private static final GameEngine.Input[] INPUTS = GameEngine.Input.values();
+
     /* Sides (1 or 2) */
     private final List<Side> sides = new ArrayList<>(2);
 
@@ -118,54 +125,86 @@ public class GameView extends AbstractScreen {
     private int boardW() { return GameConfig.get().cols() * TILE; }
     private int boardH() { return GameConfig.get().rows() * TILE; }
 
-    private final AiController aiController = new AiController();
+    /* AI planning threads: one long-lived daemon per side, shared by every game view, so the
+       planner's per-thread scratch boards and move generators are built once, not per plan */
+    private static final Executor AI_PLANNER =
+            Executors.newFixedThreadPool(2, Thread.ofPlatform().name("ai-planner-", 0).daemon().factory());
+
+    /* Loop: fixed-rate simulation driven by an accumulator, rendering interpolates */
+    private static final int  MAX_STEPS_PER_FRAME = 8;                        // bounded catch-up batch
+    private static final long MAX_BACKLOG_NS = 250_000_000L;                  // older backlog is dropped
+    private long lastFrameNs = 0L;
+    private long accumulatorNs = 0L;
+    private final int[] frameInputs = new int[2];
+
+    /* F3 debug overlay, refreshed a few times a second */
+    private static final long DEBUG_REFRESH_NS = 250_000_000L;
+    private boolean debugVisible = false;
+    private long lastDebugNs = 0L;
 
-    /* Loop */
     private final AnimationTimer loop = new AnimationTimer() {
         @Override public void handle(long now) {
-            for (Side s : sides) {
-                // drive AI before tick when active, unpaused, not game over
-                if (s.ai && !s.paused && !s.gameOver) {
-                    aiController.update(
-                            s.id,
-                            s.board,
-                            (ActivePieceEntity) s.entities.stream()
-                                    .filter(ge -> ge.entityType() == EntityType.ACTIVE_PIECE)
-                                    .findFirst().orElse(null),
-                            s.nextPiece,
-                            now,
-                            TILE
-                    );
-                }
-                enforceGravity(s, now);
-                tickSide(s, now);
+            long frame = (lastFrameNs == 0L) ? 0L : now - lastFrameNs;
+            lastFrameNs = now;
+            accumulatorNs = Math.min(accumulatorNs + frame, MAX_BACKLOG_NS);
+
+            int steps = 0;
+            while (accumulatorNs >= GameEngine.TICK_NANOS && steps < MAX_STEPS_PER_FRAME) {
+                // one tap per key per step; taps left over go to the following steps
+                for (int i = 0; i < sides.size(); i++) frameInputs[i] = sides.get(i).takeInputs();
+                engine.step(frameInputs, GameEngine.TICK_NANOS);
+                accumulatorNs -= GameEngine.TICK_NANOS;
+                steps++;
             }
-        }
-    };
 
-    private void tickSide(Side S, long now) {
-        if (!S.paused) {
-            for (GameEntity e : S.entities) e.tick(now);
-            removeDeadAndRespawn(S);
-            if (S.spawnQueued && !S.gameOver) { S.spawnQueued = false; spawnActivePiece(S); }
-            for (Sprite<?, ?> s : S.sprites) if (s instanceof PieceSprite ps) ps.syncToEntity();
-
-            int cleared = S.board.clearFullRows();
-            if (cleared > 0) {
-                S.lines += cleared;
-                switch (cleared) {
-                    case 1 -> S.score += 100;
-                    case 2 -> S.score += 300;
-                    case 3 -> S.score += 500;
-                    case 4 -> S.score += 800;
-                    default -> S.score += cleared * 100;
-                }
-                if (GameConfig.get().isSfxEnabled()) Sound.playLine();
-                showFlyingMessage(S, "+" + cleared, boardW() / 2.0 - TILE, boardH() / 2.0);
+            double alpha = Math.min(1.0, (double) accumulatorNs / GameEngine.TICK_NANOS);
+            for (Side s : sides) renderSide(s, alpha);
+
+            if (debugVisible && now - lastDebugNs >= DEBUG_REFRESH_NS) {
+                lastDebugNs = now;
+                for (Side s : sides) updateDebugOverlay(s);
             }
         }
+    };
+
+    private void renderSide(Side S) {
+        renderSide(S, 1.0);
+    }
+
+    private void renderSide(Side S, double alpha) {
+        S.syncFlags();
+        syncPieceSprite(S, alpha);
         drawPlacedBlocks(S);
-        updateHud(S, now);
+        updateHud(S);
+    }
+
+    /* Engine callbacks (fired on the FX thread from inside engine.step/restart) */
+    private final GameEngine.Listener engineListener = new GameEngine.Listener() {
+        @Override public void onSpawn(GameEngine.Side side) {
+            drawNextPreview(viewOf(side));
+        }
+
+        @Override public void onLinesCleared(GameEngine.Side side, int cleared) {
+            if (GameConfig.get().isSfxEnabled()) Sound.playLine();
+            showFlyingMessage(viewOf(side), "+" + cleared, boardW() / 2.0 - TILE, boardH() / 2.0);
+        }
+
+        @Override public void onGameOver(GameEngine.Side side) {
+            Side S = viewOf(side);
+            S.syncFlags();
+            S.pauseOverlay.setText("Game Over\nESC to Main Menu\nR to Restart");
+            S.pauseOverlay.setVisible(true);
+            if (GameConfig.get().isSfxEnabled()) Sound.playGameOver();
+        }
+
+        @Override public void onRotate(GameEngine.Side side) {
+            if (GameConfig.get().isSfxEnabled()) Sound.playRotate();
+        }
+    };
+
+    private Side viewOf(GameEngine.Side side) {
+        for (Side s : sides) if (s.state == side) return s;
+        throw new IllegalStateException("Unknown side " + side.id());
     }
 
     /* ctor / layout */
@@ -183,13 +222,19 @@ public class GameView extends AbstractScreen {
         // copy per-player AI flags from GameConfig
         final GameConfig cfg = GameConfig.get();
 
-        sides.add(new Side(1));
-        if (this.players == 2) sides.add(new Side(2));
+        // AI plans run on planner threads (candidates scored on the common pool) so frame
+        // times do not depend on AI depth; the think budget lets the beam search use spare CPU
+        aiController = new AiController(ForkJoinPool.commonPool(), AI_PLANNER);
+        aiController.setSearchBudget(TimeUnit.MILLISECONDS.toNanos(cfg.aiThinkMs()));
+        aiController.setEvaluator(BoardEvaluator.fromConfig()); // ~/.oosd-tetris/ai-weights.json
+        engine = new GameEngine(this.players, new PieceBag(), aiController);
+        for (GameEngine.Side state : engine.sides()) sides.add(new Side(state));
 
-        // apply AI flags to Side objects
+        // apply AI flags to Side objects (and the engine that drives them)
         for (Side s : sides) {
             if (s.id == 1) s.ai = cfg.isAiP1Enabled();
             if (s.id == 2) s.ai = cfg.isAiP2Enabled();
+            engine.setAi(s.id, s.ai);
         }
         HBox row = new HBox(this.players == 1 ? 16 : 24);
         row.getStyleClass().add("game-row");
@@ -221,11 +266,9 @@ public class GameView extends AbstractScreen {
         setFocusTraversable(true);
         setOnKeyPressed(this::onKey);
 
-        for (Side s : sides) {
-            s.nextPiece = pieceBag.next();
-            spawnActivePiece(s);
-            drawNextPreview(s);
-        }
+        engine.setListener(engineListener);
+        engine.start();
+        for (Side s : sides) renderSide(s);
 
         widthProperty().addListener((o, ov, nv) -> applyScaling());
         heightProperty().addListener((o, ov, nv) -> applyScaling());
@@ -271,6 +314,14 @@ public class GameView extends AbstractScreen {
         S.boardSurface.getChildren().add(S.pauseOverlay);
         StackPane.setAlignment(S.pauseOverlay, Pos.CENTER);
 
+        S.debugOverlay.setTextFill(Color.LIGHTGREEN);
+        S.debugOverlay.setFont(Font.font("Monospaced", 11));
+        S.debugOverlay.setStyle("-fx-background-color: rgba(0,0,0,0.65); -fx-padding: 4;");
+        S.debugOverlay.setMouseTransparent(true);
+        S.debugOverlay.setVisible(false);
+        S.boardSurface.getChildren().add(S.debugOverlay);
+        StackPane.setAlignment(S.debugOverlay, Pos.TOP_LEFT);
+
         // Return a horizontal layout: [Board][HUD]
         HBox sideBox = new HBox(16, S.boardSurface, hud);
         sideBox.setAlignment(Pos.CENTER_LEFT);
@@ -303,11 +354,8 @@ public class GameView extends AbstractScreen {
     /* Lifecycle */
     @Override public void onShow() {
         requestFocus();
-        long now = System.nanoTime();
-        for (Side s : sides) {
-            s.runStartNanos = now;
-            s.lastGravityNs = now;
-        }
+        lastFrameNs = 0L; // first frame after (re)start advances the engine by zero
+        accumulatorNs = 0L;
         if (GameConfig.get().isMusicEnabled()) Sound.startGameBgm();
         loop.start();
     }
@@ -315,66 +363,22 @@ public class GameView extends AbstractScreen {
     @Override public void onHide() {
         loop.stop();
         Sound.stopBgm();
+        dumpAiMetrics();
     }
 
-    /* Spawning / removal */
-    private void spawnActivePiece(Side S) {
-        if (S.gameOver) return;
-        if (S.nextPiece == null) S.nextPiece = pieceBag.next();
-
-        Tetromino t = S.nextPiece;
-        int desiredCol = GameConfig.get().spawnCol();
-        int width = pieceWidth(t);
-        int col = Math.max(0, Math.min(desiredCol, GameConfig.get().cols() - width));
-
-        if (!canPlaceAt(S.board, t, col)) {
-            triggerGameOver(S);
-            return;
-        }
-
-        ActivePieceEntity piece = new ActivePieceEntity(S.board, t, col);
-        addEntityWithSprite(S, piece);
-
-        S.nextPiece = pieceBag.next();
-        S.lastGravityNs = System.nanoTime();
-        drawNextPreview(S);
-    }
-
-    private void addEntityWithSprite(Side S, GameEntity e) {
-        S.entities.add(e);
-        Sprite<?, ?> s = SpriteFactory.create(e);
-        S.sprites.add(s);
-        S.boardLayer.getChildren().add(s.getNode());
-    }
-
-    private void removeDeadAndRespawn(Side S) {
-        for (Iterator<GameEntity> it = S.entities.iterator(); it.hasNext();) {
-            GameEntity e = it.next();
-            if (e.isDead()) {
-                it.remove();
-                Sprite<?, ?> s = findSprite(S, e);
-                if (s != null) {
-                    S.sprites.remove(s);
-                    S.boardLayer.getChildren().remove(s.getNode());
-                }
-                if (e.entityType() == EntityType.ACTIVE_PIECE && !S.gameOver) {
-                    S.spawnQueued = true;
-                }
-            }
+    /* Append one CSV row per AI side that planned anything, then start counting afresh. */
+    private void dumpAiMetrics() {
+        String time = Instant.now().toString();
+        List<String> rows = new ArrayList<>();
+        for (Side s : sides) {
+            if (!s.ai) continue;
+            AiMetrics m = aiController.metrics(s.id);
+            AiMetrics.Snapshot snap = m.snapshot();
+            if (snap.plans() == 0) continue;
+            rows.add(time + "," + snap.toCsv());
+            m.reset();
         }
-    }
-
-    private Sprite<?, ?> findSprite(Side S, GameEntity e) {
-        for (Sprite<?, ?> s : S.sprites) if (s.getEntity() == e) return s;
-        return null;
-    }
-
-    private void triggerGameOver(Side S) {
-        S.gameOver = true;
-        S.paused = true;
-        S.pauseOverlay.setText("Game Over\nESC to Main Menu\nR to Restart");
-        S.pauseOverlay.setVisible(true);
-        if (GameConfig.get().isSfxEnabled()) Sound.playGameOver();
+        AiMetricsStore.append("time," + AiMetrics.Snapshot.CSV_HEADER, rows);
     }
 
     /*  High scores: defer prompting until exit
@@ -392,7 +396,7 @@ public class GameView extends AbstractScreen {
         loop.stop();
         for (Side s : sides) {
             // Only consider if not already saved, qualifies, and NOT AI
-            if (!s.scoreSaved && qualifiesForHighScore(s.score) && !s.ai) {
+            if (!s.scoreSaved && qualifiesForHighScore(s.state.score()) && !s.ai) {
                 promptHighScore(s);
             }
         }
@@ -403,7 +407,7 @@ public class GameView extends AbstractScreen {
     private void promptHighScore(Side S) {
         TextInputDialog dlg = new TextInputDialog();
         dlg.setTitle("New High Score!");
-        dlg.setHeaderText("Player " + S.id + " scored " + S.score + " points.\n" +
+        dlg.setHeaderText("Player " + S.id + " scored " + S.state.score() + " points.\n" +
                 "Enter a name (max 5 letters/numbers):");
         dlg.setContentText("Name:");
 
@@ -421,13 +425,15 @@ public class GameView extends AbstractScreen {
             String name = result.get().trim().replaceAll("[^A-Za-z0-9]", "").toUpperCase(Locale.ROOT);
             if (name.isEmpty()) name = "PLAYER";
             if (name.length() > 5) name = name.substring(0, 5);
-            HighScoreStore.addScore(name, S.score);
+            HighScoreStore.addScore(name, S.state.score());
             S.scoreSaved = true;
         }
     }
 
     /* Input handling */
     private void onKey(KeyEvent e) {
+        if (e.getCode() == KeyCode.F3) toggleDebugOverlay();
+
         if (players == 1) {
             Side s = sides.getFirst();
 
@@ -455,107 +461,78 @@ public class GameView extends AbstractScreen {
         if (e.getCode() == KeyCode.R && anyPaused) { restartSide(s1); restartSide(s2); }
     }
 
-    private void togglePause(Side s) {
-        s.paused = !s.paused;
-        s.pauseOverlay.setVisible(s.paused);
-    }
-
-    private void handleControls(Side S, KeyCode code,
-                                KeyCode left, KeyCode right, KeyCode rot, KeyCode down) {
-        ActivePieceEntity piece = S.entities.stream()
-                .filter(ge -> ge.entityType() == EntityType.ACTIVE_PIECE)
-                .map(ge -> (ActivePieceEntity) ge)
-                .findFirst().orElse(null);
-
-        if (piece == null || S.paused) return;
-
-        if (code == left) piece.tryLeft();
-        else if (code == right) piece.tryRight();
-        else if (code == rot)  { piece.tryRotateCW(); if (GameConfig.get().isSfxEnabled()) Sound.playRotate(); }
-        else if (code == down) {
-            piece.softDrop();                          // manual drop: no lock
-            S.lastManualDropNs = System.nanoTime();    // start cooldown for gravity
+    private void toggleDebugOverlay() {
+        debugVisible = !debugVisible;
+        lastDebugNs = 0L;
+        for (Side s : sides) {
+            if (debugVisible) updateDebugOverlay(s);
+            s.debugOverlay.setVisible(debugVisible);
         }
     }
 
-    /* ----------  simple AI driver per side ---------- */
-
-    // Simple tempo values tuned for bot
-    private static final long AI_MOVE_INTERVAL_NS   = 180_000_000L;   // ~0.18s
-    private static final long AI_DROP_INTERVAL_NS   = 350_000_000L;   // ~0.35s
-    private static final long AI_ROTATE_INTERVAL_NS = 2_000_000_000L; // ~2.0s
-
-    private void runAI(Side S, long now) {
-        ActivePieceEntity piece = S.entities.stream()
-                .filter(ge -> ge.entityType() == EntityType.ACTIVE_PIECE)
-                .map(ge -> (ActivePieceEntity) ge)
-                .findFirst().orElse(null);
-        if (piece == null) return;
-
-        int px = pieceCol(piece);
-        int targetCol = chooseTargetColumn(S);
-        S.aiLastTargetCol = targetCol;
-
-        if (now - S.aiLastMoveNs >= AI_MOVE_INTERVAL_NS) {
-            if (px < targetCol)      piece.tryRight();
-            else if (px > targetCol) piece.tryLeft();
-            S.aiLastMoveNs = now;
-        }
-
-        if (px == targetCol && (now - S.aiLastDropNs >= AI_DROP_INTERVAL_NS)) {
-            piece.softDropOrLock();
-            S.aiLastDropNs = now;
-        }
-
-        if (px == targetCol && (now - S.aiLastRotateNs >= AI_ROTATE_INTERVAL_NS)) {
-            piece.tryRotateCW();
-            if (GameConfig.get().isSfxEnabled()) Sound.playRotate();
-            S.aiLastRotateNs = now;
+    private void updateDebugOverlay(Side S) {
+        if (!S.ai) {
+            S.debugOverlay.setText("AI off");
+            return;
         }
+        AiMetrics.Snapshot m = aiController.metrics(S.id).snapshot();
+        S.debugOverlay.setText(String.format(
+                "plans %d (fallback %d)%n" +
+                "plan p50 %s  p99 %s%n" +
+                "plan p99.9 %s  max %s%n" +
+                "update p99 %s%n" +
+                "cand %d  pruned %d  capped %d%n" +
+                "scored %d  cache %.0f%%",
+                m.plans(), m.fallbacks(),
+                ms(m.planP50()), ms(m.planP99()), ms(m.planP999()), ms(m.planMax()),
+                ms(m.updateP99()),
+                m.generated(), m.pruned(), m.capped(),
+                m.evaluated(), m.cacheHitRate() * 100));
     }
 
-    private int pieceCol(ActivePieceEntity piece) {
-        double x = piece.x();
-        // If x is in pixels, convert heuristically (works with our entities)
-        if (x > GameConfig.get().cols() + 2) x = x / TILE;
-        return (int) Math.round(x);
+    private static String ms(long nanos) {
+        return String.format("%.2fms", nanos / 1e6);
     }
 
-    private int chooseTargetColumn(Side S) {
-        int cols = GameConfig.get().cols();
-        int rows = GameConfig.get().rows();
-        int[] heights = new int[cols];
-
-        for (int c = 0; c < cols; c++) {
-            int h = 0;
-            for (int r = 0; r < rows; r++) {
-                if (S.board.get(r, c) != 0) { h = rows - r; break; }
-            }
-            heights[c] = h;
-        }
-
-        int minH = Integer.MAX_VALUE;
-        for (int h : heights) minH = Math.min(minH, h);
+    private void togglePause(Side s) {
+        s.paused = engine.togglePause(s.id);
+        s.pauseOverlay.setVisible(s.paused);
+    }
 
-        List<Integer> candidates = new ArrayList<>();
-        for (int c = 0; c < cols; c++) if (heights[c] == minH) candidates.add(c);
+    /* Queue a human input; the engine applies it on its next step. */
+    private void handleControls(Side S, KeyCode code,
+                                KeyCode left, KeyCode right, KeyCode rot, KeyCode down) {
+        if (S.paused) return;
 
-        int center = cols / 2;
-        candidates.sort(Comparator.comparingInt(c -> Math.abs(c - center)));
-        for (int c : candidates) if (c != S.aiLastTargetCol) return c;
-        return candidates.getFirst();
+        if (code == left)       S.queueTap(GameEngine.Input.LEFT);
+        else if (code == right) S.queueTap(GameEngine.Input.RIGHT);
+        else if (code == rot)   S.queueTap(GameEngine.Input.ROTATE);
+        else if (code == down)  S.queueTap(GameEngine.Input.SOFT_DROP);
     }
 
     /* Rendering / HUD */
+    private void syncPieceSprite(Side S, double alpha) {
+        ActivePieceEntity piece = S.state.activePiece();
+        if (piece != S.spritePiece) {
+            if (S.pieceSprite != null) S.boardLayer.getChildren().remove(S.pieceSprite.getNode());
+            S.spritePiece = piece;
+            S.pieceSprite = (piece != null) ? (PieceSprite) SpriteFactory.create(piece) : null;
+            if (S.pieceSprite != null) S.boardLayer.getChildren().add(S.pieceSprite.getNode());
+        }
+        if (S.pieceSprite != null) S.pieceSprite.syncToEntity(alpha);
+    }
+
     private void drawPlacedBlocks(Side S) {
         S.boardLayer.getChildren().removeIf(n -> "placed".equals(n.getUserData()));
 
         Group placed = new Group();
         placed.setUserData("placed");
 
-        for (int r = 0; r < GameConfig.get().rows(); r++) {
-            for (int c = 0; c < GameConfig.get().cols(); c++) {
-                int v = S.board.get(r, c);
+        Board board = S.state.board();
+        for (int r = 0; r < board.rows(); r++) {
+            if (board.rowMask(r) == 0) continue; // nothing to draw on this row
+            for (int c = 0; c < board.cols(); c++) {
+                int v = board.get(r, c);
                 if (v != 0) {
                     Rectangle rect = new Rectangle(TILE, TILE);
                     rect.setTranslateX(c * TILE);
@@ -580,16 +557,17 @@ public class GameView extends AbstractScreen {
 
     private void drawNextPreview(Side S) {
         S.nextLayer.getChildren().clear();
-        if (S.nextPiece == null) return;
+        Tetromino next = S.state.nextPiece();
+        if (next == null) return;
 
-        int[][] m = S.nextPiece.shape(0);
+        int[][] m = next.shape(0);
         int w = (m.length == 0) ? 0 : m[0].length;
         int h = m.length;
 
         int xOff = (4 - w) * TILE / 2;
         int yOff = (4 - h) * TILE / 2;
 
-        Color fill = colorFor(S.nextPiece.colorId());
+        Color fill = colorFor(next.colorId());
 
         for (int r = 0; r < h; r++) for (int c = 0; c < w; c++) if (m[r][c] != 0) {
             double x = c * TILE + xOff, y = r * TILE + yOff;
@@ -610,57 +588,31 @@ public class GameView extends AbstractScreen {
         }
     }
 
-    private void updateHud(Side S, long now) {
-        long elapsedSec = Math.max(0, (now - S.runStartNanos) / 1_000_000_000L);
+    private void updateHud(Side S) {
+        long elapsedSec = Math.max(0, engine.elapsedNanos(S.id) / 1_000_000_000L);
         long mm = elapsedSec / 60, ss = elapsedSec % 60;
         S.timeLabel.setText(String.format("TIME %02d:%02d", mm, ss));
-        S.scoreLabel.setText("SCORE " + S.score);
-        S.linesLabel.setText("LINES " + S.lines);
+        S.scoreLabel.setText("SCORE " + S.state.score());
+        S.linesLabel.setText("LINES " + S.state.lines());
     }
 
     private void restartSide(Side S) {
-        for (int r = 0; r < GameConfig.get().rows(); r++)
-            for (int c = 0; c < GameConfig.get().cols(); c++)
-                S.board.set(r, c, 0);
-
-        S.entities.clear();
-        S.sprites.clear();
         S.boardLayer.getChildren().setAll(S.gridLayer);
-
-        S.score = 0; S.lines = 0;
-        S.paused = false; S.gameOver = false; S.scoreSaved = false;
+        S.spritePiece = null;
+        S.pieceSprite = null;
+        Arrays.fill(S.pendingTaps, 0);
+        S.scoreSaved = false;
         S.pauseOverlay.setText("Game Paused (" + (S.id == 1 ? "P" : "L") + ")\nESC to Main Menu\nR to Restart");
         S.pauseOverlay.setVisible(false);
 
-        S.runStartNanos = System.nanoTime();
-        S.lastGravityNs = S.runStartNanos;
-
-        S.nextPiece = pieceBag.next();
-        spawnActivePiece(S);
-        drawNextPreview(S);
+        engine.restart(S.id);
+        renderSide(S);
 
         requestFocus();
         applyScaling();
     }
 
     /* Helpers */
-    private int pieceWidth(Tetromino t) {
-        int[][] m = t.shape(0);
-        return (m.length == 0) ? 0 : m[0].length;
-    }
-
-    private boolean canPlaceAt(Board board, Tetromino t, int col) {
-        int[][] m = t.shape(0);
-        for (int br = 0; br < m.length; br++) {
-            for (int c = 0; c < m[br].length; c++) if (m[br][c] != 0) {
-                int bc = col + c;
-                if (br >= GameConfig.get().rows() || bc < 0 || bc >= GameConfig.get().cols()) return false;
-                if (board.get(br, bc) != 0) return false;
-            }
-        }
-        return true;
-    }
-
     private void buildGrid(Group into) {
         into.getChildren().clear();
         Color gridColor = Color.color(1,1,1,0.10);
@@ -703,24 +655,6 @@ public class GameView extends AbstractScreen {
         anim.play();
     }
 
-    // Force a down step or lock at fixed wall-clock intervals.
-    private void enforceGravity(Side S, long now) {
-        if (S.paused || S.gameOver) return;
-        if (now - S.lastGravityNs < gravityIntervalNs()) return;
-
-        // NEW: if the player manually soft-dropped very recently, skip this gravity tick
-        if (now - S.lastManualDropNs < 100_000_000L) return; // ~100ms
-
-        ActivePieceEntity piece = S.entities.stream()
-                .filter(ge -> ge.entityType() == EntityType.ACTIVE_PIECE)
-                .map(ge -> (ActivePieceEntity) ge)
-                .findFirst().orElse(null);
-        if (piece == null) return;
-
-        piece.softDropOrLock();
-        S.lastGravityNs = now;
-    }
-
     private Color colorFor(int id) {
         return switch (id) {
             case 1 -> Color.CYAN;
@@ -23,8 +23,8 @@ public class PieceSprite implements Sprite<ActivePieceEntity, Group> {
         group.getChildren().clear();
         blocks.clear();
 
-        int[][] m = entity.piece().type().shape(entity.piece().rot());
-        int colorId = entity.piece().type().colorId();
+        int[][] m = entity.type().shape(entity.rot());
+        int colorId = entity.type().colorId();
         Color fill = colorFor(colorId);
 
         for (int[] ints : m) {
@@ -41,13 +41,20 @@ public class PieceSprite implements Sprite<ActivePieceEntity, Group> {
 
     /** Update the per-block positions from the entity's row/col. */
     public void syncToEntity() {
-        int[][] m = entity.piece().type().shape(entity.piece().rot());
+        syncToEntity(1.0);
+    }
+
+    /** Update positions blended between the last two simulation steps (alpha in [0, 1]). */
+    public void syncToEntity(double alpha) {
+        int[][] m = entity.type().shape(entity.rot());
+        double baseX = entity.renderX(alpha);
+        double baseY = entity.renderY(alpha);
         int i = 0;
         for (int r = 0; r < m.length; r++) {
             for (int c = 0; c < m[r].length; c++) {
                 if (m[r][c] != 0) {
-                    double px = (entity.piece().col() + c) * tile;
-                    double py = (entity.piece().row() + r) * tile;
+                    double px = (baseX + c) * tile;
+                    double py = (baseY + r) * tile;
                     blocks.get(i++).setXY(px, py);
                 }
             }
@@ -0,0 +1,32 @@
+package org.oosd.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AiWeightsStoreTest {
+
+    @Test
+    void jsonRoundTripKeepsEvaluatorAndWeightOrder() {
+        Map<String, Double> values = new LinkedHashMap<>();
+        values.put("lines", 3.4);
+        values.put("holes", -0.82);
+        values.put("tiny", 1.0E-4);
+        AiWeightsStore.Weights w = new AiWeightsStore.Weights("linear", values);
+
+        AiWeightsStore.Weights back = AiWeightsStore.fromJson(AiWeightsStore.toJson(w));
+        assertEquals(w, back);
+        assertEquals(values.keySet().stream().toList(), back.values().keySet().stream().toList());
+    }
+
+    @Test
+    void missingPartsReadAsEmpty() {
+        AiWeightsStore.Weights w = AiWeightsStore.fromJson("{ \"weights\": { \"holes\": -1 } }");
+        assertNull(w.evaluator());
+        assertEquals(Map.of("holes", -1.0), w.values());
+        assertTrue(AiWeightsStore.fromJson("{}").values().isEmpty());
+    }
+}
@@ -0,0 +1,74 @@
+package org.oosd.game;
+
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ActivePieceEntityTest {
+
+    @Test
+    void blockedMoveLeavesStateUntouched() {
+        Board board = new Board(20, 10);
+        ActivePieceEntity piece = new ActivePieceEntity(board, Tetromino.O, 0);
+        PieceState before = piece.piece();
+
+        piece.tryLeft(); // O occupies matrix cols 1..2, so col -1 is still legal
+        piece.tryLeft(); // col -2 would put a cell off the board
+
+        assertEquals(-1, piece.col());
+        assertEquals(before.row(), piece.row());
+        assertNotSame(before, piece.piece(), "snapshot is rebuilt after a successful move");
+        assertSame(piece.piece(), piece.piece(), "snapshot is cached between moves");
+    }
+
+    @Test
+    void softDropOrLockWritesCellsAndKillsEntity() {
+        Board board = new Board(4, 4);
+        ActivePieceEntity piece = new ActivePieceEntity(board, Tetromino.O, 0);
+
+        while (piece.softDropOrLock()) { /* fall */ }
+
+        assertTrue(piece.isDead());
+        assertEquals(Tetromino.O.colorId(), board.get(3, 1));
+        assertEquals(Tetromino.O.colorId(), board.get(2, 2));
+    }
+
+    @Test
+    void movesDoNotAllocate() {
+        var mx = ManagementFactory.getThreadMXBean();
+        Assumptions.assumeTrue(mx instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) mx;
+        Assumptions.assumeTrue(threads.isThreadAllocatedMemorySupported()
+                && threads.isThreadAllocatedMemoryEnabled());
+
+        Board board = new Board(20, 10);
+        board.set(19, 0, 1); // something for left moves to bump into eventually
+        ActivePieceEntity piece = new ActivePieceEntity(board, Tetromino.T, 4);
+
+        final int moves = 100_000;
+        runMoves(piece, moves); // warm up (JIT, class init)
+
+        long tid = Thread.currentThread().threadId();
+        long overhead = threads.getThreadAllocatedBytes(tid);
+        overhead = threads.getThreadAllocatedBytes(tid) - overhead; // cost of the probe itself
+
+        long before = threads.getThreadAllocatedBytes(tid);
+        runMoves(piece, moves);
+        long allocated = threads.getThreadAllocatedBytes(tid) - before - overhead;
+
+        assertTrue(allocated < moves, "expected zero bytes per move, measured "
+                + allocated + " bytes over " + moves + " moves");
+    }
+
+    private static void runMoves(ActivePieceEntity piece, int moves) {
+        for (int i = 0; i < moves; i += 4) {
+            piece.tryLeft();
+            piece.tryRotateCW();
+            piece.tryRight();
+            piece.softDrop(); // fails once landed, which must not allocate either
+        }
+    }
+}
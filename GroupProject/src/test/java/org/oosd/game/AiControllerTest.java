@@ -0,0 +1,223 @@
+package org.oosd.game;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.oosd.core.GameConfig;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AiControllerTest {
+
+    private int rows, cols, spawnCol;
+    private ForkJoinPool pool;
+
+    @BeforeEach
+    void setUp() {
+        GameConfig cfg = GameConfig.get();
+        rows = cfg.rows();
+        cols = cfg.cols();
+        spawnCol = cfg.spawnCol();
+        cfg.setRows(20);
+        cfg.setCols(10);
+        cfg.setSpawnCol(3);
+        pool = new ForkJoinPool(4);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdownNow();
+        GameConfig cfg = GameConfig.get();
+        cfg.setRows(rows);
+        cfg.setCols(cols);
+        cfg.setSpawnCol(spawnCol);
+    }
+
+    @Test
+    void parallelPlansMatchSerialPlans() {
+        AiController serial = new AiController();
+        AiController parallel = new AiController(pool);
+        Random rnd = new Random(5);
+
+        for (int round = 0; round < 60; round++) {
+            Board board = randomStack(rnd);
+            Tetromino t = randomPiece(rnd);
+            Tetromino next = rnd.nextBoolean() ? randomPiece(rnd) : null;
+            int sweepCol = rnd.nextInt(10);
+            assertEquals(serial.planBestPlacement(board, t, 3, next, sweepCol),
+                         parallel.planBestPlacement(board, t, 3, next, sweepCol),
+                         "round " + round);
+        }
+    }
+
+    @Test
+    void cachedPlansMatchUncachedPlans() {
+        AiController cached = new AiController(null, null, new TranspositionCache(4096));
+        AiController uncached = new AiController(null, null, null);
+        Random rnd = new Random(8);
+
+        for (int round = 0; round < 40; round++) {
+            Board board = randomStack(rnd);
+            Tetromino t = randomPiece(rnd);
+            Tetromino next = randomPiece(rnd);
+            // plan twice: the second pass is served from the cache
+            for (int pass = 0; pass < 2; pass++) {
+                assertEquals(uncached.planBestPlacement(board, t, 3, next, 4),
+                             cached.planBestPlacement(board, t, 3, next, 4),
+                             "round " + round + " pass " + pass);
+            }
+        }
+        assertTrue(cached.cache().hits() > 0);
+        assertTrue(cached.cache().misses() > 0);
+    }
+
+    @Test
+    void candidateScoringDoesNotAllocate() {
+        var mx = ManagementFactory.getThreadMXBean();
+        Assumptions.assumeTrue(mx instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) mx;
+        Assumptions.assumeTrue(threads.isThreadAllocatedMemorySupported()
+                && threads.isThreadAllocatedMemoryEnabled());
+
+        AiController ai = new AiController(null, null, null);
+        Board board = randomStack(new Random(3));
+        AiController.PlanContext ctx = new AiController.PlanContext(board, Tetromino.L, 3, 4, null);
+        List<int[]> found = new ArrayList<>(); // {rot, col, row}
+        for (int rot = 0; rot < 4; rot++) {
+            ShapeMask shape = Tetromino.T.mask(rot);
+            for (int col = -shape.minCol(); col < 10 - shape.maxCol(); col++) {
+                if (board.canPlace(shape, 0, col)) found.add(new int[]{rot, col, board.landingRow(shape, 0, col)});
+            }
+        }
+        int[][] candidates = found.toArray(new int[0][]); // an array: iterating a List allocates
+        int rounds = 200;
+        double sink = 0;
+        for (int i = 0; i < rounds; i++) { // warm up (and create this thread's scratch boards)
+            for (int[] c : candidates) sink += ai.scoreCandidate(ctx, Tetromino.T, c[0], c[1], c[2]);
+        }
+
+        long tid = Thread.currentThread().threadId();
+        long before = threads.getThreadAllocatedBytes(tid);
+        for (int i = 0; i < rounds; i++) {
+            for (int[] c : candidates) sink += ai.scoreCandidate(ctx, Tetromino.T, c[0], c[1], c[2]);
+        }
+        long allocated = threads.getThreadAllocatedBytes(tid) - before;
+        long scored = (long) rounds * candidates.length;
+
+        // each candidate also searches ~17 replies; expected 0 bytes, under one per candidate allows for noise
+        assertTrue(allocated < scored, "allocated " + allocated + " bytes for " + scored + " candidates");
+        assertTrue(sink != 0);
+    }
+
+    @Test
+    void inlinePlannerPlaysTheSameGameAsSynchronousPlanning() {
+        GameEngine sync = aiEngine(new AiController());
+        GameEngine async = aiEngine(new AiController(null, Runnable::run));
+        for (int step = 0; step < 30_000; step++) {
+            sync.step(null, GameEngine.TICK_NANOS);
+            async.step(null, GameEngine.TICK_NANOS);
+        }
+        assertEquals(sync.side(1).score(), async.side(1).score());
+        assertEquals(sync.side(1).board().hash(), async.side(1).board().hash());
+        assertTrue(sync.side(1).lines() > 0);
+    }
+
+    @Test
+    void stalledPlannerFallsBackToInlinePlans() {
+        List<Runnable> never = new ArrayList<>();
+        GameEngine engine = aiEngine(new AiController(null, never::add));
+        for (int step = 0; step < 30_000; step++) engine.step(null, GameEngine.TICK_NANOS);
+
+        assertFalse(never.isEmpty(), "plans were requested");
+        assertTrue(engine.side(1).lines() > 0, "fallback plans still clear lines");
+        never.forEach(Runnable::run); // late results are stale and ignored
+        engine.step(null, GameEngine.TICK_NANOS);
+    }
+
+    @Test
+    void staleResultFinishingLastDoesNotHideTheFreshOne() {
+        List<Runnable> queued = new ArrayList<>();
+        AiController ai = new AiController(null, queued::add);
+        Board board = new Board(20, 10);
+        ActivePieceEntity piece = new ActivePieceEntity(board, Tetromino.T, 3);
+
+        ai.update(1, board, piece, null, 0L, 1);
+        board.set(19, 0, 1); // board changes mid-plan: a second plan is requested
+        ai.update(1, board, piece, null, 1_000_000L, 1);
+        assertEquals(2, queued.size());
+
+        queued.get(1).run(); // fresh plan lands first
+        queued.get(0).run(); // stale one finishes last
+        ai.update(1, board, piece, null, 2_000_000L, 1);
+        ai.update(1, board, piece, null, AiController.PLAN_DEADLINE_NS + 2_000_000L, 1);
+        assertEquals(0, ai.metrics(1).snapshot().fallbacks(), "fresh plan was used, no inline fallback");
+    }
+
+    @Test
+    void aBudgetNearTheCapStillGetsTheBeamPlan() {
+        List<Runnable> queued = new ArrayList<>();
+        AiController ai = new AiController(null, queued::add);
+        long budget = TimeUnit.MILLISECONDS.toNanos(GameConfig.MAX_AI_THINK_MS);
+        ai.setSearchBudget(budget);
+        Board board = new Board(20, 10);
+        ActivePieceEntity piece = new ActivePieceEntity(board, Tetromino.T, 3);
+
+        ai.update(1, board, piece, null, 0L, 1);
+        ai.update(1, board, piece, null, budget, 1); // the search may use its whole budget
+        assertEquals(0, ai.metrics(1).snapshot().fallbacks(), "not late yet");
+
+        queued.getFirst().run();
+        ai.update(1, board, piece, null, budget + 1_000_000L, 1);
+        AiMetrics.Snapshot m = ai.metrics(1).snapshot();
+        assertEquals(0, m.fallbacks(), "the beam plan was used, no inline fallback");
+        assertEquals(1, m.plans());
+    }
+
+    @Test
+    void drivenSidesRecordMetrics() {
+        AiController ai = new AiController();
+        GameEngine engine = aiEngine(ai);
+        for (int step = 0; step < 5_000; step++) engine.step(null, GameEngine.TICK_NANOS);
+
+        AiMetrics.Snapshot m = ai.metricsSnapshot().getFirst();
+        assertEquals(1, m.side());
+        assertTrue(m.plans() > 0);
+        assertTrue(m.updates() >= m.plans());
+        assertTrue(m.planP50() <= m.planP99() && m.planP99() <= m.planMax());
+        assertTrue(m.generated() > m.pruned());
+        assertEquals(0, m.capped(), "a 10-wide board never reaches the exploration cap");
+        assertTrue(m.evaluated() > m.generated(), "replies are counted too");
+        assertEquals(m.evaluated() > 0, m.cacheHits() + m.cacheMisses() > 0);
+        assertTrue(m.toCsv().startsWith("1," + m.plans() + ","));
+        assertEquals(AiMetrics.Snapshot.CSV_HEADER.split(",").length, m.toCsv().split(",").length);
+    }
+
+    private static GameEngine aiEngine(AiController ai) {
+        GameEngine engine = new GameEngine(1, new PieceBag(9L), ai);
+        engine.setAi(1, true);
+        engine.start();
+        return engine;
+    }
+
+    private static Board randomStack(Random rnd) {
+        Board board = new Board(20, 10);
+        int top = 10 + rnd.nextInt(8);
+        for (int r = top; r < 20; r++) {
+            for (int c = 0; c < 10; c++) if (rnd.nextInt(100) < 70) board.set(r, c, 1);
+        }
+        board.clearFullRows();
+        return board;
+    }
+
+    private static Tetromino randomPiece(Random rnd) {
+        return Tetromino.values()[rnd.nextInt(Tetromino.values().length)];
+    }
+}
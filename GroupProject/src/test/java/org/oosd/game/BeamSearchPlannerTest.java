@@ -0,0 +1,109 @@
+package org.oosd.game;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BeamSearchPlannerTest {
+
+    private final AiController heuristics = new AiController(null, null, new TranspositionCache(1 << 12));
+
+    @Test
+    void zeroBudgetStillCompletesDepthOne() {
+        BeamSearchPlanner planner = new BeamSearchPlanner(heuristics, 4, AiController.LOOKAHEAD_DISCOUNT, 6, new AtomicLong()::get);
+        BeamSearchPlanner.Result r = planner.plan(new Board(20, 10), Tetromino.T, List.of(Tetromino.I), 3, 0L);
+        assertNotNull(r);
+        assertEquals(1, r.depth());
+        assertTrue(r.nodes() > 0);
+    }
+
+    @Test
+    void deepensUntilTheClockRunsOut() {
+        // every clock read advances 1 unit; a small budget stops mid-way, a big one reaches max depth
+        AtomicLong ticks = new AtomicLong();
+        BeamSearchPlanner planner = new BeamSearchPlanner(heuristics, 4, AiController.LOOKAHEAD_DISCOUNT, 4, ticks::incrementAndGet);
+        Board board = new Board(20, 10);
+
+        BeamSearchPlanner.Result shallow = planner.plan(board, Tetromino.L, List.of(Tetromino.O), 3, 3);
+        BeamSearchPlanner.Result deep = planner.plan(board, Tetromino.L, List.of(Tetromino.O), 3, Long.MAX_VALUE / 4);
+        assertTrue(shallow.depth() < deep.depth(), shallow.depth() + " vs " + deep.depth());
+        assertEquals(4, deep.depth());
+    }
+
+    @Test
+    void takesTheLineClearWithAVerticalI() {
+        Board board = new Board(20, 10);
+        for (int r = 16; r < 20; r++) {
+            for (int c = 0; c < 10; c++) if (c != 7) board.set(r, c, 1);
+        }
+        BeamSearchPlanner planner = new BeamSearchPlanner(heuristics, 4, AiController.LOOKAHEAD_DISCOUNT, 3, System::nanoTime);
+        AiController.Plan plan = planner.plan(board, Tetromino.I, List.of(Tetromino.O), 3, 50_000_000L).plan();
+
+        ShapeMask m = Tetromino.I.mask(plan.targetRot());
+        int row = board.landingRow(m, 0, plan.targetCol());
+        Board after = board.copy();
+        after.place(m, row, plan.targetCol(), 1);
+        assertEquals(4, after.clearFullRows(), "plan " + plan);
+    }
+
+    @Test
+    void depthOneRanksMovesLikeTheFixedPlanner() {
+        // one ply, no preview: both planners score placement plus the same positional terms
+        AiController serial = new AiController(null, null, null);
+        BeamSearchPlanner planner = new BeamSearchPlanner(serial, 4, AiController.LOOKAHEAD_DISCOUNT, 1, new AtomicLong()::get);
+        Random rnd = new Random(12);
+        for (int round = 0; round < 40; round++) {
+            Board board = new Board(20, 10);
+            for (int r = 12 + rnd.nextInt(6); r < 20; r++) {
+                for (int c = 0; c < 10; c++) if (rnd.nextInt(100) < 65) board.set(r, c, 1);
+            }
+            board.clearFullRows();
+            Tetromino t = Tetromino.values()[rnd.nextInt(Tetromino.values().length)];
+            int currentCol = rnd.nextInt(8), sweepCol = rnd.nextInt(10);
+            assertEquals(serial.planBestPlacement(board, t, currentCol, null, sweepCol),
+                         planner.plan(board, t, List.of(), 3, currentCol, sweepCol, 0L).plan(),
+                         "round " + round);
+        }
+    }
+
+    @Test
+    void spawnColumnAtTheRightWallStillFindsMoves() {
+        // a 4-wide I spawns moved left, as GameEngine places it, rather than being rejected
+        BeamSearchPlanner planner = new BeamSearchPlanner(heuristics, 4, AiController.LOOKAHEAD_DISCOUNT, 2, new AtomicLong()::get);
+        BeamSearchPlanner.Result r = planner.plan(new Board(20, 10), Tetromino.I, List.of(Tetromino.O), 9, 0L);
+        assertNotNull(r);
+    }
+
+    @Test
+    void budgetedPlansRecordSearchCounters() {
+        // frozen clock, unbounded budget: every plan reaches depth 3, the last ply an expectation
+        BeamSearchPlanner planner = new BeamSearchPlanner(heuristics, 4, AiController.LOOKAHEAD_DISCOUNT, 3, new AtomicLong()::get);
+        AiMetrics metrics = new AiMetrics(1);
+        Board board = new Board(20, 10);
+        for (int r = 1; r < 20; r++) { // walls up to row 1: drops into them are blocked at once
+            board.set(r, 0, 1);
+            board.set(r, 9, 1);
+        }
+        for (int i = 0; i < 2; i++) {
+            assertNotNull(planner.plan(board, Tetromino.T, List.of(Tetromino.O), 3, 3, 3, Long.MAX_VALUE / 4, metrics));
+        }
+
+        AiMetrics.Snapshot m = metrics.snapshot();
+        assertTrue(m.generated() > m.pruned() && m.pruned() > 0, m.generated() + " / " + m.pruned());
+        assertTrue(m.evaluated() > 0);
+        assertTrue(m.cacheMisses() > 0, "first plan fills the expectation cache");
+        assertTrue(m.cacheHits() > 0, "second plan reuses it");
+    }
+
+    @Test
+    void blockedSpawnReturnsNull() {
+        Board board = new Board(20, 10);
+        for (int r = 0; r < 20; r++) for (int c = 0; c < 10; c++) if ((r + c) % 2 == 0) board.set(r, c, 1);
+        BeamSearchPlanner planner = new BeamSearchPlanner(heuristics);
+        assertNull(planner.plan(board, Tetromino.T, List.of(), 3, 1_000_000L));
+    }
+}
@@ -0,0 +1,178 @@
+package org.oosd.game;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BoardTest {
+
+    @Test
+    void rejectsBoardsWiderThanARowMask() {
+        assertEquals(Board.MAX_COLS, new Board(20, Board.MAX_COLS).cols());
+        assertThrows(IllegalArgumentException.class, () -> new Board(20, Board.MAX_COLS + 1));
+        assertThrows(IllegalArgumentException.class, () -> Board.occupancyOnly(20, 40));
+    }
+
+    @Test
+    void setKeepsOccupancyMaskAndColorPlaneInStep() {
+        Board board = new Board(4, 5);
+
+        board.set(3, 0, 2);
+        board.set(3, 4, 7);
+
+        assertEquals(0b10001, board.rowMask(3));
+        assertEquals(2, board.get(3, 0));
+        assertEquals(7, board.get(3, 4));
+        assertFalse(board.empty(3, 4));
+        assertTrue(board.empty(3, 1));
+        assertFalse(board.empty(-1, 0), "out of bounds is never empty");
+
+        board.set(3, 4, 0);
+        assertEquals(0b00001, board.rowMask(3));
+        assertTrue(board.empty(3, 4));
+    }
+
+    @Test
+    void clearFullRowsCompactsNonAdjacentRowsInOnePass() {
+        Board board = new Board(5, 3);
+        fillRow(board, 4, 1);
+        board.set(3, 1, 5);      // partial row between two full rows
+        fillRow(board, 2, 3);
+        board.set(1, 0, 6);      // partial row on top
+
+        int cleared = board.clearFullRows();
+
+        assertEquals(2, cleared);
+        assertEquals(0b010, board.rowMask(4));
+        assertEquals(5, board.get(4, 1));
+        assertEquals(0b001, board.rowMask(3));
+        assertEquals(6, board.get(3, 0));
+        for (int r = 0; r < 3; r++) {
+            assertEquals(0, board.rowMask(r));
+            for (int c = 0; c < 3; c++) assertEquals(0, board.get(r, c));
+        }
+    }
+
+    @Test
+    void clearFullRowsIsNoOpWithoutFullRows() {
+        Board board = new Board(3, 3);
+        board.set(2, 0, 1);
+        board.set(2, 1, 1);
+
+        assertEquals(0, board.clearFullRows());
+        assertEquals(0b011, board.rowMask(2));
+    }
+
+    @Test
+    void incrementalFeaturesMatchFullScanThroughSetsAndClears() {
+        Random rng = new Random(2024L);
+        Board board = new Board(12, 6);
+
+        for (int i = 0; i < 5_000; i++) {
+            int r = rng.nextInt(board.rows()), c = rng.nextInt(board.cols());
+            // bias toward filling so rows complete and clears happen
+            board.set(r, c, rng.nextInt(4) == 0 ? 0 : 1 + rng.nextInt(7));
+            if (i % 7 == 0) board.clearFullRows();
+            assertFeaturesMatchScan(board);
+        }
+
+        Board copy = board.copy();
+        assertFeaturesMatchScan(copy);
+        board.clear();
+        assertFeaturesMatchScan(board);
+        assertEquals(0, board.holes());
+    }
+
+    @Test
+    void hashDependsOnlyOnOccupancy() {
+        Board a = new Board(20, 10);
+        Board b = new Board(20, 10);
+        assertEquals(0L, a.hash());
+
+        // same final cells reached through different histories and colors
+        a.set(19, 0, 1);
+        a.set(19, 1, 2);
+        b.set(19, 1, 5);
+        b.set(18, 4, 3);
+        b.set(19, 0, 7);
+        b.set(18, 4, 0);
+        assertEquals(a.hash(), b.hash());
+
+        // a cleared row and the rows that fell are rehashed
+        fillRow(a, 18, 1);
+        a.set(17, 3, 1);
+        assertEquals(1, a.clearFullRows());
+        b.set(18, 3, 1);
+        assertEquals(a.hash(), b.hash());
+        assertNotEquals(0L, a.hash());
+
+        a.clear();
+        assertEquals(0L, a.hash());
+    }
+
+    @Test
+    void occupancyOnlyBoardTracksCellsWithoutColors() {
+        Board full = new Board(20, 10);
+        full.set(19, 0, 5);
+        full.set(18, 0, 3);
+        fillRow(full, 17, 2);
+
+        Board scratch = full.occupancyCopy();
+        assertFalse(scratch.hasColors());
+        assertEquals(1, scratch.get(19, 0));
+        assertEquals(0, scratch.get(19, 1));
+        assertEquals(full.hash(), scratch.hash());
+        assertEquals(1, scratch.clearFullRows());
+        assertFeaturesMatchScan(scratch);
+
+        // back into a colored board: filled cells get color 1
+        Board restored = new Board(20, 10);
+        restored.copyFrom(scratch);
+        assertEquals(1, restored.get(19, 0));
+        assertEquals(scratch.hash(), restored.hash());
+        assertTrue(restored.sameSize(scratch));
+        assertFalse(restored.sameSize(new Board(20, 9)));
+    }
+
+    @Test
+    void pieceHashMatchesBetweenRecordAndMutableState() {
+        MutablePieceState m = new MutablePieceState(Tetromino.T, 1, -1, 4);
+        assertEquals(m.toRecord().hash(), m.hash());
+        assertNotEquals(m.hash(), new PieceState(Tetromino.T, 2, -1, 4).hash());
+        assertNotEquals(m.hash(), new PieceState(Tetromino.S, 1, -1, 4).hash());
+        assertNotEquals(m.hash(), new PieceState(Tetromino.T, 1, 0, 4).hash());
+    }
+
+    private static void assertFeaturesMatchScan(Board b) {
+        int aggregate = 0, holes = 0;
+        for (int c = 0; c < b.cols(); c++) {
+            int h = 0, fill = 0;
+            for (int r = 0; r < b.rows(); r++) {
+                if (b.get(r, c) != 0) {
+                    if (h == 0) h = b.rows() - r;
+                    fill++;
+                } else if (h != 0) {
+                    holes++;
+                }
+            }
+            assertEquals(h, b.columnHeight(c), "height of column " + c);
+            assertEquals(fill, b.columnFill(c), "fill of column " + c);
+            aggregate += h;
+        }
+        for (int r = 0; r < b.rows(); r++) {
+            int fill = 0;
+            for (int c = 0; c < b.cols(); c++) if (b.get(r, c) != 0) fill++;
+            assertEquals(fill, b.rowFill(r), "fill of row " + r);
+        }
+        assertEquals(aggregate, b.aggregateHeight());
+        assertEquals(holes, b.holes());
+        assertEquals(Zobrist.of(b), b.hash(), "incremental hash");
+    }
+
+    private static void fillRow(Board board, int r, int color) {
+        for (int c = 0; c < board.cols(); c++) board.set(r, c, color);
+        assertTrue(board.isRowFull(r));
+    }
+}
@@ -0,0 +1,146 @@
+package org.oosd.game;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.oosd.core.GameConfig;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GameEngineTest {
+
+    private static final long FRAME_NS = 1_000_000_000L / 60;
+
+    private int rows, cols, spawnCol, players;
+    private double gravity;
+
+    @BeforeEach
+    void snapshotConfig() {
+        GameConfig cfg = GameConfig.get();
+        players = cfg.players();
+        rows = cfg.rows();
+        cols = cfg.cols();
+        spawnCol = cfg.spawnCol();
+        gravity = cfg.gravityCps();
+
+        cfg.setPlayers(2);
+        cfg.setRows(20);
+        cfg.setCols(10);
+        cfg.setSpawnCol(3);
+        cfg.setGravityCps(20.0); // fast games keep the test short
+    }
+
+    @AfterEach
+    void restoreConfig() {
+        GameConfig cfg = GameConfig.get();
+        cfg.setPlayers(players);
+        cfg.setRows(rows);
+        cfg.setCols(cols);
+        cfg.setSpawnCol(spawnCol);
+        cfg.setGravityCps(gravity);
+    }
+
+    @Test
+    void sameSeedAndInputsProduceIdenticalGames() {
+        GameEngine a = newEngine(7L);
+        GameEngine b = newEngine(7L);
+
+        int[] inputs = new int[2];
+        for (int frame = 0; frame < 20_000; frame++) {
+            inputs[1] = scriptedInput(frame);
+            a.step(inputs, FRAME_NS);
+            b.step(inputs, FRAME_NS);
+        }
+
+        for (int id = 1; id <= 2; id++) {
+            GameEngine.Side sa = a.side(id), sb = b.side(id);
+            assertEquals(sa.score(), sb.score());
+            assertEquals(sa.lines(), sb.lines());
+            assertEquals(sa.isGameOver(), sb.isGameOver());
+            for (int r = 0; r < 20; r++) assertEquals(sa.board().rowMask(r), sb.board().rowMask(r));
+        }
+        assertEquals(a.clock(), b.clock());
+        assertTrue(a.side(1).lines() > 0, "AI side should have cleared lines in 20k frames");
+    }
+
+    @Test
+    void gravityLocksPiecesAndHumanSideEventuallyTopsOut() {
+        GameEngine engine = new GameEngine(1, new PieceBag(3L));
+        AtomicInteger spawns = new AtomicInteger();
+        AtomicInteger gameOvers = new AtomicInteger();
+        engine.setListener(new GameEngine.Listener() {
+            @Override public void onSpawn(GameEngine.Side side) { spawns.incrementAndGet(); }
+            @Override public void onGameOver(GameEngine.Side side) { gameOvers.incrementAndGet(); }
+        });
+        engine.start();
+
+        // nobody touches the keys: pieces stack at the spawn column until game over
+        for (int frame = 0; frame < 100_000 && !engine.side(1).isGameOver(); frame++) {
+            engine.step(null, FRAME_NS);
+        }
+
+        assertTrue(engine.side(1).isGameOver());
+        assertTrue(engine.side(1).isPaused());
+        assertEquals(1, gameOvers.get());
+        assertTrue(spawns.get() > 3);
+
+        engine.restart(1);
+        assertFalse(engine.side(1).isGameOver());
+        assertEquals(0, engine.side(1).board().rowMask(19));
+        assertNotNull(engine.side(1).activePiece());
+    }
+
+    @Test
+    void pausedSideDoesNotAdvance() {
+        GameEngine engine = new GameEngine(1, new PieceBag(11L));
+        engine.start();
+        ActivePieceEntity piece = engine.side(1).activePiece();
+        int row = piece.row();
+
+        assertTrue(engine.togglePause(1));
+        for (int i = 0; i < 600; i++) engine.step(null, FRAME_NS);
+
+        assertEquals(row, piece.row());
+        assertSame(piece, engine.side(1).activePiece());
+        assertTrue(engine.elapsedNanos(1) >= 600 * FRAME_NS, "run timer keeps counting while paused");
+    }
+
+    @Test
+    void gravityStepKeepsPreviousPositionForInterpolation() {
+        GameEngine engine = new GameEngine(1, new PieceBag(5L));
+        engine.start();
+        ActivePieceEntity piece = engine.side(1).activePiece();
+
+        // 20 cps gravity => one row every 6 ticks at 120 Hz
+        int ticks = 0;
+        while (piece.row() == 0 && ticks++ < 100) engine.step(null, GameEngine.TICK_NANOS);
+
+        assertEquals(1, piece.row());
+        assertEquals(0.0, piece.renderY(0.0), 1e-9);
+        assertEquals(0.5, piece.renderY(0.5), 1e-9);
+        assertEquals(1.0, piece.renderY(1.0), 1e-9);
+
+        engine.step(null, GameEngine.TICK_NANOS); // no gravity this tick
+        assertEquals(1.0, piece.renderY(0.0), 1e-9);
+    }
+
+    private static GameEngine newEngine(long seed) {
+        GameEngine engine = new GameEngine(2, new PieceBag(seed));
+        engine.setAi(1, true);
+        engine.start();
+        return engine;
+    }
+
+    /** Deterministic key pattern for the human side. */
+    private static int scriptedInput(int frame) {
+        return switch (frame % 23) {
+            case 0 -> GameEngine.Input.LEFT.bit();
+            case 5 -> GameEngine.Input.ROTATE.bit();
+            case 9, 10 -> GameEngine.Input.RIGHT.bit();
+            case 17 -> GameEngine.Input.SOFT_DROP.bit();
+            default -> 0;
+        };
+    }
+}
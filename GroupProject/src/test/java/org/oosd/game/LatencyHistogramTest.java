@@ -0,0 +1,43 @@
+package org.oosd.game;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencyHistogramTest {
+
+    @Test
+    void bucketsCoverEveryValueWithinPrecision() {
+        Random rnd = new Random(1);
+        for (int i = 0; i < 100_000; i++) {
+            long v = rnd.nextLong(1L << (1 + rnd.nextInt(40)));
+            int idx = LatencyHistogram.index(v);
+            long hi = LatencyHistogram.highestIn(idx);
+            assertTrue(v <= hi, v + " above bucket bound " + hi);
+            assertTrue(hi - v <= Math.max(0, v / LatencyHistogram.SUB_BUCKETS), v + " vs " + hi);
+            if (idx > 0) assertTrue(v > LatencyHistogram.highestIn(idx - 1), "buckets overlap at " + v);
+        }
+    }
+
+    @Test
+    void percentilesMatchExactValuesWithinThreePercent() {
+        LatencyHistogram h = new LatencyHistogram();
+        for (long v = 1; v <= 10_000; v++) h.record(v * 1_000); // 1us .. 10ms uniform
+
+        assertEquals(10_000, h.count());
+        assertEquals(10_000_000, h.max());
+        assertEquals(5_000_500, h.mean(), 1.0);
+        for (double p : new double[]{50, 90, 99, 99.9}) {
+            double exact = p / 100 * 10_000_000;
+            long got = h.valueAtPercentile(p);
+            assertTrue(got >= exact && got <= exact * 1.03, "p" + p + " = " + got);
+        }
+        assertEquals(h.max(), h.valueAtPercentile(100));
+
+        h.reset();
+        assertEquals(0, h.count());
+        assertEquals(0, h.valueAtPercentile(99));
+    }
+}
@@ -0,0 +1,103 @@
+package org.oosd.game;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LinearEvaluatorTest {
+
+    @Test
+    void defaultWeightsScoreExactlyLikeTheOriginalHeuristic() {
+        Random rnd = new Random(21);
+        LinearEvaluator eval = LinearEvaluator.defaults();
+        int checked = 0;
+        for (int round = 0; round < 200; round++) {
+            Board before = new Board(20, 10);
+            int top = 8 + rnd.nextInt(10);
+            for (int r = top; r < 20; r++) {
+                for (int c = 0; c < 10; c++) if (rnd.nextInt(100) < 75) before.set(r, c, 1);
+            }
+            before.clearFullRows();
+
+            Tetromino t = Tetromino.values()[rnd.nextInt(7)];
+            int rot = rnd.nextInt(4);
+            ShapeMask shape = t.mask(rot);
+            int col = rnd.nextInt(10 - shape.size() + 1);
+            if (!before.canPlace(shape, 0, col)) continue;
+            int row = before.landingRow(shape, 0, col);
+            Board after = before.copy();
+            after.place(shape, row, col, 1);
+            int cleared = after.clearFullRows();
+
+            assertEquals(reference(before, shape, row, after, cleared),
+                         eval.evaluate(before, shape, row, after, cleared), 0.0, "round " + round);
+            checked++;
+        }
+        assertTrue(checked > 100);
+    }
+
+    @Test
+    void namedWeightsOverrideDefaults() {
+        LinearEvaluator e = LinearEvaluator.fromNamed(Map.of("holes", -2.0, "nonsense", 9.0));
+        assertEquals(-2.0, e.weights()[BoardFeatures.HOLES]);
+        assertEquals(LinearEvaluator.defaults().weights()[BoardFeatures.LINES], e.weights()[BoardFeatures.LINES]);
+        assertEquals(e, LinearEvaluator.fromNamed(e.toNamed()));
+        assertThrows(IllegalArgumentException.class, () -> new LinearEvaluator(new double[3]));
+    }
+
+    /* The hand-written heuristic that BoardFeatures + default weights replaced (full grid scans). */
+    private static double reference(Board before, ShapeMask shape, int landingRow, Board field, int linesCleared) {
+        int rows = field.rows(), cols = field.cols();
+        int[] h = new int[cols];
+        int holes = 0;
+        for (int c = 0; c < cols; c++) {
+            boolean seen = false;
+            for (int r = 0; r < rows; r++) {
+                if (field.get(r, c) != 0) { if (!seen) h[c] = rows - r; seen = true; }
+                else if (seen) holes++;
+            }
+        }
+        int aggregateHeight = 0;
+        for (int v : h) aggregateHeight += v;
+        int bumpiness = 0;
+        for (int c = 0; c < cols - 1; c++) bumpiness += Math.abs(h[c] - h[c + 1]);
+        int lowGapsScore = 0;
+        for (int c = 0; c < cols; c++) {
+            int empties = 0;
+            for (int r = rows - 1; r >= 0; r--) { if (field.get(r, c) == 0) empties++; else break; }
+            if (empties > 0) lowGapsScore += Math.max(1, 4 - empties);
+        }
+        int well = 0;
+        for (int c = 1; c < cols - 1; c++) {
+            if (h[c] < h[c - 1] && h[c] < h[c + 1]) well += Math.max(0, Math.min(6, Math.min(h[c - 1], h[c + 1]) - h[c]));
+        }
+        int edgeCliff = Math.max(0, h[0] - h[1]) + Math.max(0, h[cols - 1] - h[cols - 2]);
+        double depthWeight = Math.max(0.0, (double) landingRow / Math.max(1, rows - 1));
+
+        int bottomEmpty = cols - before.rowFill(rows - 1);
+        int bottomFilled = shape.cellsInRow(rows - 1 - landingRow);
+        int help1 = helping(before, shape, landingRow, 1);
+        int help2 = (help1 == 0) ? helping(before, shape, landingRow, 2) : 0;
+        int help3 = (help1 == 0 && help2 == 0) ? helping(before, shape, landingRow, 3) : 0;
+
+        double tetrisBonus = (linesCleared == 4) ? 1.0 : 0.0;
+        double bottomHelp = (bottomEmpty > 0) ? (bottomFilled * 0.45) : 0.0;
+        return 3.40 * linesCleared + 2.00 * tetrisBonus + bottomHelp + 0.12 * lowGapsScore
+                + -0.36 * aggregateHeight + -0.82 * holes + -0.18 * bumpiness + 0.05 * well
+                + -0.10 * edgeCliff + 0.90 * help1 + 0.45 * help2 + 0.20 * help3 + 0.40 * depthWeight;
+    }
+
+    private static int helping(Board before, ShapeMask shape, int baseRow, int maxEmpty) {
+        int count = 0;
+        for (int r = 0; r < shape.rowCount(); r++) {
+            int absR = baseRow + r;
+            if (absR < 0 || absR >= before.rows()) continue;
+            int empties = before.cols() - before.rowFill(absR);
+            if (empties > 0 && empties <= maxEmpty) count += shape.cellsInRow(r);
+        }
+        return count;
+    }
+}
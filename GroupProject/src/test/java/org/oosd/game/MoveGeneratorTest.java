@@ -0,0 +1,136 @@
+package org.oosd.game;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MoveGeneratorTest {
+
+    @Test
+    void emptyBoardLandsEveryFittingColumnOnTheFloor() {
+        Board board = new Board(20, 10);
+        MoveGenerator gen = new MoveGenerator();
+        gen.generate(board, Tetromino.T, 0, 0, 3);
+
+        for (int rot = 0; rot < 4; rot++) {
+            ShapeMask m = Tetromino.T.mask(rot);
+            for (int col = -3; col < board.cols(); col++) {
+                boolean fits = col + m.minCol() >= 0 && col + m.maxCol() < board.cols();
+                assertEquals(fits, gen.canLand(rot, col), "rot " + rot + " col " + col);
+            }
+        }
+        for (MoveGenerator.Landing l : gen.landings()) {
+            assertEquals(board.rows() - 1, l.row() + Tetromino.T.mask(l.rot()).maxRow());
+        }
+    }
+
+    @Test
+    void reachesBothWallsWhenTheMatrixHangsOffTheBoard() {
+        Board board = new Board(20, 10);
+        MoveGenerator gen = new MoveGenerator();
+
+        gen.generate(board, Tetromino.O, 0, 0, 3);
+        ShapeMask o = Tetromino.O.mask(0);
+        Set<Integer> oLeft = new HashSet<>();
+        for (MoveGenerator.Landing l : gen.landings()) oLeft.add(l.col() + o.minCol());
+        assertTrue(oLeft.contains(0), "O against the left wall: " + oLeft);
+        assertTrue(oLeft.contains(board.cols() - 1 - (o.maxCol() - o.minCol())), "O against the right wall: " + oLeft);
+        assertTrue(gen.canLand(0, -o.minCol()));
+        assertTrue(gen.canLand(0, board.cols() - 1 - o.maxCol()));
+
+        gen.generate(board, Tetromino.I, 0, 0, 3);
+        boolean verticalAtLeftWall = false;
+        for (MoveGenerator.Landing l : gen.landings()) {
+            ShapeMask m = Tetromino.I.mask(l.rot());
+            if (m.maxRow() > m.minRow() && l.col() + m.minCol() == 0) verticalAtLeftWall = true;
+        }
+        assertTrue(verticalAtLeftWall, "vertical I against the left wall");
+    }
+
+    @Test
+    void rotationsWithTheSameCellsLandOnce() {
+        Board board = new Board(20, 10);
+        MoveGenerator gen = new MoveGenerator();
+        // an O has the same cells in every rotation: one landing per floor column pair
+        assertEquals(9, gen.generate(board, Tetromino.O, 0, 0, 3));
+        for (int rot = 0; rot < 4; rot++) assertTrue(gen.canLand(rot, -Tetromino.O.mask(rot).minCol()), "rot " + rot);
+        // an I: 7 horizontal and 10 vertical positions
+        assertEquals(17, gen.generate(board, Tetromino.I, 0, 0, 3));
+    }
+
+    @Test
+    void findsTuckUnderOverhang() {
+        Board board = new Board(8, 6);
+        // ledge over columns 0..2; the slot underneath is only reachable by sliding in from the right
+        for (int c = 0; c <= 2; c++) board.set(5, c, 1);
+
+        MoveGenerator gen = new MoveGenerator();
+        gen.generate(board, Tetromino.O, 0, 0, 2);
+
+        Set<String> landed = new HashSet<>();
+        for (MoveGenerator.Landing l : gen.landings()) landed.add(l.row() + ":" + l.col());
+        // O cells sit in matrix columns 1..2: col 0 covers board columns 1..2
+        assertTrue(landed.contains("3:0"), "on top of the ledge: " + landed);
+        assertTrue(landed.contains("6:0"), "tucked under the ledge: " + landed);
+        assertNotEquals(board.landingRow(Tetromino.O.mask(0), 0, 0), 6, "straight drop cannot tuck");
+    }
+
+    @Test
+    void pathsReplayToTheirLandingsOnRandomBoards() {
+        Random rnd = new Random(11);
+        MoveGenerator gen = new MoveGenerator();
+        for (int round = 0; round < 40; round++) {
+            Board board = new Board(20, 10);
+            for (int r = 10; r < 20; r++) {
+                for (int c = 0; c < 10; c++) if (rnd.nextInt(100) < 45) board.set(r, c, 1);
+            }
+            Tetromino t = Tetromino.values()[rnd.nextInt(Tetromino.values().length)];
+            int n = gen.generate(board, t, 0, 0, 3);
+            assertTrue(n > 0);
+
+            Set<String> seen = new HashSet<>();
+            for (MoveGenerator.Landing l : gen.landings()) {
+                assertTrue(seen.add(cells(t.mask(l.rot()), l.row(), l.col())), "duplicate landing");
+                assertEquals(l, replay(board, t, l.path()), "path for " + l);
+                assertFalse(board.canPlace(t.mask(l.rot()), l.row() + 1, l.col()), "not resting");
+            }
+        }
+    }
+
+    @Test
+    void blockedSpawnHasNoLandings() {
+        Board board = new Board(20, 10);
+        for (int c = 0; c < 10; c++) board.set(1, c, 1);
+        MoveGenerator gen = new MoveGenerator();
+        assertEquals(0, gen.generate(board, Tetromino.T, 0, 0, 3));
+        assertFalse(gen.canLand(0, 3));
+    }
+
+    private static String cells(ShapeMask m, int row, int col) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < m.cellCount(); i++) sb.append(row + m.cellRow(i)).append(',').append(col + m.cellCol(i)).append(' ');
+        return sb.toString();
+    }
+
+    // apply a path from spawn, checking every step is legal
+    private static MoveGenerator.Landing replay(Board b, Tetromino t, List<MoveGenerator.Move> path) {
+        int rot = 0, row = 0, col = 3;
+        for (MoveGenerator.Move m : path) {
+            switch (m) {
+                case DOWN -> row++;
+                case LEFT -> col--;
+                case RIGHT -> col++;
+                case ROTATE_CW -> rot = (rot + 1) & 3;
+                case ROTATE_CCW -> rot = (rot + 3) & 3;
+                case ROTATE_180 -> rot = (rot + 2) & 3;
+            }
+            assertTrue(b.canPlace(t.mask(rot), row, col), "illegal step " + m);
+        }
+        return new MoveGenerator.Landing(rot, row, col, path);
+    }
+}
@@ -0,0 +1,48 @@
+package org.oosd.game;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.oosd.core.GameConfig;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SelfPlayTest {
+
+    private int rows, cols, spawnCol;
+
+    @BeforeEach
+    void setUp() {
+        GameConfig cfg = GameConfig.get();
+        rows = cfg.rows();
+        cols = cfg.cols();
+        spawnCol = cfg.spawnCol();
+        cfg.setRows(20);
+        cfg.setCols(10);
+        cfg.setSpawnCol(3);
+    }
+
+    @AfterEach
+    void tearDown() {
+        GameConfig cfg = GameConfig.get();
+        cfg.setRows(rows);
+        cfg.setCols(cols);
+        cfg.setSpawnCol(spawnCol);
+    }
+
+    @Test
+    void sameSeedPlaysTheSameGame() {
+        SelfPlay.Result a = SelfPlay.play(new AiController(), 42L, 300);
+        SelfPlay.Result b = SelfPlay.play(new AiController(null, null, null), 42L, 300);
+        assertEquals(a, b);
+        assertTrue(a.pieces() > 0);
+        assertTrue(a.lines() > 0, "the default AI clears some lines: " + a);
+    }
+
+    @Test
+    void pieceCapEndsTheGame() {
+        SelfPlay.Result r = SelfPlay.play(new AiController(), 7L, 5);
+        assertEquals(5, r.pieces());
+        assertFalse(r.toppedOut());
+    }
+}
@@ -0,0 +1,67 @@
+package org.oosd.game;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TetrominoMaskTest {
+
+    @Test
+    void maskTableMatchesShapeMatrices() {
+        for (Tetromino t : Tetromino.values()) {
+            for (int rot = 0; rot < t.rotationCount(); rot++) {
+                int[][] m = t.shape(rot);
+                ShapeMask mask = t.mask(rot);
+
+                assertEquals(m.length, mask.rowCount());
+                assertEquals(4, mask.cellCount(), t + " rot " + rot);
+                for (int r = 0; r < m.length; r++) {
+                    for (int c = 0; c < m[r].length; c++) {
+                        boolean filled = (mask.rowMask(r) & (1 << c)) != 0;
+                        assertEquals(m[r][c] != 0, filled, t + " rot " + rot + " cell " + r + "," + c);
+                    }
+                }
+                for (int i = 0; i < mask.cellCount(); i++) {
+                    int r = mask.cellRow(i), c = mask.cellCol(i);
+                    assertTrue(r >= mask.minRow() && r <= mask.maxRow());
+                    assertTrue(c >= mask.minCol() && c <= mask.maxCol());
+                    assertTrue(r <= mask.colBottom(c) && r >= mask.colTop(c));
+                }
+            }
+        }
+    }
+
+    @Test
+    void boardCollisionAgreesWithPerCellWalk() {
+        Random rng = new Random(42L);
+        Board board = new Board(20, 10);
+        for (int r = 8; r < 20; r++)
+            for (int c = 0; c < 10; c++)
+                if (rng.nextInt(3) == 0) board.set(r, c, 1 + rng.nextInt(7));
+
+        for (Tetromino t : Tetromino.values()) {
+            for (int rot = 0; rot < 4; rot++) {
+                for (int row = -4; row < 22; row++) {
+                    for (int col = -4; col < 12; col++) {
+                        assertEquals(perCellCanPlace(board, t.shape(rot), row, col),
+                                board.canPlace(t, rot, row, col),
+                                t + " rot " + rot + " at " + row + "," + col);
+                    }
+                }
+            }
+        }
+    }
+
+    /** Reference implementation: the nested matrix walk the mask table replaces. */
+    private static boolean perCellCanPlace(Board board, int[][] m, int row, int col) {
+        for (int r = 0; r < m.length; r++)
+            for (int c = 0; c < m[r].length; c++)
+                if (m[r][c] != 0) {
+                    int br = row + r, bc = col + c;
+                    if (!board.inBounds(br, bc) || board.get(br, bc) != 0) return false;
+                }
+        return true;
+    }
+}
@@ -0,0 +1,73 @@
+package org.oosd.game;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TranspositionCacheTest {
+
+    @Test
+    void storesOverwritesAndCounts() {
+        TranspositionCache cache = new TranspositionCache(64);
+        assertTrue(Double.isNaN(cache.get(42L)));
+        cache.put(42L, 1.5);
+        cache.put(0L, -3.0);           // zero is a valid key
+        assertEquals(1.5, cache.get(42L));
+        assertEquals(-3.0, cache.get(0L));
+        cache.put(42L, 2.5);
+        assertEquals(2.5, cache.get(42L));
+
+        assertEquals(3, cache.hits());
+        assertEquals(1, cache.misses());
+        assertEquals(0.75, cache.hitRate(), 1e-9);
+
+        cache.clear();
+        assertTrue(Double.isNaN(cache.get(42L)));
+    }
+
+    @Test
+    void staysBoundedAndKeepsReferencedEntries() {
+        TranspositionCache cache = new TranspositionCache(TranspositionCache.WAYS); // a single bucket
+        assertEquals(TranspositionCache.WAYS, cache.capacity());
+
+        for (long k = 1; k <= TranspositionCache.WAYS; k++) cache.put(k, k);
+        cache.get(1L);                 // second chance for key 1
+        cache.put(100L, 100);          // evicts an unreferenced entry instead
+        assertEquals(1, cache.evictions());
+        assertEquals(1.0, cache.get(1L));
+        assertEquals(100.0, cache.get(100L));
+
+        for (long k = 200; k < 1200; k++) cache.put(k, k);
+        int live = 0;
+        for (long k = 200; k < 1200; k++) if (!Double.isNaN(cache.get(k))) live++;
+        assertTrue(live <= cache.capacity());
+    }
+
+    @Test
+    void concurrentWritersNeverReturnForeignValues() throws Exception {
+        TranspositionCache cache = new TranspositionCache(1 << 10);
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        List<Future<?>> writers = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            long base = t * 1_000_000L;
+            writers.add(pool.submit(() -> {
+                for (long k = base; k < base + 50_000; k++) {
+                    cache.put(k, k);
+                    double v = cache.get(k - 7);
+                    if (!Double.isNaN(v)) assertEquals((double) (k - 7), v);
+                }
+            }));
+        }
+        for (Future<?> f : writers) f.get(); // rethrows assertion failures
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(30, TimeUnit.SECONDS));
+        assertTrue(cache.evictions() > 0);
+    }
+}
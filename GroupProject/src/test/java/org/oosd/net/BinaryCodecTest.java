@@ -0,0 +1,101 @@
+package org.oosd.net;
+
+import org.junit.jupiter.api.Test;
+import org.oosd.game.Tetromino;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BinaryCodecTest {
+
+    @Test
+    void standardBoardIsAFewDozenBytesAndRoundTrips() throws IOException {
+        int[][] cells = board(20, 10, new Random(4), 1);
+        PureGame game = new PureGame(10, 20, cells, Tetromino.T.shape(1), Tetromino.I.shape(0));
+
+        byte[] bytes = BinaryCodec.encodeGame(game);
+        assertTrue(bytes.length <= 40, bytes.length + " bytes");
+        assertSameGame(game, BinaryCodec.decodeGame(bytes));
+    }
+
+    @Test
+    void cellValuesAndOddShapesRoundTrip() throws IOException {
+        Random rnd = new Random(9);
+        for (int maxValue : new int[]{7, 200, 70_000}) {
+            int[][] cells = board(15, 7, rnd, maxValue);
+            cells[3][4] = (maxValue > 255) ? -3 : maxValue; // odd filled count / negative values
+            int[][] colouredL = {{0, 0, 7}, {7, 7, 7}, {0, 0, 0}};
+            int[][] odd = {{1, 0}, {2, 3, 4}};
+            PureGame game = new PureGame(7, 15, cells, colouredL, odd);
+            assertSameGame(game, BinaryCodec.decodeGame(BinaryCodec.encodeGame(game)));
+        }
+
+        PureGame empty = new PureGame(0, 0, null, null, null);
+        assertSameGame(empty, BinaryCodec.decodeGame(BinaryCodec.encodeGame(empty)));
+    }
+
+    @Test
+    void movesAndFramesRoundTrip() throws IOException {
+        OpMove move = new OpMove(-2, 3);
+        assertEquals(move, BinaryCodec.decodeMove(BinaryCodec.encodeMove(move)));
+
+        ByteArrayOutputStream buf = new ByteArrayOutputStream();
+        Frame frame = new Frame(Frame.MOVE_REPLY, 77, BinaryCodec.encodeMove(move));
+        frame.write(new DataOutputStream(buf));
+        assertEquals(frame.wireSize(), buf.size());
+
+        Frame back = Frame.read(new DataInputStream(new ByteArrayInputStream(buf.toByteArray())));
+        assertEquals(Frame.MOVE_REPLY, back.type());
+        assertEquals(77, back.requestId());
+        assertEquals(move, BinaryCodec.decodeMove(back.payload()));
+    }
+
+    @Test
+    void batchesRoundTrip() throws IOException {
+        Random rnd = new Random(2);
+        List<PureGame> games = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            games.add(new PureGame(10, 20, board(20, 10, rnd, 7), Tetromino.values()[i].shape(0), null));
+        }
+        List<PureGame> decoded = BinaryCodec.decodeBatch(BinaryCodec.encodeBatch(games));
+        assertEquals(games.size(), decoded.size());
+        for (int i = 0; i < games.size(); i++) assertSameGame(games.get(i), decoded.get(i));
+
+        List<BinaryCodec.BatchItem> items = List.of(
+                new BinaryCodec.BatchItem(new OpMove(3, 1), null), new BinaryCodec.BatchItem(null, "unknown piece"));
+        assertEquals(items, BinaryCodec.decodeBatchReply(BinaryCodec.encodeBatchReply(items)));
+    }
+
+    @Test
+    void rejectsCorruptInput() {
+        assertThrows(IOException.class, () -> BinaryCodec.decodeGame(new byte[]{0, 10, 0, 20, 0, 20}));
+        assertThrows(IOException.class, () -> BinaryCodec.decodeMove(new byte[3]));
+        // 65535x65535 grid (or raw piece) declared in a few bytes: must fail before allocating
+        byte[] hugeGrid = {0, 10, 0, 20, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0};
+        assertThrows(IOException.class, () -> BinaryCodec.decodeGame(hugeGrid));
+        byte[] hugePiece = {0, 10, 0, 20, 0, 0, 0, 0, 0, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF};
+        assertThrows(IOException.class, () -> BinaryCodec.decodeGame(hugePiece));
+        byte[] hugeFrame = {0x7F, 0, 0, 0, 1};
+        assertThrows(IOException.class, () -> Frame.read(new DataInputStream(new ByteArrayInputStream(hugeFrame))));
+    }
+
+    private static int[][] board(int rows, int cols, Random rnd, int maxValue) {
+        int[][] cells = new int[rows][cols];
+        for (int r = rows / 2; r < rows; r++) {
+            for (int c = 0; c < cols; c++) if (rnd.nextInt(100) < 60) cells[r][c] = 1 + rnd.nextInt(maxValue);
+        }
+        return cells;
+    }
+
+    private static void assertSameGame(PureGame expected, PureGame actual) {
+        assertEquals(expected.getWidth(), actual.getWidth());
+        assertEquals(expected.getHeight(), actual.getHeight());
+        assertArrayEquals(expected.getCells(), actual.getCells());
+        assertArrayEquals(expected.getCurrentShape(), actual.getCurrentShape());
+        assertArrayEquals(expected.getNextShape(), actual.getNextShape());
+    }
+}
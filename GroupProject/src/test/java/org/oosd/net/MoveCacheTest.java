@@ -0,0 +1,73 @@
+package org.oosd.net;
+
+import org.junit.jupiter.api.Test;
+import org.oosd.game.Tetromino;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MoveCacheTest {
+
+    @Test
+    void evictsLeastRecentlyUsedAndExpiresAfterTtl() {
+        AtomicLong now = new AtomicLong();
+        MoveCache cache = new MoveCache(2, Duration.ofSeconds(10), now::get);
+        MoveCache.Key a = MoveCache.key(game(Tetromino.I)), b = MoveCache.key(game(Tetromino.O)),
+                c = MoveCache.key(game(Tetromino.T));
+
+        cache.put(a, new OpMove(1, 0));
+        cache.put(b, new OpMove(2, 0));
+        assertEquals(new OpMove(1, 0), cache.get(a)); // a is now the most recent
+        cache.put(c, new OpMove(3, 0));               // so b goes
+        assertNull(cache.get(b));
+        assertEquals(new OpMove(3, 0), cache.get(c));
+
+        now.addAndGet(Duration.ofSeconds(10).toNanos());
+        assertNull(cache.get(a));
+        cache.purgeExpired();
+
+        MoveCache.Stats s = cache.stats();
+        assertEquals(2, s.hits());
+        assertEquals(2, s.misses());
+        assertEquals(1, s.evictions());
+        assertEquals(2, s.expirations());
+        assertEquals(0, s.size());
+    }
+
+    @Test
+    void keyCoversCellsAndBothPieces() {
+        PureGame base = game(Tetromino.S);
+        assertEquals(MoveCache.key(base), MoveCache.key(game(Tetromino.S)));
+
+        PureGame cell = game(Tetromino.S);
+        cell.getCells()[19][9] = 2;
+        PureGame next = game(Tetromino.S);
+        next.setNextShape(Tetromino.Z.shape(0));
+        assertNotEquals(MoveCache.key(base), MoveCache.key(cell));
+        assertNotEquals(MoveCache.key(base), MoveCache.key(next));
+        assertNotEquals(MoveCache.key(base), MoveCache.key(game(Tetromino.Z)));
+    }
+
+    @Test
+    void clientOnlyAsksTheServerForNewPositions() throws IOException {
+        try (MoveServer server = new MoveServer(0).start();
+             TetrisClient client = new TetrisClient("localhost", server.port())) {
+            client.setMoveCache(new MoveCache(100, Duration.ZERO));
+            for (int i = 0; i < 3; i++) {
+                assertEquals(client.requestMove(game(Tetromino.L)), client.requestMove(game(Tetromino.L)));
+            }
+            client.requestMove(game(Tetromino.J));
+            assertEquals(2, server.stats().requests());
+            assertEquals(5, client.moveCache().stats().hits());
+        }
+    }
+
+    private static PureGame game(Tetromino current) {
+        int[][] cells = new int[20][10];
+        cells[19][0] = 1;
+        return new PureGame(10, 20, cells, current.shape(0), Tetromino.I.shape(0));
+    }
+}
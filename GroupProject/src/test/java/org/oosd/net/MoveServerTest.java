@@ -0,0 +1,213 @@
+package org.oosd.net;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.oosd.game.AiController;
+import org.oosd.game.Board;
+import org.oosd.game.Tetromino;
+
+import java.io.*;
+import java.net.Socket;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MoveServerTest {
+
+    private MoveServer server;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new MoveServer(0).start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.close();
+    }
+
+    @Test
+    void answersJsonRequestsWithThePlannedMove() throws IOException {
+        PureGame game = game(Tetromino.I, Tetromino.O);
+        AiController.Plan expected = new AiController().planSpawn(MoveServer.board(game), Tetromino.I, Tetromino.O);
+
+        try (TetrisClient client = new TetrisClient("localhost", server.port())) {
+            for (int i = 0; i < 3; i++) {
+                assertEquals(new OpMove(expected.targetCol(), expected.targetRot()), client.requestMove(game));
+            }
+        }
+        MoveServer.Stats stats = server.stats();
+        assertEquals(1, stats.connections());
+        assertEquals(3, stats.requests());
+        assertEquals(0, stats.errors());
+        assertTrue(stats.maxNs() > 0);
+    }
+
+    @Test
+    void serverErrorsKeepTheConnectionAndAreNotRetried() throws IOException {
+        PureGame bad = game(Tetromino.T, null);
+        bad.setCurrentShape(new int[][]{{1, 1, 1, 1, 1}});
+        for (boolean binary : new boolean[]{false, true}) {
+            server.resetStats();
+            try (TetrisClient client = new TetrisClient("localhost", server.port())) {
+                client.setBinaryPreferred(binary);
+                for (int i = 0; i < 2; i++) {
+                    ServerErrorException e = assertThrows(ServerErrorException.class, () -> client.requestMove(bad));
+                    assertTrue(e.serverMessage().startsWith("unknown piece"), e.getMessage());
+                }
+                assertNotNull(client.requestMove(game(Tetromino.T, null)));
+                assertEquals(1, client.connectionsOpened(), "binary " + binary);
+            }
+            assertEquals(2, server.stats().errors(), "each bad request reached the server once");
+        }
+    }
+
+    @Test
+    void servesBinaryPipelinesAndKeepsTheConnectionAfterErrors() throws Exception {
+        try (TetrisClient client = new TetrisClient("localhost", server.port())) {
+            client.setBinaryPreferred(true);
+            PureGame bad = game(Tetromino.T, null);
+            bad.setCurrentShape(new int[][]{{1, 1, 1, 1, 1}});
+            ExecutionException e = assertThrows(ExecutionException.class, () -> client.requestMoveAsync(bad).get());
+            assertInstanceOf(ServerErrorException.class, e.getCause());
+
+            List<CompletableFuture<OpMove>> futures = new ArrayList<>();
+            for (Tetromino t : Tetromino.values()) futures.add(client.requestMoveAsync(game(t, Tetromino.I)));
+            for (CompletableFuture<OpMove> f : futures) {
+                OpMove move = f.get();
+                assertTrue(move.opX() >= 0 && move.opX() < 10 && move.opRotate() >= 0 && move.opRotate() < 4);
+            }
+            assertEquals(1, client.connectionsOpened(), "an error reply keeps the connection");
+        }
+        assertEquals(1 + Tetromino.values().length, server.stats().requests());
+        assertEquals(1, server.stats().errors());
+    }
+
+    @Test
+    void sessionsSendDeltasAndResyncWhenTheServerForgets() throws IOException {
+        try (TetrisClient client = new TetrisClient("localhost", server.port())) {
+            client.setBinaryPreferred(true);
+            MoveSession session = client.openSession();
+            PureGame game = game(Tetromino.T, Tetromino.S);
+            for (int i = 0; i < 4; i++) {
+                game.getCells()[Board.DEFAULT_ROWS - 2][i] = 1; // the board changes a little each time
+                assertEquals(client.requestMove(game), session.requestMove(game));
+            }
+            assertEquals(1, session.syncs());
+            assertEquals(3, session.deltas());
+
+            server.clearSessions();
+            game.getCells()[Board.DEFAULT_ROWS - 3][0] = 1;
+            assertEquals(client.requestMove(game), session.requestMove(game));
+            assertEquals(1, session.resyncs());
+            assertEquals(2, session.syncs());
+        }
+        assertEquals(1, server.resyncs());
+        assertEquals(0, server.stats().errors());
+    }
+
+    @Test
+    void batcherCoalescesBoardsAndFailsOnlyTheBadOne() throws Exception {
+        try (TetrisClient client = new TetrisClient("localhost", server.port())) {
+            client.setBinaryPreferred(true);
+            List<PureGame> games = new ArrayList<>();
+            for (Tetromino t : Tetromino.values()) games.add(game(t, Tetromino.O));
+            PureGame bad = game(Tetromino.T, null);
+            bad.setCurrentShape(new int[][]{{1, 0, 1}});
+
+            List<CompletableFuture<OpMove>> futures = new ArrayList<>();
+            try (MoveBatcher batcher = client.batcher(Duration.ofMillis(50), 64)) {
+                for (PureGame g : games) futures.add(batcher.submit(g));
+                CompletableFuture<OpMove> failed = batcher.submit(bad);
+
+                for (int i = 0; i < games.size(); i++) assertEquals(client.requestMove(games.get(i)), futures.get(i).get());
+                ExecutionException e = assertThrows(ExecutionException.class, failed::get);
+                assertInstanceOf(ServerErrorException.class, e.getCause());
+                assertEquals(1, batcher.batchesSent());
+                assertEquals(games.size() + 1, batcher.requestsSent());
+            }
+        }
+        assertEquals(1, server.batches());
+    }
+
+    @Test
+    void batcherFallsBackToSingleRequests() throws Exception {
+        server.setBinaryEnabled(false);
+        try (TetrisClient client = new TetrisClient("localhost", server.port());
+             MoveBatcher batcher = client.batcher(Duration.ofMillis(50), 64)) {
+            client.setBinaryPreferred(true);
+            PureGame bad = game(Tetromino.T, null);
+            bad.setCurrentShape(new int[][]{{1, 0, 1}});
+            CompletableFuture<OpMove> failed = batcher.submit(bad); // same batch as the good board
+            OpMove move = batcher.submit(game(Tetromino.L, Tetromino.J)).get();
+            assertEquals(client.requestMove(game(Tetromino.L, Tetromino.J)), move);
+            ExecutionException e = assertThrows(ExecutionException.class, failed::get);
+            assertInstanceOf(ServerErrorException.class, e.getCause());
+            assertEquals(0, batcher.batchesSent());
+        }
+        assertEquals(0, server.batches());
+        assertEquals(1, server.stats().errors(), "the bad board was sent once");
+    }
+
+    @Test
+    void batchesWaitingOnTheBatchPoolDoNotHoldUpSingleRequests() throws Exception {
+        server.close();
+        ForkJoinPool batchPool = new ForkJoinPool(1);
+        CountDownLatch release = new CountDownLatch(1);
+        batchPool.execute(() -> {
+            try {
+                release.await(); // the pool's only worker is busy until released
+            } catch (InterruptedException ignored) {
+                // test over
+            }
+        });
+        server = new MoveServer(0, new AiController(), batchPool).start();
+        try (Socket s = new Socket("localhost", server.port())) {
+            s.setSoTimeout(5_000);
+            Hello.write(s.getOutputStream(), Hello.line(List.of(BinaryCodec.CAPABILITY, MoveBatcher.CAPABILITY)));
+            Hello.readLine(s.getInputStream());
+            DataInputStream in = new DataInputStream(new BufferedInputStream(s.getInputStream()));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(s.getOutputStream()));
+
+            int batches = Math.min(MoveServer.PLANNER_THREADS, MoveServer.MAX_IN_FLIGHT - 1);
+            byte[] batch = BinaryCodec.encodeBatch(List.of(game(Tetromino.T, null), game(Tetromino.S, null)));
+            for (int id = 1; id <= batches; id++) new Frame(Frame.BATCH_REQUEST, id, batch).write(out);
+            new Frame(Frame.MOVE_REQUEST, 0, BinaryCodec.encodeGame(game(Tetromino.I, null))).write(out);
+            out.flush();
+
+            Frame first = Frame.read(in);
+            assertEquals(Frame.MOVE_REPLY, first.type(), "the single request overtakes the stuck batches");
+            assertEquals(0, first.requestId());
+
+            release.countDown();
+            for (int i = 0; i < batches; i++) assertEquals(Frame.BATCH_REPLY, Frame.read(in).type());
+        } finally {
+            release.countDown();
+            batchPool.shutdown();
+        }
+    }
+
+    @Test
+    void recognisesTrimmedAndRotatedPieces() {
+        assertEquals(Tetromino.I, MoveServer.piece(new int[][]{{1}, {1}, {1}, {1}}));
+        assertEquals(Tetromino.T, MoveServer.piece(new int[][]{{0, 0, 0}, {7, 7, 7}, {0, 7, 0}}));
+        assertEquals(Tetromino.O, MoveServer.piece(new int[][]{{2, 2}, {2, 2}}));
+        assertNull(MoveServer.piece(null));
+        assertThrows(IllegalArgumentException.class, () -> MoveServer.piece(new int[][]{{1, 1}}));
+    }
+
+    /* 20x10 board with a few filled cells at the bottom. */
+    private static PureGame game(Tetromino current, Tetromino next) {
+        int[][] cells = new int[Board.DEFAULT_ROWS][Board.DEFAULT_COLS];
+        for (int c = 0; c < 7; c++) cells[Board.DEFAULT_ROWS - 1][c] = 3;
+        return new PureGame(Board.DEFAULT_COLS, Board.DEFAULT_ROWS, cells,
+                current.shape(0), (next == null) ? null : next.shape(0));
+    }
+}
@@ -0,0 +1,51 @@
+package org.oosd.net;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SessionDeltaTest {
+
+    @Test
+    void aLineClearIsOneRemovedRowAndTheLeftoverCells() {
+        int cols = 10;
+        int[] before = new int[20];
+        before[19] = 0b0111111111;           // column 9 open
+        before[18] = 0b0000000011;
+        // vertical I in column 9 clears row 19; three of its cells stay, fallen one row
+        int[] after = new int[20];
+        after[19] = 0b1000000011;
+        after[18] = 0b1000000000;
+        after[17] = 0b1000000000;
+
+        SessionDelta.Delta d = SessionDelta.diff(before, after, cols);
+        assertArrayEquals(new int[]{19}, d.removed());
+        assertEquals(3, d.toggles().length);
+        assertArrayEquals(after, SessionDelta.apply(before, cols, d));
+    }
+
+    @Test
+    void anyChangeRoundTripsThroughTheWireFormat() throws Exception {
+        Random rnd = new Random(5);
+        int cols = 7;
+        for (int i = 0; i < 200; i++) {
+            int[] before = new int[12], after = new int[12];
+            for (int r = 0; r < 12; r++) {
+                before[r] = rnd.nextInt(1 << cols);
+                after[r] = rnd.nextBoolean() ? before[r] : rnd.nextInt(1 << cols);
+            }
+            SessionDelta.Delta d = SessionDelta.diff(before, after, cols);
+            byte[] wire = SessionDelta.encodeDelta(42L, i, SessionDelta.hash(after), d, new int[][]{{1, 1, 1, 1}}, null);
+            SessionDelta.Update u = SessionDelta.decodeDelta(wire);
+
+            assertEquals(42L, u.session());
+            assertEquals(i, u.seq());
+            assertNull(u.next());
+            int[] rebuilt = SessionDelta.apply(before, cols, u.delta());
+            assertArrayEquals(after, rebuilt);
+            assertEquals(u.hash(), SessionDelta.hash(rebuilt));
+        }
+    }
+}
@@ -0,0 +1,360 @@
+package org.oosd.net;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.*;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TetrisClientTest {
+
+    private ServerSocket server;
+    private final AtomicInteger accepted = new AtomicInteger();
+
+    @AfterEach
+    void tearDown() throws IOException {
+        if (server != null) server.close();
+    }
+
+    @Test
+    void reusesOneConnectionAcrossRequests() throws IOException {
+        startServer(Integer.MAX_VALUE);
+        try (TetrisClient client = new TetrisClient("localhost", server.getLocalPort())) {
+            for (int i = 0; i < 20; i++) {
+                assertEquals(new OpMove(i + 1, 1), client.requestMove(game()));
+            }
+            assertEquals(1, client.connectionsOpened());
+        }
+        assertEquals(1, accepted.get());
+    }
+
+    @Test
+    void reconnectsWhenTheServerDropsTheConnection() throws IOException {
+        startServer(1); // answers one request per connection, then hangs up
+        try (TetrisClient client = new TetrisClient("localhost", server.getLocalPort())) {
+            for (int i = 0; i < 3; i++) assertEquals(new OpMove(1, 1), client.requestMove(game()));
+            assertEquals(3, client.connectionsOpened());
+        }
+    }
+
+    @Test
+    void failsWhenNothingListens() throws IOException {
+        int port;
+        try (ServerSocket probe = new ServerSocket(0)) { port = probe.getLocalPort(); }
+        try (TetrisClient client = new TetrisClient("localhost", port)) {
+            assertThrows(IOException.class, () -> client.requestMove(game()));
+        }
+    }
+
+    @Test
+    void negotiatesBinaryFramesWhenTheServerAcceptsThem() throws IOException {
+        startBinaryServer(false);
+        try (TetrisClient client = new TetrisClient("localhost", server.getLocalPort())) {
+            client.setBinaryPreferred(true);
+            for (int i = 0; i < 5; i++) assertEquals(new OpMove(2, 0), client.requestMove(game()));
+            assertTrue(client.hasBinaryConnection());
+            assertEquals(1, client.connectionsOpened());
+        }
+    }
+
+    @Test
+    void fallsBackToJsonWhenTheServerIgnoresTheHello() throws IOException {
+        startServer(Integer.MAX_VALUE); // answers the hello line with a JSON move
+        try (TetrisClient client = new TetrisClient("localhost", server.getLocalPort())) {
+            client.setBinaryPreferred(true);
+            for (int i = 0; i < 3; i++) assertEquals(new OpMove(i + 1, 1), client.requestMove(game()));
+            assertFalse(client.hasBinaryConnection());
+        }
+        assertEquals(2, accepted.get(), "one rejected hello, then one JSON connection");
+    }
+
+    @Test
+    void aSlowHelloBacksOffBeforeOfferingBinaryAgain() throws Exception {
+        startSlowHelloServer(); // first hello goes unanswered, later ones are accepted
+        try (TetrisClient client = new TetrisClient("localhost", server.getLocalPort(), 0)) {
+            client.setBinaryPreferred(true);
+            assertEquals(new OpMove(1, 1), client.requestMove(game()), "JSON after the hello timed out");
+            assertEquals(new OpMove(1, 1), client.requestMove(game()), "no hello while backing off");
+            Thread.sleep(200); // past the first backoff step
+            assertEquals(new OpMove(2, 0), client.requestMove(game()), "binary is offered again afterwards");
+        }
+        assertEquals(4, accepted.get(), "timed-out hello, its JSON retry, one JSON connection, then binary");
+    }
+
+    @Test
+    void aServerHangingUpOnTheHelloIsNotAskedOnEveryConnect() throws IOException {
+        startHangUpOnHelloServer();
+        try (TetrisClient client = new TetrisClient("localhost", server.getLocalPort(), 0)) {
+            client.setBinaryPreferred(true);
+            for (int i = 0; i < 3; i++) assertEquals(new OpMove(1, 1), client.requestMove(game()));
+            assertFalse(client.hasBinaryConnection());
+        }
+        assertEquals(4, accepted.get(), "one hung-up hello, then a plain JSON connection per request");
+    }
+
+    @Test
+    void asyncJsonRequestsShareOneConnection() throws Exception {
+        startServer(Integer.MAX_VALUE);
+        try (TetrisClient client = new TetrisClient("localhost", server.getLocalPort())) {
+            List<CompletableFuture<OpMove>> futures = new ArrayList<>();
+            for (int i = 0; i < 10; i++) futures.add(client.requestMoveAsync(game()));
+
+            Set<Integer> seen = new HashSet<>();
+            for (CompletableFuture<OpMove> f : futures) seen.add(f.get().opX());
+            assertEquals(10, seen.size(), "every reply went to exactly one request");
+        }
+        assertEquals(1, accepted.get());
+    }
+
+    @Test
+    void asyncRepliesAreMatchedByIdWithDeadlinesAndCancellation() throws Exception {
+        startBinaryServer(true); // replies after width x 10 ms, in any order
+        try (TetrisClient client = new TetrisClient("localhost", server.getLocalPort())) {
+            client.setBinaryPreferred(true);
+            assertEquals(new OpMove(1, 0), client.requestMoveAsync(game(1)).get()); // connected
+
+            CompletableFuture<OpMove> cancelled = client.requestMoveAsync(game(30));
+            CompletableFuture<OpMove> slow = client.requestMoveAsync(game(50), Duration.ofMillis(100));
+            CompletableFuture<OpMove> quick = client.requestMoveAsync(game(2));
+            assertTrue(cancelled.cancel(true));
+
+            assertEquals(new OpMove(2, 0), quick.get(), "overtakes the slower requests");
+            ExecutionException e = assertThrows(ExecutionException.class, slow::get);
+            assertInstanceOf(TimeoutException.class, e.getCause());
+
+            Thread.sleep(400); // the abandoned replies arrive and are dropped
+            assertEquals(new OpMove(3, 0), client.requestMoveAsync(game(3)).get());
+        }
+        assertEquals(1, accepted.get());
+    }
+
+    @Test
+    void aShortDeadlineDoesNotFailOtherRequests() throws Exception {
+        startBinaryServer(true);
+        try (TetrisClient client = new TetrisClient("localhost", server.getLocalPort())) {
+            client.setBinaryPreferred(true);
+            assertEquals(new OpMove(1, 0), client.requestMoveAsync(game(1)).get()); // connected
+
+            CompletableFuture<OpMove> other = client.requestMoveAsync(game(6));
+            CompletableFuture<OpMove> hasty = client.requestMoveAsync(game(2), Duration.ofMillis(5));
+            ExecutionException e = assertThrows(ExecutionException.class, hasty::get);
+            assertInstanceOf(TimeoutException.class, e.getCause());
+            assertEquals(new OpMove(6, 0), other.get(), "only the hasty request gave up");
+        }
+        assertEquals(1, accepted.get());
+    }
+
+    @Test
+    void aStuckWriteNeitherBlocksCallersNorClose() throws Exception {
+        startStalledServer(); // answers one request, then stops reading
+        try (TetrisClient client = new TetrisClient("localhost", server.getLocalPort())) {
+            assertEquals(new OpMove(1, 1), client.requestMoveAsync(game()).get()); // connected
+
+            int[][] cells = new int[200][200]; // ~80 KB of JSON: the socket buffers fill quickly
+            List<CompletableFuture<OpMove>> futures = new ArrayList<>();
+            long start = System.nanoTime();
+            for (int i = 0; i < 200; i++) {
+                futures.add(client.requestMoveAsync(new PureGame(200, 200, cells, new int[][]{{1}}, new int[][]{{1}}),
+                        Duration.ofSeconds(30)));
+            }
+            assertTrue(System.nanoTime() - start < 2_000_000_000L, "callers never write to the socket");
+
+            client.close(); // must not wait for the write lock held by the stuck writer
+            for (CompletableFuture<OpMove> f : futures) {
+                ExecutionException e = assertThrows(ExecutionException.class, () -> f.get(5, TimeUnit.SECONDS));
+                assertInstanceOf(IOException.class, e.getCause());
+            }
+        }
+    }
+
+    private void startStalledServer() throws IOException {
+        server = new ServerSocket(0);
+        Thread.ofVirtual().start(() -> {
+            try (Socket s = server.accept()) {
+                BufferedReader in = new BufferedReader(new InputStreamReader(s.getInputStream(), StandardCharsets.UTF_8));
+                in.readLine();
+                s.getOutputStream().write("{\"opX\":1,\"opRotate\":1}\n".getBytes(StandardCharsets.UTF_8));
+                while (!server.isClosed()) Thread.sleep(50);
+            } catch (IOException | InterruptedException ignored) {
+                // test over
+            }
+        });
+    }
+
+    private void startBinaryServer(boolean delayed) throws IOException {
+        server = new ServerSocket(0);
+        Thread.ofVirtual().start(() -> {
+            while (!server.isClosed()) {
+                try {
+                    Socket s = server.accept();
+                    accepted.incrementAndGet();
+                    Thread.ofVirtual().start(() -> {
+                        if (delayed) serveDelayed(s);
+                        else serveBinary(s);
+                    });
+                } catch (IOException closed) {
+                    return;
+                }
+            }
+        });
+    }
+
+    /* Binary, each reply on its own thread after width x 10 ms. */
+    private static void serveDelayed(Socket s) {
+        try (s) {
+            Hello.readLine(s.getInputStream());
+            Hello.write(s.getOutputStream(), Hello.line(List.of(BinaryCodec.CAPABILITY)));
+            DataInputStream in = new DataInputStream(new BufferedInputStream(s.getInputStream()));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(s.getOutputStream()));
+            while (true) {
+                Frame request = Frame.read(in);
+                int width = BinaryCodec.decodeGame(request.payload()).getWidth();
+                Thread.ofVirtual().start(() -> {
+                    try {
+                        Thread.sleep(width * 10L);
+                        synchronized (out) {
+                            new Frame(Frame.MOVE_REPLY, request.requestId(),
+                                    BinaryCodec.encodeMove(new OpMove(width, 0))).write(out);
+                            out.flush();
+                        }
+                    } catch (IOException | InterruptedException ignored) {
+                        // connection gone
+                    }
+                });
+            }
+        } catch (IOException ignored) {
+            // client went away
+        }
+    }
+
+    /* Accepts the binary hello, then answers every game with opX = its width. */
+    private static void serveBinary(Socket s) {
+        try (s) {
+            Hello.readLine(s.getInputStream());
+            serveFrames(s);
+        } catch (IOException ignored) {
+            // client went away
+        }
+    }
+
+    /* The hello has been read: accept binary and answer every game with opX = its width. */
+    private static void serveFrames(Socket s) throws IOException {
+        Hello.write(s.getOutputStream(), Hello.line(List.of(BinaryCodec.CAPABILITY)));
+        DataInputStream in = new DataInputStream(new BufferedInputStream(s.getInputStream()));
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(s.getOutputStream()));
+        while (true) {
+            Frame request = Frame.read(in);
+            PureGame game = BinaryCodec.decodeGame(request.payload());
+            byte[] reply = BinaryCodec.encodeMove(new OpMove(game.getWidth(), 0));
+            new Frame(Frame.MOVE_REPLY, request.requestId(), reply).write(out);
+            out.flush();
+        }
+    }
+
+    /* Never answers the first connection's hello; later ones get binary for a hello, JSON otherwise. */
+    private void startSlowHelloServer() throws IOException {
+        server = new ServerSocket(0);
+        Thread.ofVirtual().start(() -> {
+            while (!server.isClosed()) {
+                try {
+                    Socket s = server.accept();
+                    int n = accepted.incrementAndGet();
+                    Thread.ofVirtual().start(() -> {
+                        try (s) {
+                            String first = Hello.readLine(s.getInputStream());
+                            if (n == 1 || first == null) {
+                                s.getInputStream().read(); // until the client gives up
+                            } else if (Hello.parse(first) != null) {
+                                serveFrames(s);
+                            } else {
+                                s.getOutputStream().write("{\"opX\":1,\"opRotate\":1}\n".getBytes(StandardCharsets.UTF_8));
+                                s.getInputStream().read();
+                            }
+                        } catch (IOException ignored) {
+                            // client went away
+                        }
+                    });
+                } catch (IOException closed) {
+                    return;
+                }
+            }
+        });
+    }
+
+    /* A JSON-only server that drops connections starting with a hello line. */
+    private void startHangUpOnHelloServer() throws IOException {
+        server = new ServerSocket(0);
+        Thread.ofVirtual().start(() -> {
+            while (!server.isClosed()) {
+                try {
+                    Socket s = server.accept();
+                    accepted.incrementAndGet();
+                    Thread.ofVirtual().start(() -> {
+                        try (s) {
+                            String first = Hello.readLine(s.getInputStream());
+                            if (first != null && Hello.parse(first) == null) {
+                                s.getOutputStream().write("{\"opX\":1,\"opRotate\":1}\n".getBytes(StandardCharsets.UTF_8));
+                                s.getInputStream().read();
+                            }
+                        } catch (IOException ignored) {
+                            // client went away
+                        }
+                    });
+                } catch (IOException closed) {
+                    return;
+                }
+            }
+        });
+    }
+
+    /* Replies {"opX": n, "opRotate": 1} to the n-th line of each connection. */
+    private void startServer(int requestsPerConnection) throws IOException {
+        server = new ServerSocket(0);
+        Thread.ofVirtual().start(() -> {
+            while (!server.isClosed()) {
+                try {
+                    Socket s = server.accept();
+                    accepted.incrementAndGet();
+                    Thread.ofVirtual().start(() -> serve(s, requestsPerConnection));
+                } catch (IOException closed) {
+                    return;
+                }
+            }
+        });
+    }
+
+    private static void serve(Socket s, int limit) {
+        try (s;
+             BufferedReader in = new BufferedReader(new InputStreamReader(s.getInputStream(), StandardCharsets.UTF_8));
+             Writer out = new OutputStreamWriter(s.getOutputStream(), StandardCharsets.UTF_8)) {
+            for (int n = 1; n <= limit && in.readLine() != null; n++) {
+                out.write("{\"opX\":" + n + ",\"opRotate\":1}\n");
+                out.flush();
+            }
+        } catch (IOException ignored) {
+            // client went away
+        }
+    }
+
+    private static PureGame game() {
+        return game(2);
+    }
+
+    private static PureGame game(int width) {
+        return new PureGame(width, 2, new int[][]{{0, 0}, {1, 0}}, new int[][]{{1, 1}}, new int[][]{{1}});
+    }
+}
@@ -0,0 +1,42 @@
+package org.oosd.tools;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.oosd.core.AiWeightsStore;
+import org.oosd.game.BoardFeatures;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AiTunerTest {
+
+    @Test
+    void resultDoesNotDependOnThreadCount(@TempDir Path dir) throws Exception {
+        AiTuner.Options one = new AiTuner.Options(2, 6, 2, 40, 1, 11L, 0.5, dir.resolve("a.json"));
+        AiTuner.Options four = new AiTuner.Options(2, 6, 2, 40, 4, 11L, 0.5, dir.resolve("b.json"));
+
+        AiTuner.Result a = new AiTuner(one, null).tune();
+        AiTuner.Result b = new AiTuner(four, null).tune();
+        assertEquals(a.best(), b.best());
+        assertEquals(a.fitness(), b.fitness());
+        assertTrue(a.pieces() > 0);
+    }
+
+    @Test
+    void mainWritesLoadableWeights(@TempDir Path dir) throws Exception {
+        Path out = dir.resolve("tuned.json");
+        AiTuner.main(new String[] {"--generations", "1", "--population", "4", "--games", "2",
+                "--pieces", "30", "--threads", "2", "--out", out.toString()});
+
+        AiWeightsStore.Weights w = AiWeightsStore.load(out);
+        assertNotNull(w);
+        assertEquals("linear", w.evaluator());
+        assertEquals(BoardFeatures.COUNT, w.values().size());
+    }
+
+    @Test
+    void rejectsUnknownOptions() {
+        assertThrows(IllegalArgumentException.class, () -> AiTuner.parse(new String[] {"--nope", "1"}));
+    }
+}
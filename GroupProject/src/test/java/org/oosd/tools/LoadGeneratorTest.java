@@ -0,0 +1,36 @@
+package org.oosd.tools;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoadGeneratorTest {
+
+    @Test
+    void drivesAnEmbeddedServer() throws Exception {
+        LoadGenerator.Options o = new LoadGenerator.Options("localhost", 0, true, true, true, false, 4,
+                0.0, Duration.ofMillis(400), Duration.ofMillis(100), 3L);
+        LoadGenerator.Result r = new LoadGenerator(o, null).run();
+
+        assertTrue(r.requests() > 0);
+        assertEquals(0, r.errors());
+        assertEquals(0, r.invalid());
+        assertEquals(r.requests(), r.latency().count());
+        assertTrue(r.latency().valueAtPercentile(99.9) >= r.latency().valueAtPercentile(50));
+    }
+
+    @Test
+    void parsesFlagsAndOptions() {
+        LoadGenerator.Options o = LoadGenerator.parse(new String[] {
+                "--embedded", "--games", "64", "--rate", "2.5", "--seconds", "0.5", "--batched"});
+        assertTrue(o.embedded());
+        assertTrue(o.batched());
+        assertFalse(o.binary());
+        assertEquals(64, o.games());
+        assertEquals(2.5, o.rate());
+        assertEquals(Duration.ofMillis(500), o.duration());
+        assertThrows(IllegalArgumentException.class, () -> LoadGenerator.parse(new String[] {"--games"}));
+    }
+}
@@ -90,7 +90,8 @@ class ConfigurationViewPersistenceTest {
                   "players": 2,
                   "aiP1Enabled": true,
                   "aiP2Enabled": false,
-                  "extendModeEnabled": true
+                  "extendModeEnabled": true,
+                  "aiThinkMs": 40
                 }
                 """;
         Files.writeString(configFile, json, StandardCharsets.UTF_8);
@@ -105,10 +106,12 @@ class ConfigurationViewPersistenceTest {
         Assertions.assertTrue(cfg.isAiP1Enabled(), "Player 1 AI flag should load from persisted settings");
         Assertions.assertFalse(cfg.isAiP2Enabled(), "Player 2 AI flag should load from persisted settings");
         Assertions.assertTrue(cfg.isExtendModeEnabled(), "Extend mode should load from persisted settings");
+        Assertions.assertEquals(40, cfg.aiThinkMs(), "AI think time should load from persisted settings");
 
         double widthValue = sliderValue(view, "Field Width (No of cells):");
         double heightValue = sliderValue(view, "Field Height (No of cells):");
         double levelValue = sliderValue(view, "Game Level:");
+        double thinkValue = sliderValue(view, "AI Think Time (ms):");
         boolean extendSelected = checkBoxSelected(view);
         boolean twoPlayersSelected = radioSelected(view, "2 Players");
         boolean onePlayerSelected = radioSelected(view, "1 Player");
@@ -116,6 +119,7 @@ class ConfigurationViewPersistenceTest {
         Assertions.assertEquals(12.0, widthValue, 1e-6, "Width slider should reflect persisted cols");
         Assertions.assertEquals(19.0, heightValue, 1e-6, "Height slider should reflect persisted rows");
         Assertions.assertEquals(7.0, levelValue, 1e-6, "Level slider should reflect persisted gravity");
+        Assertions.assertEquals(40.0, thinkValue, 1e-6, "AI think slider should reflect persisted think time");
         Assertions.assertTrue(extendSelected, "Extend mode checkbox should match persisted state");
         Assertions.assertTrue(twoPlayersSelected, "Two-player toggle should match persisted state");
         Assertions.assertFalse(onePlayerSelected, "One-player toggle should be deselected when persisted state is two players");
@@ -302,6 +306,7 @@ class ConfigurationViewPersistenceTest {
         cfg.setAiP1Enabled(false);
         cfg.setAiP2Enabled(false);
         cfg.setExtendModeEnabled(false);
+        cfg.setAiThinkMs(10);
     }
 
     private static Path resolveSettingsStoreFile() throws Exception {
@@ -384,6 +389,7 @@ class ConfigurationViewPersistenceTest {
         private final boolean aiP1;
         private final boolean aiP2;
         private final boolean extendMode;
+        private final int aiThinkMs;
 
         private GameConfigSnapshot() {
             GameConfig cfg = GameConfig.get();
@@ -398,6 +404,7 @@ class ConfigurationViewPersistenceTest {
             this.aiP1 = cfg.isAiP1Enabled();
             this.aiP2 = cfg.isAiP2Enabled();
             this.extendMode = cfg.isExtendModeEnabled();
+            this.aiThinkMs = cfg.aiThinkMs();
         }
 
         private void restore() {
@@ -413,6 +420,7 @@ class ConfigurationViewPersistenceTest {
             cfg.setAiP1Enabled(aiP1);
             cfg.setAiP2Enabled(aiP2);
             cfg.setExtendModeEnabled(extendMode);
+            cfg.setAiThinkMs(aiThinkMs);
         }
     }
 }